@@ -13,6 +13,8 @@ import net.intelie.lognit.cli.json.Jsonizer;
 import net.intelie.lognit.cli.model.Lognit;
 import net.intelie.lognit.cli.runners.*;
 import net.intelie.lognit.cli.state.Clock;
+import net.intelie.lognit.cli.state.DownloadCheckpointStorage;
+import net.intelie.lognit.cli.state.LatencyHistory;
 import net.intelie.lognit.cli.state.RestStateStorage;
 import net.intelie.lognit.cli.state.StateKeeper;
 import org.apache.commons.httpclient.HttpClient;
@@ -23,6 +25,8 @@ import java.util.Timer;
 public class AppContext {
     public EntryPoint resolveEntryPoint() throws Exception {
         File stateFile = new File(new File(System.getProperty("user.home"), ".lognit"), "state");
+        File latencyFile = new File(new File(System.getProperty("user.home"), ".lognit"), "latency");
+        File checkpointFile = new File(new File(System.getProperty("user.home"), ".lognit"), "download");
 
         Jsonizer jsonizer = new Jsonizer();
 
@@ -42,7 +46,9 @@ public class AppContext {
         Clock clock = new Clock();
         Runtime runtime = Runtime.getRuntime();
         Timer timer = new Timer();
-        MainRunner mainRunner = makeMainRunner(userConsole, lognit, clock, timer, runtime, selector);
+        LatencyHistory latencies = new LatencyHistory(latencyFile);
+        DownloadCheckpointStorage checkpoints = new DownloadCheckpointStorage(checkpointFile);
+        MainRunner mainRunner = makeMainRunner(userConsole, lognit, clock, timer, runtime, selector, jsonizer, latencies, checkpoints);
 
         AuthenticatorRunner authenticatorRunner = new AuthenticatorRunner(userConsole, lognit, clock, mainRunner);
 
@@ -56,7 +62,7 @@ public class AppContext {
         FileInputStream in = new FileInputStream(FileDescriptor.in);
         OutputStreamWriter out = new OutputStreamWriter(System.err, "UTF-8");
         final ConsoleReader consoleReader = new ConsoleReader(in, out, null, new UnsupportedTerminal());
-        return new UserConsole(consoleReader, new PrintWriter(new OutputStreamWriter(System.out, "UTF-8")));
+        return new TerminalConsole(consoleReader, new PrintWriter(new OutputStreamWriter(System.out, "UTF-8")));
     }
 
     private FormatterSelector makeFormatterSelector(Jsonizer jsonizer, UserConsole userConsole) {
@@ -68,15 +74,16 @@ public class AppContext {
         return new FormatterSelector(userConsole, coloredFormatter, plainFormatter, jsonFormatter, flatJsonFormatter, iemFormatter);
     }
 
-    private MainRunner makeMainRunner(UserConsole userConsole, Lognit lognit, Clock clock, Timer timer, Runtime runtime, FormatterSelector selector) {
+    private MainRunner makeMainRunner(UserConsole userConsole, Lognit lognit, Clock clock, Timer timer, Runtime runtime, FormatterSelector selector, Jsonizer jsonizer, LatencyHistory latencies, DownloadCheckpointStorage checkpoints) {
         InfoRunner info = new InfoRunner(userConsole, lognit);
-        SearchRunner search = new SearchRunner(userConsole, lognit, new BufferListenerFactory(selector), clock, runtime);
+        SearchRunner search = new SearchRunner(userConsole, lognit, new BufferListenerFactory(userConsole, selector, jsonizer), clock, runtime, latencies);
         CompletionRunner completion = new CompletionRunner(userConsole, lognit);
         UsageRunner usage = new UsageRunner(userConsole);
         WelcomeRunner welcome = new WelcomeRunner(userConsole, lognit);
         PurgeRunner purge = new PurgeRunner(userConsole, lognit, clock, runtime);
         PauseRunner pause = new PauseRunner(userConsole, lognit);
-        DownloadRunner download = new DownloadRunner(userConsole, lognit, selector, timer);
-        return new MainRunner(search, info, completion, usage, welcome, purge, pause, download);
+        DownloadRunner download = new DownloadRunner(userConsole, lognit, selector, timer, checkpoints);
+        NodesReportRunner nodesReport = new NodesReportRunner(userConsole, latencies);
+        return new MainRunner(search, info, completion, usage, welcome, purge, pause, download, nodesReport);
     }
 }
@@ -3,6 +3,7 @@ package net.intelie.lognit.cli;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,6 +31,15 @@ public class ArgsParser {
         return convert(type, value);
     }
 
+    public <T> List<T> options(Class<T> type, String... options) {
+        List<T> values = new ArrayList<T>();
+        for (String value = findValue(options); value != null; value = findValue(options)) {
+            T converted = convert(type, value);
+            if (converted != null) values.add(converted);
+        }
+        return values;
+    }
+
     private <T> T convert(Class<T> type, String value) {
         try {
             return type.getConstructor(String.class).newInstance(value);
@@ -0,0 +1,82 @@
+package net.intelie.lognit.cli;
+
+import jline.ANSIBuffer;
+
+public class TaggedConsole extends UserConsole {
+    private final UserConsole console;
+    private final int index;
+    private final String tag;
+    private final boolean colored;
+
+    public TaggedConsole(UserConsole console, int index, String tag, boolean colored) {
+        this.console = console;
+        this.index = index;
+        this.tag = tag;
+        this.colored = colored;
+    }
+
+    @Override
+    public void printOut(String format, Object... args) {
+        console.printOut("%s %s", prefix(), reallyFormat(format, args));
+    }
+
+    //encoded output is json, which a tag would no longer let be parsed
+    @Override
+    public void printOut(char[] chars, int offset, int length) {
+        console.printOut(chars, offset, length);
+    }
+
+    @Override
+    public void println(String format, Object... args) {
+        console.println("%s %s", prefix(), reallyFormat(format, args));
+    }
+
+    @Override
+    public void printStill(String format, Object... args) {
+        console.printStill(format, args);
+    }
+
+    @Override
+    public boolean isTTY() {
+        return console.isTTY();
+    }
+
+    @Override
+    public char waitChar(char... allowed) {
+        return console.waitChar(allowed);
+    }
+
+    @Override
+    public void fixCursor() {
+        console.fixCursor();
+    }
+
+    @Override
+    public void registerFix(Runtime runtime) {
+        console.registerFix(runtime);
+    }
+
+    @Override
+    public String readLine(String format, Object... args) {
+        return console.readLine(format, args);
+    }
+
+    @Override
+    public String readPassword(String format, Object... args) {
+        return console.readPassword(format, args);
+    }
+
+    private String prefix() {
+        ANSIBuffer buffer = new ANSIBuffer();
+        String text = "[" + tag + "]";
+        switch (index % 6) {
+            case 0: buffer.cyan(text); break;
+            case 1: buffer.yellow(text); break;
+            case 2: buffer.green(text); break;
+            case 3: buffer.magenta(text); break;
+            case 4: buffer.blue(text); break;
+            default: buffer.red(text); break;
+        }
+        return buffer.toString(colored && console.isTTY());
+    }
+}
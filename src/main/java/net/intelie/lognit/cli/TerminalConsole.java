@@ -0,0 +1,104 @@
+package net.intelie.lognit.cli;
+
+import jline.ConsoleReader;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+public class TerminalConsole extends UserConsole {
+    private final ConsoleReader console;
+    private final PrintWriter stdout;
+
+    public TerminalConsole(ConsoleReader console, PrintWriter stdout) {
+        this.console = console;
+        this.stdout = stdout;
+    }
+
+    @Override
+    public void printOut(String format, Object... args) {
+        stdout.println(reallyFormat(format, args));
+        stdout.flush();
+    }
+
+    @Override
+    public void printOut(char[] chars, int offset, int length) {
+        stdout.write(chars, offset, length);
+        stdout.println();
+        stdout.flush();
+    }
+
+    @Override
+    public boolean isTTY() {
+        return System.console() != null && console.getTerminal().isANSISupported();
+    }
+
+    @Override
+    public synchronized char waitChar(char... allowed) {
+        try {
+            return (char) console.readCharacter(allowed);
+        } catch (IOException e) {
+            return '\0';
+        }
+    }
+
+    @Override
+    public synchronized void printStill(String format, Object... args) {
+        try {
+            console.setDefaultPrompt(null);
+            console.setCursorPosition(0);
+            console.killLine();
+            console.getCursorBuffer().clearBuffer();
+            console.putString(reallyFormat(format, args));
+            console.flushConsole();
+        } catch (IOException e) {
+        }
+    }
+
+    @Override
+    public synchronized void fixCursor() {
+        try {
+            if (console.getCursorBuffer().cursor != 0)
+                console.printNewline();
+            console.getCursorBuffer().clearBuffer();
+        } catch (IOException e) {
+        }
+    }
+
+    @Override
+    public synchronized void registerFix(Runtime runtime) {
+        runtime.addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                fixCursor();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void println(String format, Object... args) {
+        try {
+            console.printString(reallyFormat(format, args));
+            console.printNewline();
+            console.flushConsole();
+        } catch (IOException e) {
+        }
+    }
+
+    @Override
+    public String readLine(String format, Object... args) {
+        try {
+            return console.readLine(reallyFormat(format, args));
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    @Override
+    public String readPassword(String format, Object... args) {
+        try {
+            return console.readLine(reallyFormat(format, args), '\0');
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
@@ -1,95 +1,32 @@
 package net.intelie.lognit.cli;
 
-import jline.ConsoleReader;
-
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Locale;
 
-public class UserConsole {
-    private final ConsoleReader console;
-    private final PrintWriter stdout;
+//where the runners talk to the user; TerminalConsole is the real one, the others wrap it
+public abstract class UserConsole {
+    public abstract void printOut(String format, Object... args);
 
-    public UserConsole(ConsoleReader console, PrintWriter stdout) {
-        this.console = console;
-        this.stdout = stdout;
-    }
+    public abstract void printOut(char[] chars, int offset, int length);
 
-    public void printOut(String format, Object... args) {
-        stdout.println(reallyFormat(format, args));
-        stdout.flush();
-    }
+    public abstract boolean isTTY();
 
-    private String reallyFormat(String format, Object[] args) {
-        if (args.length > 0)
-            format = String.format(Locale.ENGLISH, format, args);
-        return format;
-    }
-
-    public boolean isTTY() {
-        return System.console() != null && console.getTerminal().isANSISupported();
-    }
+    public abstract char waitChar(char... allowed);
 
-    public synchronized char waitChar(char... allowed) {
-        try {
-            return (char) console.readCharacter(allowed);
-        } catch (IOException e) {
-            return '\0';
-        }
-    }
+    public abstract void printStill(String format, Object... args);
 
-    public synchronized void printStill(String format, Object... args) {
-        try {
-            console.setDefaultPrompt(null);
-            console.setCursorPosition(0);
-            console.killLine();
-            console.getCursorBuffer().clearBuffer();
-            console.putString(reallyFormat(format, args));
-            console.flushConsole();
-        } catch (IOException e) {
-        }
-    }
+    public abstract void fixCursor();
 
-    public synchronized void fixCursor() {
-        try {
-            if (console.getCursorBuffer().cursor != 0)
-                console.printNewline();
-            console.getCursorBuffer().clearBuffer();
-        } catch (IOException e) {
-        }
-    }
+    public abstract void registerFix(Runtime runtime);
 
-    public synchronized void registerFix(Runtime runtime) {
-        runtime.addShutdownHook(new Thread() {
-            @Override
-            public void run() {
-                fixCursor();
-            }
-        });
-    }
+    public abstract void println(String format, Object... args);
 
-    public synchronized void println(String format, Object... args) {
-        try {
-            console.printString(reallyFormat(format, args));
-            console.printNewline();
-            console.flushConsole();
-        } catch (IOException e) {
-        }
-    }
+    public abstract String readLine(String format, Object... args);
 
-    public String readLine(String format, Object... args) {
-        try {
-            return console.readLine(reallyFormat(format, args));
-        } catch (IOException e) {
-            return "";
-        }
-    }
+    public abstract String readPassword(String format, Object... args);
 
-    public String readPassword(String format, Object... args) {
-        try {
-            return console.readLine(reallyFormat(format, args), '\0');
-        } catch (IOException e) {
-            return "";
-        }
+    protected String reallyFormat(String format, Object[] args) {
+        if (args.length > 0)
+            format = String.format(Locale.ENGLISH, format, args);
+        return format;
     }
 }
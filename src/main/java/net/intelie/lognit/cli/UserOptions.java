@@ -2,13 +2,18 @@ package net.intelie.lognit.cli;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 public class UserOptions {
     private final String server;
+    private final List<String> servers;
     private final String user;
     private final String password;
 
     private final String query;
+    private final List<String> queries;
 
     private final String format;
     private final String span;
@@ -30,11 +35,16 @@ public class UserOptions {
     private final boolean forceLogin;
     private final boolean metadata;
     private final boolean noCheckCertificate;
+    private final boolean progressive;
+    private final boolean nodesReport;
+    private final int slices;
+    private final String outputFile;
 
     public UserOptions(String... args) {
         ArgsParser parser = new ArgsParser(args);
         help = parser.flag("-?", "-h", "--help");
-        server = parser.option(String.class, "-s", "--server");
+        servers = ImmutableList.copyOf(parser.options(String.class, "-s", "--server"));
+        server = servers.isEmpty() ? null : servers.get(0);
         user = parser.option(String.class, "-u", "--user");
         password = parser.option(String.class, "-p", "--pass", "--password");
         all = parser.flag("--all");
@@ -54,10 +64,26 @@ public class UserOptions {
         forceLogin = parser.flag("--force-login");
         noCheckCertificate = parser.flag("--no-check-certificate");
         metadata = parser.flag("--meta", "--metadata");
+        progressive = parser.flag("--progressive");
+        nodesReport = parser.flag("--nodes-report");
         span = parser.option(String.class, "--span");
+        slices = Math.max(1, def(parser.option(Integer.class, "--slices"), 1));
+        outputFile = parser.option(String.class, "-O", "--output-file");
         timeout = def(parser.option(Integer.class, "-t", "--timeout"), 30);
-        query = parser.text();
+        List<String> extra = parser.options(String.class, "-q", "--query");
+        queries = queries(parser.text(), extra);
+        query = queries.isEmpty() ? "" : queries.get(0);
+
+    }
 
+    private List<String> queries(String text, List<String> extra) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        if (!Strings.isNullOrEmpty(text))
+            builder.add(text);
+        for (String query : extra)
+            if (!Strings.isNullOrEmpty(query))
+                builder.add(query);
+        return builder.build();
     }
 
     private int defaultLine(boolean purge, boolean download) {
@@ -72,6 +98,14 @@ public class UserOptions {
         return server;
     }
 
+    public List<String> getServers() {
+        return servers;
+    }
+
+    public boolean isFederated() {
+        return servers.size() > 1;
+    }
+
     public String getUser() {
         return user;
     }
@@ -84,6 +118,10 @@ public class UserOptions {
         return query;
     }
 
+    public List<String> getQueries() {
+        return queries;
+    }
+
     public boolean isFollow() {
         return follow;
     }
@@ -148,10 +186,22 @@ public class UserOptions {
         return noCheckCertificate;
     }
 
+    public boolean isProgressive() {
+        return progressive;
+    }
+
     public String getSpan() {
         return span;
     }
 
+    public int getSlices() {
+        return slices;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+
     public String getFormat() {
         return format;
     }
@@ -163,9 +213,11 @@ public class UserOptions {
         UserOptions that = (UserOptions) o;
 
         return Objects.equal(this.server, that.server) &&
+                Objects.equal(this.servers, that.servers) &&
                 Objects.equal(this.user, that.user) &&
                 Objects.equal(this.password, that.password) &&
                 Objects.equal(this.query, that.query) &&
+                Objects.equal(this.queries, that.queries) &&
                 Objects.equal(this.follow, that.follow) &&
                 Objects.equal(this.all, that.all) &&
                 Objects.equal(this.purge, that.purge) &&
@@ -185,13 +237,17 @@ public class UserOptions {
                 Objects.equal(this.forceLogin, that.forceLogin) &&
                 Objects.equal(this.noCheckCertificate, that.noCheckCertificate) &&
                 Objects.equal(this.span, that.span) &&
+                Objects.equal(this.progressive, that.progressive) &&
+                Objects.equal(this.nodesReport, that.nodesReport) &&
+                Objects.equal(this.slices, that.slices) &&
+                Objects.equal(this.outputFile, that.outputFile) &&
                 Objects.equal(this.metadata, that.metadata);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(server, user, password, query, follow, all, pause, resume, purge, unpurge, cancelPurges,
-                timeout, lines, info, format, complete, download, verbose, stats, help, forceLogin, metadata, noCheckCertificate, span);
+        return Objects.hashCode(server, servers, user, password, query, queries, follow, all, pause, resume, purge, unpurge, cancelPurges,
+                timeout, lines, info, format, complete, download, verbose, stats, help, forceLogin, metadata, noCheckCertificate, span, progressive, nodesReport, slices, outputFile);
     }
 
 
@@ -215,19 +271,25 @@ public class UserOptions {
         return pause;
     }
 
+    public boolean isNodesReport() {
+        return nodesReport;
+    }
+
     public boolean isDownload() {
         return download;
     }
 
     public UserOptions realtimeOnly() {
-        return new UserOptions(server, user, password, query, format, follow, info, help, purge, unpurge, cancelPurges, all, pause, resume, timeout, 0, complete, download, verbose, forceLogin, stats, metadata, noCheckCertificate, span);
+        return new UserOptions(server, servers, user, password, query, queries, format, follow, info, help, purge, unpurge, cancelPurges, all, pause, resume, timeout, 0, complete, download, verbose, forceLogin, stats, metadata, noCheckCertificate, span, progressive, nodesReport, slices, outputFile);
     }
 
-    public UserOptions(String server, String user, String password, String query, String format, boolean follow, boolean info, boolean help, boolean purge, boolean unpurge, boolean cancelPurges, boolean all, boolean pause, boolean resume, int timeout, int lines, boolean complete, boolean download, boolean verbose, boolean forceLogin, boolean stats, boolean metadata, boolean noCheckCertificate, String span) {
+    public UserOptions(String server, List<String> servers, String user, String password, String query, List<String> queries, String format, boolean follow, boolean info, boolean help, boolean purge, boolean unpurge, boolean cancelPurges, boolean all, boolean pause, boolean resume, int timeout, int lines, boolean complete, boolean download, boolean verbose, boolean forceLogin, boolean stats, boolean metadata, boolean noCheckCertificate, String span, boolean progressive, boolean nodesReport, int slices, String outputFile) {
         this.server = server;
+        this.servers = servers;
         this.user = user;
         this.password = password;
         this.query = query;
+        this.queries = queries;
         this.format = format;
         this.follow = follow;
         this.info = info;
@@ -248,5 +310,9 @@ public class UserOptions {
         this.metadata = metadata;
         this.noCheckCertificate = noCheckCertificate;
         this.span = span;
+        this.progressive = progressive;
+        this.nodesReport = nodesReport;
+        this.slices = slices;
+        this.outputFile = outputFile;
     }
 }
@@ -0,0 +1,77 @@
+package net.intelie.lognit.cli.codec;
+
+import com.google.common.base.Charsets;
+
+class BlockDecoder {
+    private byte[] buffer;
+    private int pos;
+    private int end;
+
+    public BlockDecoder reset(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.pos = offset;
+        this.end = offset + length;
+        return this;
+    }
+
+    public boolean hasRemaining() {
+        return pos < end;
+    }
+
+    public int readByte() throws CorruptRecordException {
+        if (pos >= end) throw truncated();
+        return buffer[pos++] & 0xFF;
+    }
+
+    public int readVarInt() throws CorruptRecordException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE)
+            throw new CorruptRecordException("length out of range: " + value);
+        return (int) value;
+    }
+
+    public long readVarLong() throws CorruptRecordException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new CorruptRecordException("malformed varint");
+    }
+
+    public long readSignedVarLong() throws CorruptRecordException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() throws CorruptRecordException {
+        if (end - pos < 8) throw truncated();
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+            value = (value << 8) | (buffer[pos++] & 0xFF);
+        return value;
+    }
+
+    public byte[] readBytes(int count) throws CorruptRecordException {
+        if (end - pos < count) throw truncated();
+        byte[] bytes = new byte[count];
+        System.arraycopy(buffer, pos, bytes, 0, count);
+        pos += count;
+        return bytes;
+    }
+
+    public String readString() throws CorruptRecordException {
+        int count = readVarInt();
+        if (count == 0) return null;
+        count--;
+        if (end - pos < count) throw truncated();
+        String value = new String(buffer, pos, count, Charsets.UTF_8);
+        pos += count;
+        return value;
+    }
+
+    private CorruptRecordException truncated() {
+        return new CorruptRecordException("record runs past the end of its block");
+    }
+}
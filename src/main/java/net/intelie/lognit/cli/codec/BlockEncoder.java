@@ -0,0 +1,85 @@
+package net.intelie.lognit.cli.codec;
+
+import com.google.common.base.Charsets;
+
+class BlockEncoder {
+    private byte[] buffer;
+    private int length;
+
+    public BlockEncoder(int capacity) {
+        this.buffer = new byte[Math.max(16, capacity)];
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[length++] = (byte) value;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    public void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8)
+            buffer[length++] = (byte) (value >>> shift);
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int count) {
+        ensure(count);
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        int count = value.length();
+        for (int i = 0; i < count; i++) {
+            if (value.charAt(i) >= 0x80) {
+                byte[] bytes = value.getBytes(Charsets.UTF_8);
+                writeVarInt(bytes.length + 1);
+                writeBytes(bytes, 0, bytes.length);
+                return;
+            }
+        }
+        writeVarInt(count + 1);
+        ensure(count);
+        for (int i = 0; i < count; i++)
+            buffer[length++] = (byte) value.charAt(i);
+    }
+
+    private void ensure(int count) {
+        if (length + count <= buffer.length) return;
+        byte[] grown = new byte[Math.max(buffer.length * 2, length + count)];
+        System.arraycopy(buffer, 0, grown, 0, length);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,9 @@
+package net.intelie.lognit.cli.codec;
+
+import java.io.IOException;
+
+public class CorruptRecordException extends IOException {
+    public CorruptRecordException(String message) {
+        super(message);
+    }
+}
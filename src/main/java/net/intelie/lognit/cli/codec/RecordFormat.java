@@ -0,0 +1,33 @@
+package net.intelie.lognit.cli.codec;
+
+final class RecordFormat {
+    static final byte[] MAGIC = {'L', 'G', 'N', 'B'};
+    static final int VERSION = 1;
+    static final int MAX_BLOCK = 64 * 1024 * 1024;
+
+    static final int MESSAGE = 1;
+    static final int AGGREGATED = 2;
+    static final int BAG = 3;
+
+    static final int REF_NULL = 0;
+    static final int REF_LITERAL = 1;
+    static final int REF_DEFINE = 2;
+    static final int REF_FIRST = 3;
+    static final int MAX_DICTIONARY = 64 * 1024;
+    static final int MAX_DICTIONARY_LENGTH = 64;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int STRING = 3;
+    static final int INT = 4;
+    static final int LONG = 5;
+    static final int DOUBLE = 6;
+    static final int DECIMAL = 7;
+    static final int BIG_DECIMAL = 8;
+    static final int LIST = 9;
+    static final int MAP = 10;
+
+    private RecordFormat() {
+    }
+}
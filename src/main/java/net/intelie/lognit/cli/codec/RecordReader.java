@@ -0,0 +1,260 @@
+package net.intelie.lognit.cli.codec;
+
+import com.google.common.io.ByteStreams;
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.FreqPoint;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.SearchStats;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static net.intelie.lognit.cli.codec.RecordFormat.*;
+
+public class RecordReader implements Closeable {
+    private final InputStream stream;
+    private final BlockEncoder header = new BlockEncoder(16);
+    private final BlockDecoder block = new BlockDecoder();
+    private final List<String> dictionary = new ArrayList<String>();
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[RecordWriter.DEFAULT_BLOCK_SIZE];
+    private int remaining;
+
+    public RecordReader(InputStream stream) throws IOException {
+        this.stream = stream;
+        byte[] magic = new byte[MAGIC.length + 1];
+        ByteStreams.readFully(stream, magic);
+        for (int i = 0; i < MAGIC.length; i++)
+            if (magic[i] != MAGIC[i]) throw new CorruptRecordException("not a lognit record file");
+        if (magic[MAGIC.length] != VERSION)
+            throw new CorruptRecordException("unsupported record file version: " + magic[MAGIC.length]);
+    }
+
+    public Object read() throws IOException {
+        while (remaining == 0)
+            if (!nextBlock()) return null;
+        remaining--;
+
+        int type = block.readByte();
+        if (type == MESSAGE) return readMessage();
+        if (type == AGGREGATED) return readAggregated();
+        if (type == BAG) return readBag();
+        throw new CorruptRecordException("unknown record type: " + type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    private Message readMessage() throws IOException {
+        String id = block.readString();
+        String host = readShared();
+        String date = block.readString();
+        String time = block.readString();
+        String facility = readShared();
+        String severity = readShared();
+        String app = readShared();
+        String message = block.readString();
+        return new Message(id, host, date, time, facility, severity, app, message, readMetadata());
+    }
+
+    private Map<String, List<String>> readMetadata() throws IOException {
+        int size = block.readVarInt();
+        if (size == 0) return null;
+        Map<String, List<String>> metadata = new LinkedHashMap<String, List<String>>();
+        for (int i = 1; i < size; i++) {
+            String key = readShared();
+            int count = block.readVarInt();
+            List<String> values = null;
+            if (count > 0) {
+                values = new ArrayList<String>(count - 1);
+                for (int j = 1; j < count; j++)
+                    values.add(block.readString());
+            }
+            metadata.put(key, values);
+        }
+        return metadata;
+    }
+
+    private MessageBag readBag() throws IOException {
+        int flags = block.readVarInt();
+        String node = readShared();
+        String message = block.readString();
+        Long time = readNullable();
+        Long totalNodes = readNullable();
+        Long totalItems = readNullable();
+
+        List<Message> items = null;
+        int count = block.readVarInt();
+        if (count > 0) {
+            items = new ArrayList<Message>(count - 1);
+            for (int i = 1; i < count; i++)
+                items.add(readMessage());
+        }
+
+        Aggregated aggregated = null;
+        count = block.readVarInt();
+        if (count > 0) {
+            aggregated = new Aggregated();
+            for (int i = 1; i < count; i++)
+                aggregated.add(readAggregated());
+        }
+
+        return new MessageBag(items, readStats(), aggregated, node, time, message, (flags & 1) != 0, (flags & 2) != 0,
+                totalNodes != null ? totalNodes.intValue() : null, totalItems);
+    }
+
+    private SearchStats readStats() throws IOException {
+        int size = block.readVarInt();
+        if (size == 0) return null;
+        List<FreqPoint<Long>> hours = readTimePoints();
+        List<FreqPoint<Long>> last = readTimePoints();
+        Map<String, List<FreqPoint<String>>> fields = new LinkedHashMap<String, List<FreqPoint<String>>>();
+        for (int i = 1; i < size; i++) {
+            String key = readShared();
+            int count = block.readVarInt();
+            List<FreqPoint<String>> points = null;
+            if (count > 0) {
+                points = new ArrayList<FreqPoint<String>>(count - 1);
+                for (int j = 1; j < count; j++)
+                    points.add(new FreqPoint<String>(readShared(), block.readVarLong()));
+            }
+            fields.put(key, points);
+        }
+        return new SearchStats(hours, last, fields);
+    }
+
+    private List<FreqPoint<Long>> readTimePoints() throws IOException {
+        int count = block.readVarInt();
+        if (count == 0) return null;
+        List<FreqPoint<Long>> points = new ArrayList<FreqPoint<Long>>(count - 1);
+        for (int i = 1; i < count; i++)
+            points.add(new FreqPoint<Long>(readNullable(), block.readVarLong()));
+        return points;
+    }
+
+    private Long readNullable() throws IOException {
+        int type = block.readByte();
+        if (type == NULL) return null;
+        if (type == LONG) return block.readSignedVarLong();
+        throw new CorruptRecordException("unknown value type: " + type);
+    }
+
+    private AggregatedItem readAggregated() throws IOException {
+        AggregatedItem item = new AggregatedItem();
+        int size = block.readVarInt();
+        for (int i = 0; i < size; i++)
+            item.put(readShared(), readValue());
+        return item;
+    }
+
+    private Object readValue() throws IOException {
+        int type = block.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case FALSE:
+                return false;
+            case TRUE:
+                return true;
+            case STRING:
+                return block.readString();
+            case INT:
+                return (int) block.readSignedVarLong();
+            case LONG:
+                return block.readSignedVarLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(block.readLong());
+            case DECIMAL:
+                return BigDecimal.valueOf(block.readSignedVarLong(), (int) block.readSignedVarLong());
+            case BIG_DECIMAL:
+                BigInteger unscaled = new BigInteger(block.readBytes(block.readVarInt()));
+                return new BigDecimal(unscaled, (int) block.readSignedVarLong());
+            case LIST:
+                int count = block.readVarInt();
+                List<Object> list = new ArrayList<Object>();
+                for (int i = 0; i < count; i++)
+                    list.add(readValue());
+                return list;
+            case MAP:
+                int size = block.readVarInt();
+                Map<String, Object> map = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < size; i++)
+                    map.put(readShared(), readValue());
+                return map;
+            default:
+                throw new CorruptRecordException("unknown value type: " + type);
+        }
+    }
+
+    private String readShared() throws IOException {
+        int ref = block.readVarInt();
+        if (ref == REF_NULL) return null;
+        if (ref == REF_LITERAL) return block.readString();
+        if (ref == REF_DEFINE) {
+            String value = block.readString();
+            dictionary.add(value);
+            return value;
+        }
+        if (ref - REF_FIRST >= dictionary.size())
+            throw new CorruptRecordException("unknown dictionary entry: " + (ref - REF_FIRST));
+        return dictionary.get(ref - REF_FIRST);
+    }
+
+    private boolean nextBlock() throws IOException {
+        int first = stream.read();
+        if (first < 0) return false;
+
+        header.reset();
+        header.writeByte(first);
+        int count = readHeaderVarInt(first);
+        int length = readHeaderVarInt(readHeaderByte());
+        if (count <= 0 || length < 0 || length > MAX_BLOCK)
+            throw new CorruptRecordException("invalid block header");
+
+        if (buffer.length < length)
+            buffer = new byte[length];
+        ByteStreams.readFully(stream, buffer, 0, length);
+        int expected = (readHeaderByte() << 24) | (readHeaderByte() << 16) | (readHeaderByte() << 8) | readHeaderByte();
+
+        crc.reset();
+        crc.update(header.buffer(), 0, header.length() - 4);
+        crc.update(buffer, 0, length);
+        if ((int) crc.getValue() != expected)
+            throw new CorruptRecordException("block checksum mismatch");
+
+        block.reset(buffer, 0, length);
+        remaining = count;
+        return true;
+    }
+
+    private int readHeaderVarInt(int first) throws IOException {
+        int value = 0;
+        int b = first;
+        for (int shift = 0; shift < 32; shift += 7) {
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            b = readHeaderByte();
+        }
+        throw new CorruptRecordException("invalid block header");
+    }
+
+    private int readHeaderByte() throws IOException {
+        int b = stream.read();
+        if (b < 0) throw new EOFException("truncated record block");
+        header.writeByte(b);
+        return b;
+    }
+}
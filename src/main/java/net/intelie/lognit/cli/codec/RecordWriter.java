@@ -0,0 +1,300 @@
+package net.intelie.lognit.cli.codec;
+
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.FreqPoint;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.SearchStats;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static net.intelie.lognit.cli.codec.RecordFormat.*;
+
+public class RecordWriter implements Closeable, Flushable {
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final OutputStream stream;
+    private final int blockSize;
+    private final BlockEncoder block;
+    private final BlockEncoder header = new BlockEncoder(16);
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    private final CRC32 crc = new CRC32();
+    private int count;
+    private long size;
+
+    public RecordWriter(OutputStream stream) throws IOException {
+        this(stream, DEFAULT_BLOCK_SIZE);
+    }
+
+    public RecordWriter(OutputStream stream, int blockSize) throws IOException {
+        this.stream = stream;
+        this.blockSize = blockSize;
+        this.block = new BlockEncoder(blockSize + blockSize / 4);
+        stream.write(MAGIC);
+        stream.write(VERSION);
+        size = MAGIC.length + 1;
+    }
+
+    public void write(Message message) throws IOException {
+        block.writeByte(MESSAGE);
+        writeMessage(message);
+        written();
+    }
+
+    public void write(AggregatedItem item) throws IOException {
+        checkEncodable(item);
+        block.writeByte(AGGREGATED);
+        writeAggregated(item);
+        written();
+    }
+
+    public void write(MessageBag bag) throws IOException {
+        if (bag.getAggregated() != null)
+            for (AggregatedItem item : bag.getAggregated())
+                checkEncodable(item);
+        block.writeByte(BAG);
+        block.writeVarInt((bag.isSuccess() ? 1 : 0) | (bag.isRealtime() ? 2 : 0));
+        writeShared(bag.getNode());
+        block.writeString(bag.getMessage());
+        writeNullable(bag.getTime());
+        writeNullable(bag.getTotalNodes());
+        writeNullable(bag.getTotalItems());
+
+        List<Message> items = bag.getItems();
+        block.writeVarInt(items != null ? items.size() + 1 : 0);
+        if (items != null)
+            for (Message message : items)
+                writeMessage(message);
+
+        List<AggregatedItem> aggregated = bag.getAggregated();
+        block.writeVarInt(aggregated != null ? aggregated.size() + 1 : 0);
+        if (aggregated != null)
+            for (AggregatedItem item : aggregated)
+                writeAggregated(item);
+
+        writeStats(bag.getStats());
+        written();
+    }
+
+    //bytes taken so far, counting the block still being filled
+    public long getSize() {
+        return size + block.length();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        endBlock();
+        stream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            endBlock();
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void writeMessage(Message message) {
+        block.writeString(message.getId());
+        writeShared(message.getHost());
+        block.writeString(message.getDate());
+        block.writeString(message.getTime());
+        writeShared(message.getFacility());
+        writeShared(message.getSeverity());
+        writeShared(message.getApp());
+        block.writeString(message.getMessage());
+        writeMetadata(message.getMetadata());
+    }
+
+    private void writeAggregated(AggregatedItem item) {
+        block.writeVarInt(item.size());
+        for (Map.Entry<String, Object> entry : item.entrySet()) {
+            writeShared(entry.getKey());
+            writeValue(entry.getValue());
+        }
+    }
+
+    private void writeStats(SearchStats stats) {
+        if (stats == null) {
+            block.writeVarInt(0);
+            return;
+        }
+        Map<String, List<FreqPoint<String>>> fields = stats.fields() != null ? stats.fields() : new HashMap<String, List<FreqPoint<String>>>();
+        block.writeVarInt(fields.size() + 1);
+        writeTimePoints(stats.hours());
+        writeTimePoints(stats.last());
+        for (Map.Entry<String, List<FreqPoint<String>>> entry : fields.entrySet()) {
+            writeShared(entry.getKey());
+            List<FreqPoint<String>> points = entry.getValue();
+            block.writeVarInt(points != null ? points.size() + 1 : 0);
+            if (points == null) continue;
+            for (FreqPoint<String> point : points) {
+                writeShared(point.key());
+                block.writeVarLong(point.freq());
+            }
+        }
+    }
+
+    private void writeTimePoints(List<FreqPoint<Long>> points) {
+        block.writeVarInt(points != null ? points.size() + 1 : 0);
+        if (points == null) return;
+        for (FreqPoint<Long> point : points) {
+            writeNullable(point.key());
+            block.writeVarLong(point.freq());
+        }
+    }
+
+    private void writeNullable(Number value) {
+        if (value == null) {
+            block.writeByte(NULL);
+        } else {
+            block.writeByte(LONG);
+            block.writeSignedVarLong(value.longValue());
+        }
+    }
+
+    private void writeMetadata(Map<String, List<String>> metadata) {
+        if (metadata == null) {
+            block.writeVarInt(0);
+            return;
+        }
+        block.writeVarInt(metadata.size() + 1);
+        for (Map.Entry<String, List<String>> entry : metadata.entrySet()) {
+            writeShared(entry.getKey());
+            List<String> values = entry.getValue();
+            block.writeVarInt(values != null ? values.size() + 1 : 0);
+            if (values == null) continue;
+            for (String value : values)
+                block.writeString(value);
+        }
+    }
+
+    private void writeShared(String value) {
+        if (value == null) {
+            block.writeVarInt(REF_NULL);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            block.writeVarInt(index + REF_FIRST);
+        } else if (dictionary.size() < MAX_DICTIONARY && value.length() <= MAX_DICTIONARY_LENGTH) {
+            dictionary.put(value, dictionary.size());
+            block.writeVarInt(REF_DEFINE);
+            block.writeString(value);
+        } else {
+            block.writeVarInt(REF_LITERAL);
+            block.writeString(value);
+        }
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            block.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            block.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof String) {
+            block.writeByte(STRING);
+            block.writeString((String) value);
+        } else if (value instanceof Integer) {
+            block.writeByte(INT);
+            block.writeSignedVarLong((Integer) value);
+        } else if (value instanceof Long) {
+            block.writeByte(LONG);
+            block.writeSignedVarLong((Long) value);
+        } else if (value instanceof Double) {
+            block.writeByte(DOUBLE);
+            block.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof BigDecimal) {
+            writeDecimal((BigDecimal) value);
+        } else if (value instanceof Number) {
+            writeDecimal(new BigDecimal(value.toString()));
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            block.writeByte(LIST);
+            block.writeVarInt(list.size());
+            for (Object element : list)
+                writeValue(element);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            block.writeByte(MAP);
+            block.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeShared(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue());
+            }
+        }
+    }
+
+    private void checkEncodable(AggregatedItem item) {
+        for (Object value : item.values())
+            checkEncodable(value);
+    }
+
+    private void checkEncodable(Object value) {
+        if (value instanceof List) {
+            for (Object element : (List<?>) value)
+                checkEncodable(element);
+        } else if (value instanceof Map) {
+            for (Object element : ((Map<?, ?>) value).values())
+                checkEncodable(element);
+        } else if (value != null && !(value instanceof Boolean) && !(value instanceof String) && !(value instanceof Number)) {
+            throw new IllegalArgumentException("cannot encode value of " + value.getClass());
+        }
+    }
+
+    private void writeDecimal(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            block.writeByte(DECIMAL);
+            block.writeSignedVarLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            block.writeByte(BIG_DECIMAL);
+            block.writeVarInt(bytes.length);
+            block.writeBytes(bytes, 0, bytes.length);
+        }
+        block.writeSignedVarLong(value.scale());
+    }
+
+    private void written() throws IOException {
+        count++;
+        if (block.length() >= blockSize)
+            endBlock();
+    }
+
+    private void endBlock() throws IOException {
+        if (count == 0) return;
+        header.reset();
+        header.writeVarInt(count);
+        header.writeVarInt(block.length());
+
+        crc.reset();
+        crc.update(header.buffer(), 0, header.length());
+        crc.update(block.buffer(), 0, block.length());
+
+        stream.write(header.buffer(), 0, header.length());
+        stream.write(block.buffer(), 0, block.length());
+        writeInt((int) crc.getValue());
+        size += header.length() + block.length() + 4;
+        block.reset();
+        count = 0;
+    }
+
+    private void writeInt(int value) throws IOException {
+        stream.write(value >>> 24);
+        stream.write(value >>> 16);
+        stream.write(value >>> 8);
+        stream.write(value);
+    }
+}
@@ -0,0 +1,192 @@
+package net.intelie.lognit.cli.formatters;
+
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.SearchStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class AsyncFormatter implements Formatter {
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final int DEFAULT_BATCH = 256;
+    public static final String PRINT_FAILED = "ERROR: printing stopped: %s";
+    private static final Runnable STOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final Formatter delegate;
+    private final UserConsole console;
+    private final BlockingQueue<Runnable> queue;
+    private final int capacity;
+    private final int batch;
+    private final Thread thread;
+    private int maxDepth;
+    private long stalls;
+    private long stalledNanos;
+    private volatile Throwable failure;
+
+    public AsyncFormatter(Formatter delegate, UserConsole console) {
+        this(delegate, console, DEFAULT_CAPACITY, DEFAULT_BATCH);
+    }
+
+    public AsyncFormatter(Formatter delegate, UserConsole console, int capacity, int batch) {
+        this.delegate = delegate;
+        this.console = console;
+        this.capacity = capacity;
+        this.batch = batch;
+        this.queue = new ArrayBlockingQueue<Runnable>(capacity);
+        this.thread = new Thread("lognit-printer") {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void printStatus(final String format, final Object... args) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                delegate.printStatus(format, args);
+            }
+        });
+    }
+
+    @Override
+    public void print(final Message message, final boolean withMetadata) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                delegate.print(message, withMetadata);
+            }
+        });
+    }
+
+    @Override
+    public void print(final Aggregated aggregated) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                delegate.print(aggregated);
+            }
+        });
+    }
+
+    @Override
+    public void print(final SearchStats stats) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                delegate.print(stats);
+            }
+        });
+    }
+
+    //only the counters are guarded, so a producer waiting for room does not hold back the others or close
+    private void enqueue(Runnable task) {
+        if (failure != null && task != STOP) return;
+        if (!thread.isAlive()) {
+            run(task);
+            return;
+        }
+        if (!queue.offer(task)) {
+            long start = System.nanoTime();
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stalled(System.nanoTime() - start);
+        }
+        depth(queue.size());
+    }
+
+    private synchronized void stalled(long nanos) {
+        stalls++;
+        stalledNanos += nanos;
+    }
+
+    private synchronized void depth(int depth) {
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void drain() {
+        List<Runnable> tasks = new ArrayList<Runnable>(batch);
+        boolean stopped = false;
+        try {
+            while (true) {
+                tasks.add(queue.take());
+                queue.drainTo(tasks, batch - 1);
+                for (Runnable task : tasks) {
+                    if (task == STOP) {
+                        stopped = true;
+                        return;
+                    }
+                    run(task);
+                }
+                tasks.clear();
+            }
+        } catch (InterruptedException e) {
+        } finally {
+            //whatever ends this thread, producers must not be left waiting for room it will never make
+            if (!stopped) {
+                if (failure == null) failure = new IllegalStateException("printer thread stopped");
+                queue.clear();
+            }
+        }
+    }
+
+    //after a failure the rest is dropped, but still drained so no producer waits on a full queue
+    private void run(Runnable task) {
+        if (failure != null) return;
+        try {
+            task.run();
+        } catch (Throwable e) {
+            failure = e;
+            console.println(PRINT_FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    public void close() {
+        if (!thread.isAlive()) return;
+        enqueue(STOP);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Formatter getDelegate() {
+        return delegate;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public synchronized long getStalls() {
+        return stalls;
+    }
+
+    public synchronized long getStalledMillis() {
+        return stalledNanos / 1000000;
+    }
+}
@@ -17,6 +17,10 @@ public class FlatJsonFormatter implements Formatter {
         this.console = console;
     }
 
+    public FlatJsonFormatter forConsole(UserConsole console) {
+        return new FlatJsonFormatter(console, json);
+    }
+
     @Override
     public void printStatus(String format, Object... args) {
         console.println(format, args);
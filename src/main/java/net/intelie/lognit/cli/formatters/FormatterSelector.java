@@ -42,4 +42,29 @@ public class FormatterSelector {
 
         throw new IllegalArgumentException("formatter");
     }
+
+    public Formatter select(String formatter, UserConsole console) throws Exception {
+        if (console == this.console)
+            return select(formatter);
+
+        if ("colored".equalsIgnoreCase(formatter))
+            return new ColoredFormatter(console);
+        else if ("plain".equalsIgnoreCase(formatter))
+            return new PlainFormatter(console);
+
+        return select(formatter);
+    }
+
+    //unlike select(formatter, console), json is also printed to the given console
+    public Formatter redirect(String formatter, UserConsole console) throws Exception {
+        if (console == this.console)
+            return select(formatter);
+
+        if ("json".equalsIgnoreCase(formatter))
+            return json.forConsole(console);
+        else if ("flat-json".equalsIgnoreCase(formatter))
+            return flatJson.forConsole(console);
+
+        return select(formatter, console);
+    }
 }
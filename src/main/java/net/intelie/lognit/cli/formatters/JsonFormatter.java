@@ -1,6 +1,7 @@
 package net.intelie.lognit.cli.formatters;
 
 import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.json.JsonBuffer;
 import net.intelie.lognit.cli.json.Jsonizer;
 import net.intelie.lognit.cli.model.Aggregated;
 import net.intelie.lognit.cli.model.Message;
@@ -11,12 +12,17 @@ import java.util.LinkedHashMap;
 public class JsonFormatter implements Formatter {
     private final Jsonizer json;
     private final UserConsole console;
+    private final JsonBuffer buffer = new JsonBuffer();
 
     public JsonFormatter(UserConsole console, Jsonizer json) {
         this.json = json;
         this.console = console;
     }
 
+    public JsonFormatter forConsole(UserConsole console) {
+        return new JsonFormatter(console, json);
+    }
+
     @Override
     public void printStatus(String format, Object... args) {
         console.println(format, args);
@@ -24,19 +30,27 @@ public class JsonFormatter implements Formatter {
 
     @Override
     public void print(Message message, boolean withMetadata) {
-        console.printOut("%s", json.to(message));
+        printOut(message);
     }
 
     @Override
     public void print(Aggregated aggregated) {
         for (LinkedHashMap<String, Object> map : aggregated) {
-            console.printOut("%s", json.to(map));
+            printOut(map);
         }
     }
 
     @Override
     public void print(SearchStats stats) {
-        console.printOut("%s", json.to(stats));
+        printOut(stats);
+    }
+
+    private void printOut(Object value) {
+        synchronized (buffer) {
+            buffer.reset();
+            json.to(value, buffer);
+            console.printOut(buffer.chars(), 0, buffer.length());
+        }
     }
 
 }
@@ -2,17 +2,23 @@ package net.intelie.lognit.cli.http;
 
 import org.cometd.client.BayeuxClient;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class BayeuxHandle implements RestListenerHandle {
     private final AtomicBoolean closed;
     private final BayeuxClient client;
-    private final String channel;
+    private final List<String> channels;
     private volatile boolean valid = true;
 
     public BayeuxHandle(BayeuxClient client, String channel) {
+        this(client, Collections.singletonList(channel));
+    }
+
+    public BayeuxHandle(BayeuxClient client, List<String> channels) {
         this.client = client;
-        this.channel = channel;
+        this.channels = channels;
         this.closed = new AtomicBoolean(false);
     }
 
@@ -30,7 +36,8 @@ public class BayeuxHandle implements RestListenerHandle {
     @Override
     public void close() {
         if (!closed.getAndSet(true)) {
-            this.client.getChannel(channel).unsubscribe();
+            for (String channel : channels)
+                this.client.getChannel(channel).unsubscribe();
             this.client.disconnect();
         }
     }
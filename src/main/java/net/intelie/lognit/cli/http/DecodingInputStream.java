@@ -0,0 +1,93 @@
+package net.intelie.lognit.cli.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+//undoes the content encoding the server chose, counting the bytes on both sides of it
+public class DecodingInputStream extends FilterInputStream {
+    public static final String ACCEPTED = "gzip, deflate";
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Counting received;
+
+    public DecodingInputStream(InputStream stream, String encoding) throws IOException {
+        super(null);
+        this.received = new Counting(stream);
+        this.in = new Counting(decoder(received, encoding));
+    }
+
+    //bytes as they came through the connection
+    public long getReceivedBytes() {
+        return received.count;
+    }
+
+    //bytes after decoding, the same as received when the body was not encoded
+    public long getDecodedBytes() {
+        return ((Counting) in).count;
+    }
+
+    private static InputStream decoder(InputStream stream, String encoding) throws IOException {
+        if (encoding == null || encoding.trim().isEmpty() || encoding.trim().equalsIgnoreCase("identity"))
+            return stream;
+        if (encoding.trim().equalsIgnoreCase("gzip") || encoding.trim().equalsIgnoreCase("x-gzip"))
+            return new GZIPInputStream(stream, BUFFER_SIZE);
+        if (encoding.trim().equalsIgnoreCase("deflate"))
+            return inflater(stream);
+        throw new IOException("unsupported content encoding: " + encoding);
+    }
+
+    //deflate should come wrapped in zlib, but some servers send it raw
+    private static InputStream inflater(InputStream stream) throws IOException {
+        PushbackInputStream peek = new PushbackInputStream(stream, 2);
+        byte[] header = new byte[2];
+        int read = 0;
+        while (read < 2) {
+            int count = peek.read(header, read, 2 - read);
+            if (count < 0) break;
+            read += count;
+        }
+        peek.unread(header, 0, read);
+
+        boolean zlib = read == 2 && (header[0] & 0x0f) == 8 && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+        return new InflaterInputStream(peek, new Inflater(!zlib), BUFFER_SIZE);
+    }
+
+    private static class Counting extends FilterInputStream {
+        private volatile long count;
+
+        public Counting(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
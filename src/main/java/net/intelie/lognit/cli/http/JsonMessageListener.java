@@ -1,22 +1,94 @@
 package net.intelie.lognit.cli.http;
 
-import net.intelie.lognit.cli.json.Jsonizer;
+import com.google.common.base.Throwables;
+import net.intelie.lognit.cli.json.ParallelDecoder;
 import org.cometd.bayeux.Message;
 import org.cometd.bayeux.client.ClientSessionChannel;
 
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
 class JsonMessageListener<T> implements ClientSessionChannel.MessageListener {
+    public static final int MAX_IN_FLIGHT = 16;
+
     private final RestListener<T> listener;
     private final Class<T> type;
-    private final Jsonizer jsonizer;
+    private final ParallelDecoder decoder;
+    private final Semaphore inFlight;
+    private final Queue<FutureTask<T>> pending = new LinkedList<FutureTask<T>>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    private boolean draining;
+
+    public JsonMessageListener(RestListener<T> listener, Class<T> type, ParallelDecoder decoder) {
+        this(listener, type, decoder, MAX_IN_FLIGHT);
+    }
 
-    public JsonMessageListener(RestListener<T> listener, Class<T> type, Jsonizer jsonizer) {
+    public JsonMessageListener(RestListener<T> listener, Class<T> type, ParallelDecoder decoder, int maxInFlight) {
         this.listener = listener;
         this.type = type;
-        this.jsonizer = jsonizer;
+        this.decoder = decoder;
+        this.inFlight = new Semaphore(maxInFlight);
     }
 
     @Override
     public void onMessage(ClientSessionChannel clientSessionChannel, Message message) {
-        listener.receive(jsonizer.from((String) message.getData(), type));
+        //blocks the cometd thread while the decoders are behind, instead of queueing without bound
+        inFlight.acquireUninterruptibly();
+        FutureTask<T> task = new FutureTask<T>(decoder.decoding((String) message.getData(), type)) {
+            @Override
+            protected void done() {
+                deliver();
+            }
+        };
+        synchronized (pending) {
+            pending.add(task);
+        }
+        decoder.execute(task);
+
+        //failures happen on the decoder threads; rethrow them here so cometd reports them as it did when decoding inline
+        Throwable error = failure.getAndSet(null);
+        if (error != null)
+            throw Throwables.propagate(error);
+    }
+
+    //only one thread delivers at a time; the others leave their results for it instead of waiting
+    private void deliver() {
+        synchronized (pending) {
+            if (draining) return;
+            draining = true;
+        }
+        FutureTask<T> head;
+        while ((head = next()) != null) {
+            try {
+                receive(head);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    private FutureTask<T> next() {
+        synchronized (pending) {
+            FutureTask<T> head = pending.peek();
+            if (head != null && head.isDone()) return pending.remove();
+            draining = false;
+            return null;
+        }
+    }
+
+    private void receive(FutureTask<T> task) {
+        try {
+            listener.receive(task.get());
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
     }
 }
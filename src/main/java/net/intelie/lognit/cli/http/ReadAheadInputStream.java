@@ -0,0 +1,145 @@
+package net.intelie.lognit.cli.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//reads the response body on its own thread, so the network keeps flowing while the body is decoded
+public class ReadAheadInputStream extends InputStream {
+    public static final int BLOCK_SIZE = 64 * 1024;
+    public static final int BUFFERED_BLOCKS = 16;
+    private static final byte[] END = new byte[0];
+
+    private final InputStream stream;
+    private final BlockingQueue<Object> queue;
+    private final Thread reader;
+    private byte[] block = new byte[0];
+    private int position;
+    private boolean eof;
+
+    private volatile boolean closed;
+    private volatile long readNanos;
+    private volatile long blockedNanos;
+    private volatile long starvedNanos;
+
+    public ReadAheadInputStream(InputStream stream) {
+        this(stream, BUFFERED_BLOCKS);
+    }
+
+    public ReadAheadInputStream(InputStream stream, int blocks) {
+        this.stream = stream;
+        this.queue = new ArrayBlockingQueue<Object>(Math.max(1, blocks));
+        this.reader = new Thread("lognit-reader") {
+            @Override
+            public void run() {
+                readAll();
+            }
+        };
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    //time the reader spent on the network
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    //time the reader spent waiting for room, as blocks were not consumed fast enough
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    //time the consumer spent waiting for blocks to arrive
+    public long getStarvedNanos() {
+        return starvedNanos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) return -1;
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fill()) return -1;
+        int count = Math.min(len, block.length - position);
+        System.arraycopy(block, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return block.length - position;
+    }
+
+    //the reader closes the body once it stops, without waiting for it here
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+    }
+
+    private boolean fill() throws IOException {
+        while (position == block.length) {
+            if (eof) return false;
+            Object next = take();
+            if (next == END) {
+                eof = true;
+                return false;
+            }
+            if (next instanceof IOException) {
+                eof = true;
+                throw (IOException) next;
+            }
+            block = (byte[]) next;
+            position = 0;
+        }
+        return true;
+    }
+
+    private Object take() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            starvedNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void readAll() {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        try {
+            try {
+                while (!closed) {
+                    long start = System.nanoTime();
+                    int read = stream.read(buffer, 0, buffer.length);
+                    long end = System.nanoTime();
+                    readNanos += end - start;
+                    if (read < 0) break;
+                    if (read == 0) continue;
+
+                    queue.put(Arrays.copyOf(buffer, read));
+                    blockedNanos += System.nanoTime() - end;
+                }
+                queue.put(END);
+            } catch (IOException e) {
+                queue.put(e);
+            } finally {
+                stream.close();
+            }
+        } catch (InterruptedException e) {
+            //closed while waiting for room
+        } catch (IOException e) {
+            //could not close the body, nothing else to do
+        }
+    }
+}
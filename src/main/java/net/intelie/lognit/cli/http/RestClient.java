@@ -1,6 +1,7 @@
 package net.intelie.lognit.cli.http;
 
 import java.io.IOException;
+import java.util.Map;
 
 public interface RestClient {
     RestState getState();
@@ -11,6 +12,8 @@ public interface RestClient {
 
     void setServer(String server);
 
+    RestClient forServer(String server);
+
     void authenticate(String username, String password);
 
     <T> T get(String uri, Class<T> type) throws IOException;
@@ -20,4 +23,6 @@ public interface RestClient {
     <T> T post(String uri, Entity entity, Class<T> type) throws IOException;
     
     <T> RestListenerHandle listen(String uri, Class<T> type, RestListener<T> listener) throws IOException;
+
+    <T> RestListenerHandle listen(Map<String, ? extends RestListener<T>> listeners, Class<T> type) throws IOException;
 }
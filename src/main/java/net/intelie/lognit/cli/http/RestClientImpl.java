@@ -3,9 +3,13 @@ package net.intelie.lognit.cli.http;
 import com.google.common.collect.Iterators;
 import com.google.common.io.ByteStreams;
 import net.intelie.lognit.cli.json.Jsonizer;
+import net.intelie.lognit.cli.json.ParallelDecoder;
 import org.apache.commons.httpclient.Cookie;
+import org.apache.commons.httpclient.Credentials;
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
 import org.apache.commons.httpclient.cookie.CookiePolicy;
@@ -25,6 +29,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
 
 public class RestClientImpl implements RestClient {
     private static final CookieSpec COOKIE_SPEC = new RFC2965Spec();
@@ -32,6 +39,7 @@ public class RestClientImpl implements RestClient {
     private final MethodFactory methods;
     private final BayeuxFactory bayeux;
     private final Jsonizer jsonizer;
+    private final ParallelDecoder decoder;
 
     private String server;
     private boolean authenticated;
@@ -41,10 +49,32 @@ public class RestClientImpl implements RestClient {
         this.methods = methods;
         this.bayeux = bayeux;
         this.jsonizer = jsonizer;
+        this.decoder = new ParallelDecoder(jsonizer);
         this.server = "localhost";
         this.authenticated = false;
     }
 
+    private RestClientImpl(RestClientImpl other, String server) {
+        this.client = new HttpClient();
+        this.methods = other.methods;
+        this.bayeux = other.bayeux;
+        this.jsonizer = other.jsonizer;
+        this.decoder = other.decoder;
+        this.server = server;
+
+        HttpState state = other.client.getState();
+        if (state.getCookies() != null)
+            client.getState().addCookies(state.getCookies());
+
+        //only a copy for the very same host and port takes the password along
+        Credentials credentials = other.authenticated ? state.getCredentials(scopeOf(server)) : null;
+        this.authenticated = credentials != null;
+        if (authenticated) {
+            client.getState().setCredentials(scopeOf(server), credentials);
+            client.getParams().setAuthenticationPreemptive(true);
+        }
+    }
+
     @Override
     public RestState getState() {
         return new RestState(client.getState().getCookies(), server);
@@ -66,13 +96,22 @@ public class RestClientImpl implements RestClient {
         this.server = server;
     }
 
+    @Override
+    public RestClient forServer(String server) {
+        return new RestClientImpl(this, server);
+    }
+
     @Override
     public void authenticate(String username, String password) {
-        client.getState().setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(username, password));
+        client.getState().setCredentials(scopeOf(server), new UsernamePasswordCredentials(username, password));
         client.getParams().setAuthenticationPreemptive(true);
         this.authenticated = true;
     }
 
+    Credentials getCredentials() {
+        return client.getState().getCredentials(scopeOf(server));
+    }
+
     @Override
     public <T> T get(String uri, Class<T> type) throws IOException {
         GetMethod method = methods.get(prependServer(uri));
@@ -99,19 +138,32 @@ public class RestClientImpl implements RestClient {
         InputStream stream = method.getResponseBodyAsStream();
         if (stream == null)
             return new RestStream<T>(Iterators.<T>emptyIterator(), null);
-        return new RestStream<T>(jsonizer.from(stream, type), stream);
+        //decompressing on the reader thread keeps it off the one decoding json
+        DecodingInputStream decoding = decode(method, stream);
+        InputStream body = new ReadAheadInputStream(decoding);
+        return new RestStream<T>(jsonizer.from(body, type), body, decoding);
     }
 
     private <T> T deserializeBody(HttpMethod method, Class<T> type) throws IOException {
         InputStream stream = method.getResponseBodyAsStream();
         if (stream == null)
             return null;
-        String body = new String(ByteStreams.toByteArray(stream));
+        String body = new String(ByteStreams.toByteArray(decode(method, stream)));
         return jsonizer.from(body, type);
     }
 
+    private DecodingInputStream decode(HttpMethod method, InputStream stream) throws IOException {
+        Header encoding = method.getResponseHeader("Content-Encoding");
+        return new DecodingInputStream(stream, encoding != null ? encoding.getValue() : null);
+    }
+
     @Override
     public <T> RestListenerHandle listen(String channel, final Class<T> type, final RestListener<T> listener) throws IOException {
+        return listen(Collections.singletonMap(channel, listener), type);
+    }
+
+    @Override
+    public <T> RestListenerHandle listen(Map<String, ? extends RestListener<T>> listeners, Class<T> type) throws IOException {
         String url = prependServer("cometd");
         BayeuxClient cometd = bayeux.create(url);
         cometd.addExtension(new AckExtension());
@@ -122,7 +174,7 @@ public class RestClientImpl implements RestClient {
 
         cometd.handshake(120000);
 
-        final BayeuxHandle handle = new BayeuxHandle(cometd, channel);
+        final BayeuxHandle handle = new BayeuxHandle(cometd, new ArrayList<String>(listeners.keySet()));
         cometd.getChannel("/meta/connect").addListener(new ClientSessionChannel.MessageListener() {
             @Override
             public void onMessage(ClientSessionChannel channel, Message message) {
@@ -131,9 +183,9 @@ public class RestClientImpl implements RestClient {
             }
         });
 
-        cometd.getChannel(channel).subscribe(new JsonMessageListener<T>(listener, type, jsonizer));
+        for (Map.Entry<String, ? extends RestListener<T>> entry : listeners.entrySet())
+            cometd.getChannel(entry.getKey()).subscribe(new JsonMessageListener<T>(entry.getValue(), type, decoder));
 
-        
         return handle;
     }
 
@@ -152,6 +204,15 @@ public class RestClientImpl implements RestClient {
         return "https".equalsIgnoreCase(uri.getScheme());
     }
 
+    private static String withScheme(String server) {
+        return server.startsWith("http://") || server.startsWith("https://") ? server : "http://" + server;
+    }
+
+    private AuthScope scopeOf(String server) {
+        URI uri = URI.create(withScheme(server));
+        return new AuthScope(uri.getHost(), httpPort(uri));
+    }
+
     private int httpPort(URI uri) {
         int port = uri.getPort();
         if (port == -1)
@@ -161,8 +222,7 @@ public class RestClientImpl implements RestClient {
 
     private String prependServer(String uri) throws MalformedURLException {
         String safeUri = uri.startsWith("/") ? uri : "/" + uri;
-        String safeServer = server.startsWith("http://") || server.startsWith("https://") ? server : "http://" + server;
-        uri = String.format("%s%s", safeServer, safeUri);
+        uri = String.format("%s%s", withScheme(server), safeUri);
 
         return uri;
     }
@@ -171,6 +231,7 @@ public class RestClientImpl implements RestClient {
         method.getParams().setCookiePolicy(CookiePolicy.DEFAULT);
 
         method.setDoAuthentication(authenticated);
+        method.setRequestHeader("Accept-Encoding", DecodingInputStream.ACCEPTED);
 
         int response = client.executeMethod(method);
 
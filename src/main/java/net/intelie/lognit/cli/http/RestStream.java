@@ -7,10 +7,16 @@ import java.util.Iterator;
 public class RestStream<T> implements Iterator<T> {
     private final Iterator<T> iterator;
     private final InputStream stream;
+    private final DecodingInputStream decoding;
 
     public RestStream(Iterator<T> iterator, InputStream stream) {
+        this(iterator, stream, null);
+    }
+
+    public RestStream(Iterator<T> iterator, InputStream stream, DecodingInputStream decoding) {
         this.iterator = iterator;
         this.stream = stream;
+        this.decoding = decoding;
     }
 
     @Override
@@ -28,6 +34,18 @@ public class RestStream<T> implements Iterator<T> {
         iterator.remove();
     }
 
+    public InputStream getBody() {
+        return stream;
+    }
+
+    public long getReceivedBytes() {
+        return decoding != null ? decoding.getReceivedBytes() : 0;
+    }
+
+    public long getDecodedBytes() {
+        return decoding != null ? decoding.getDecodedBytes() : 0;
+    }
+
     public void close() {
         try {
             if (stream != null)
@@ -0,0 +1,54 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import net.intelie.lognit.cli.model.AggregatedItem;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public class AggregatedItemEncoder implements JsonEncoder<AggregatedItem> {
+    private final Gson gson;
+
+    public AggregatedItemEncoder(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public void encode(AggregatedItem item, JsonBuffer out) {
+        map(out, item);
+    }
+
+    private void map(JsonBuffer out, Map<?, ?> map) {
+        out.append('{');
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) continue;
+            out.name(String.valueOf(entry.getKey()));
+            value(out, entry.getValue());
+        }
+        out.append('}');
+    }
+
+    private void value(JsonBuffer out, Object value) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String) {
+            out.string((String) value);
+        } else if (value instanceof BigDecimal || value instanceof Long || value instanceof Integer) {
+            out.append(value.toString());
+        } else if (value instanceof Boolean) {
+            out.append((Boolean) value ? "true" : "false");
+        } else if (value instanceof Map) {
+            map(out, (Map<?, ?>) value);
+        } else if (value instanceof List) {
+            out.append('[');
+            for (Object element : (List<?>) value) {
+                out.separate();
+                value(out, element);
+            }
+            out.append(']');
+        } else {
+            out.append(gson.toJson(value));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.common.base.Charsets;
+import com.google.gson.JsonSyntaxException;
+
+class ByteScanner {
+    private byte[] buffer;
+    private int pos;
+    private int end;
+
+    public ByteScanner reset(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.pos = offset;
+        this.end = offset + length;
+        return this;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    public void skip() {
+        nextByte();
+    }
+
+    public byte peek() {
+        if (pos >= end) throw unexpectedEnd();
+        return buffer[pos];
+    }
+
+    public void expect(char expected) {
+        while (pos < end && isWhitespace(buffer[pos])) pos++;
+        if (nextByte() != expected)
+            throw new JsonSyntaxException("Expected '" + expected + "' at position " + pos);
+    }
+
+    public byte skipSeparators() {
+        while (pos < end && (isWhitespace(buffer[pos]) || buffer[pos] == ',')) pos++;
+        return peek();
+    }
+
+    public void skipValue() {
+        byte first = nextByte();
+        if (first == '{' || first == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                if (pos >= end) throw unexpectedEnd();
+                byte b = buffer[pos++];
+                if (b == '"' || b == '\'') skipString(b);
+                else if (b == '{' || b == '[') depth++;
+                else if (b == '}' || b == ']') depth--;
+            }
+        } else if (first == '"' || first == '\'') {
+            skipString(first);
+        } else {
+            while (pos < end && !isDelimiter(buffer[pos])) pos++;
+        }
+    }
+
+    public boolean isKey(int start, int length, byte[] key) {
+        if (length > 1 && (buffer[start] == '"' || buffer[start] == '\'')) {
+            start++;
+            length -= 2;
+        }
+        if (length != key.length) return false;
+        for (int i = 0; i < length; i++)
+            if (buffer[start + i] != key[i]) return false;
+        return true;
+    }
+
+    public boolean isNull(int start, int length) {
+        return length == 4 && buffer[start] == 'n' && buffer[start + 1] == 'u' && buffer[start + 2] == 'l' && buffer[start + 3] == 'l';
+    }
+
+    public long readLong(long current) {
+        int start = pos;
+        skipValue();
+        if (isNull(start, pos - start)) return current;
+        String value = new String(buffer, start, pos - start, Charsets.UTF_8);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException e2) {
+                throw new JsonSyntaxException("Expected a number but was " + value);
+            }
+        }
+    }
+
+    private void skipString(byte quote) {
+        byte[] buffer = this.buffer;
+        int end = this.end;
+        for (int i = pos; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\\') {
+                i++;
+            } else if (b == quote) {
+                pos = i + 1;
+                return;
+            }
+        }
+        throw unexpectedEnd();
+    }
+
+    private JsonSyntaxException unexpectedEnd() {
+        return new JsonSyntaxException("Unexpected end of document");
+    }
+
+    private byte nextByte() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private boolean isDelimiter(byte b) {
+        return isWhitespace(b) || b == ',' || b == ':' || b == '}' || b == ']';
+    }
+
+    private boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
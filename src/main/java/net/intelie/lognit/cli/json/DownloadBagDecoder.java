@@ -0,0 +1,48 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.DownloadBag;
+import net.intelie.lognit.cli.model.Message;
+
+import java.io.IOException;
+import java.util.List;
+
+import static net.intelie.lognit.cli.json.JsonValues.*;
+
+public class DownloadBagDecoder implements JsonDecoder<DownloadBag> {
+    private final JsonDecoder<Message> messages;
+    private final Gson gson;
+
+    public DownloadBagDecoder(JsonDecoder<Message> messages, Gson gson) {
+        this.messages = messages;
+        this.gson = gson;
+    }
+
+    @Override
+    public DownloadBag decode(JsonReader reader) throws IOException {
+        if (skipNull(reader)) return null;
+
+        List<Message> items = null;
+        Aggregated aggregated = null;
+        long currentHit = 0, totalHits = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("items".equals(name)) items = list(reader, messages);
+            else if ("aggregated".equals(name)) aggregated = gson.fromJson(reader, Aggregated.class);
+            else if ("current_hit".equals(name)) currentHit = primitive(longOrNull(reader), currentHit);
+            else if ("total_hits".equals(name)) totalHits = primitive(longOrNull(reader), totalHits);
+            else reader.skipValue();
+        }
+        reader.endObject();
+
+        return new DownloadBag(items, aggregated, currentHit, totalHits);
+    }
+
+    private long primitive(Long value, long current) {
+        return value != null ? value : current;
+    }
+}
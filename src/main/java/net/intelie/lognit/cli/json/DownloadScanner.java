@@ -0,0 +1,69 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.common.base.Charsets;
+import com.google.gson.JsonSyntaxException;
+import net.intelie.lognit.cli.model.Aggregated;
+
+abstract class DownloadScanner<T> extends JsonStream<T> {
+    private static final byte[] ITEMS = "items".getBytes(Charsets.UTF_8);
+    private static final byte[] AGGREGATED = "aggregated".getBytes(Charsets.UTF_8);
+    private static final byte[] CURRENT_HIT = "current_hit".getBytes(Charsets.UTF_8);
+    private static final byte[] TOTAL_HITS = "total_hits".getBytes(Charsets.UTF_8);
+
+    private final Jsonizer jsonizer;
+    private final ByteScanner scanner = new ByteScanner();
+
+    public DownloadScanner(JsonFramer framer, Jsonizer jsonizer, Class<T> type) {
+        super(framer, jsonizer, type);
+        this.jsonizer = jsonizer;
+    }
+
+    protected abstract void begin(int length);
+
+    protected abstract void item(byte[] buffer, int offset, int length);
+
+    protected abstract T end(boolean items, Aggregated aggregated, long currentHit, long totalHits);
+
+    @Override
+    protected T decode(byte[] buffer, int offset, int length) {
+        scanner.reset(buffer, offset, length);
+        begin(length);
+
+        boolean items = false;
+        Aggregated aggregated = null;
+        long currentHit = 0, totalHits = 0;
+
+        scanner.expect('{');
+        while (scanner.skipSeparators() != '}') {
+            int keyStart = scanner.position();
+            scanner.skipValue();
+            int keyLength = scanner.position() - keyStart;
+            scanner.expect(':');
+            scanner.skipSeparators();
+
+            int start = scanner.position();
+            if (scanner.isKey(keyStart, keyLength, ITEMS) && scanner.peek() == '[') {
+                items = true;
+                scanner.skip();
+                while (scanner.skipSeparators() != ']') {
+                    int itemStart = scanner.position();
+                    scanner.skipValue();
+                    item(buffer, itemStart, scanner.position() - itemStart);
+                }
+                scanner.skip();
+            } else if (scanner.isKey(keyStart, keyLength, CURRENT_HIT)) {
+                currentHit = scanner.readLong(currentHit);
+            } else if (scanner.isKey(keyStart, keyLength, TOTAL_HITS)) {
+                totalHits = scanner.readLong(totalHits);
+            } else if (scanner.isKey(keyStart, keyLength, AGGREGATED)) {
+                scanner.skipValue();
+                aggregated = jsonizer.from(new String(buffer, start, scanner.position() - start, Charsets.UTF_8), Aggregated.class);
+            } else {
+                scanner.skipValue();
+                if (scanner.isKey(keyStart, keyLength, ITEMS) && !scanner.isNull(start, scanner.position() - start))
+                    throw new JsonSyntaxException("Expected an array of items at position " + start);
+            }
+        }
+        return end(items, aggregated, currentHit, totalHits);
+    }
+}
@@ -0,0 +1,196 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+public class FlatJsonWriter extends JsonWriter {
+    public static final String DEFAULT_KEY = "default";
+
+    private static final int FLAT_OBJECT = 0;
+    private static final int FLAT_ARRAY = 1;
+    private static final int RAW = 2;
+    private static final int SKIP = 3;
+
+    private final JsonWriter out;
+    private final Set<String> written = new HashSet<String>();
+    private int[] kinds = new int[16];
+    private String[] keys = new String[16];
+    private int depth = 0;
+    private String name;
+    private boolean started;
+
+    public FlatJsonWriter(Writer writer) {
+        super(writer);
+        this.out = new JsonWriter(writer);
+        this.out.setLenient(true);
+        this.out.setSerializeNulls(false);
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        int kind = kind();
+        if (kind == RAW) {
+            out.beginObject();
+            push(RAW, null);
+        } else if (kind == SKIP) {
+            push(SKIP, null);
+        } else if (kind == FLAT_OBJECT) {
+            push(FLAT_OBJECT, null);
+        } else if (put(key())) {
+            out.beginObject();
+            push(RAW, null);
+        } else {
+            push(SKIP, null);
+        }
+        name = null;
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        int kind = kind();
+        if (kind == RAW) {
+            out.beginArray();
+            push(RAW, null);
+        } else if (kind == SKIP) {
+            push(SKIP, null);
+        } else if (kind == FLAT_OBJECT) {
+            push(FLAT_ARRAY, key());
+        } else if (put(key())) {
+            out.beginArray();
+            push(RAW, null);
+        } else {
+            push(SKIP, null);
+        }
+        name = null;
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        if (pop() == RAW) out.endObject();
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        if (pop() == RAW) out.endArray();
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (kind() == RAW) out.name(name);
+        else this.name = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        if (accept()) out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        if (accept()) out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (accept()) out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        if (accept()) out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) return nullValue();
+        if (accept()) out.value(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        int kind = kind();
+        if (kind == RAW) {
+            out.nullValue();
+        } else if ((kind == FLAT_ARRAY || depth == 0) && put(key())) {
+            out.setSerializeNulls(true);
+            out.nullValue();
+            out.setSerializeNulls(false);
+        }
+        name = null;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        start();
+        out.endObject();
+        out.close();
+    }
+
+    private boolean accept() throws IOException {
+        int kind = kind();
+        boolean accepted = kind == RAW || kind != SKIP && put(key());
+        name = null;
+        return accepted;
+    }
+
+    private boolean put(String key) throws IOException {
+        if (!written.add(key)) return false;
+        start();
+        out.name(key);
+        return true;
+    }
+
+    private void start() throws IOException {
+        if (started) return;
+        started = true;
+        out.beginObject();
+    }
+
+    private String key() {
+        if (depth == 0) return DEFAULT_KEY;
+        return kinds[depth - 1] == FLAT_ARRAY ? keys[depth - 1] : name;
+    }
+
+    private int kind() {
+        return depth == 0 ? FLAT_OBJECT : kinds[depth - 1];
+    }
+
+    private void push(int kind, String key) {
+        if (depth == kinds.length) {
+            int[] grownKinds = new int[depth * 2];
+            String[] grownKeys = new String[depth * 2];
+            System.arraycopy(kinds, 0, grownKinds, 0, depth);
+            System.arraycopy(keys, 0, grownKeys, 0, depth);
+            kinds = grownKinds;
+            keys = grownKeys;
+        }
+        kinds[depth] = kind;
+        keys[depth++] = key;
+    }
+
+    private int pop() {
+        keys[depth - 1] = null;
+        return kinds[--depth];
+    }
+}
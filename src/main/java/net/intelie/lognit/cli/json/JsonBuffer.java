@@ -0,0 +1,119 @@
+package net.intelie.lognit.cli.json;
+
+public class JsonBuffer {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private char[] chars;
+    private int length;
+
+    public JsonBuffer() {
+        this(1024);
+    }
+
+    public JsonBuffer(int capacity) {
+        this.chars = new char[Math.max(16, capacity)];
+    }
+
+    public char[] chars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    public JsonBuffer append(char c) {
+        ensure(1);
+        chars[length++] = c;
+        return this;
+    }
+
+    public JsonBuffer append(String value) {
+        int count = value.length();
+        ensure(count);
+        value.getChars(0, count, chars, length);
+        length += count;
+        return this;
+    }
+
+    public JsonBuffer name(String name) {
+        separate();
+        string(name);
+        return append(':');
+    }
+
+    public JsonBuffer separate() {
+        if (length > 0 && chars[length - 1] != '{' && chars[length - 1] != '[')
+            append(',');
+        return this;
+    }
+
+    //same escaping as gson's html-safe JsonWriter
+    public JsonBuffer string(String value) {
+        int count = value.length();
+        ensure(count + 2);
+        chars[length++] = '"';
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 ? c == '\u2028' || c == '\u2029' : needsEscape(c)) {
+                escape(c);
+            } else {
+                if (length == chars.length) ensure(count - i + 1);
+                chars[length++] = c;
+            }
+        }
+        return append('"');
+    }
+
+    private boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c == '=' || c == '\'';
+    }
+
+    private void escape(char c) {
+        ensure(6);
+        chars[length++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                chars[length++] = c;
+                break;
+            case '\t':
+                chars[length++] = 't';
+                break;
+            case '\b':
+                chars[length++] = 'b';
+                break;
+            case '\n':
+                chars[length++] = 'n';
+                break;
+            case '\r':
+                chars[length++] = 'r';
+                break;
+            case '\f':
+                chars[length++] = 'f';
+                break;
+            default:
+                chars[length++] = 'u';
+                chars[length++] = HEX[(c >> 12) & 0xF];
+                chars[length++] = HEX[(c >> 8) & 0xF];
+                chars[length++] = HEX[(c >> 4) & 0xF];
+                chars[length++] = HEX[c & 0xF];
+        }
+    }
+
+    private void ensure(int count) {
+        if (length + count <= chars.length) return;
+        char[] grown = new char[Math.max(chars.length * 2, length + count)];
+        System.arraycopy(chars, 0, grown, 0, length);
+        chars = grown;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
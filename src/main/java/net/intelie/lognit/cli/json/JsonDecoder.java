@@ -0,0 +1,9 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+public interface JsonDecoder<T> {
+    T decode(JsonReader reader) throws IOException;
+}
@@ -0,0 +1,5 @@
+package net.intelie.lognit.cli.json;
+
+public interface JsonEncoder<T> {
+    void encode(T value, JsonBuffer out);
+}
@@ -0,0 +1,127 @@
+package net.intelie.lognit.cli.json;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class JsonFramer {
+    public static final int DEFAULT_BUFFER = 64 * 1024;
+
+    private final InputStream stream;
+    private byte[] buffer;
+    private int start;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    public JsonFramer(InputStream stream) {
+        this(stream, DEFAULT_BUFFER);
+    }
+
+    public JsonFramer(InputStream stream, int bufferSize) {
+        this.stream = stream;
+        this.buffer = new byte[bufferSize];
+    }
+
+    public boolean next() throws IOException {
+        start = pos;
+        if (!skipWhitespace()) return false;
+
+        start = pos;
+        byte first = buffer[pos++];
+        if (first == '{' || first == '[') scanStructure();
+        else if (first == '"' || first == '\'') scanString(first);
+        else scanLiteral();
+        return true;
+    }
+
+    private void scanStructure() throws IOException {
+        int depth = 1;
+        byte quote = 0;
+        boolean escaped = false;
+        while (depth > 0) {
+            if (pos == limit && !fill()) throw truncated();
+            byte b = buffer[pos++];
+            if (escaped) escaped = false;
+            else if (quote != 0) {
+                if (b == '\\') escaped = true;
+                else if (b == quote) quote = 0;
+            } else if (b == '"' || b == '\'') quote = b;
+            else if (b == '{' || b == '[') depth++;
+            else if (b == '}' || b == ']') depth--;
+        }
+    }
+
+    private void scanString(byte quote) throws IOException {
+        boolean escaped = false;
+        while (true) {
+            if (pos == limit && !fill()) throw truncated();
+            byte b = buffer[pos++];
+            if (escaped) escaped = false;
+            else if (b == '\\') escaped = true;
+            else if (b == quote) return;
+        }
+    }
+
+    private void scanLiteral() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return;
+            byte b = buffer[pos];
+            if (isWhitespace(b) || b == '{' || b == '[' || b == '"' || b == '\'') return;
+            pos++;
+        }
+    }
+
+    private boolean skipWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return false;
+            if (!isWhitespace(buffer[pos])) return true;
+            start = ++pos;
+        }
+    }
+
+    //a document cut by the end of the stream means the connection dropped, not that the server sent bad json
+    private EOFException truncated() {
+        return new EOFException("truncated JSON document");
+    }
+
+    private boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            pos -= start;
+            limit -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+        int read = stream.read(buffer, limit, buffer.length - limit);
+        while (read == 0)
+            read = stream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int offset() {
+        return start;
+    }
+
+    public int length() {
+        return pos - start;
+    }
+}
@@ -0,0 +1,75 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.common.base.Charsets;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class JsonStream<T> implements Iterator<T> {
+    private final JsonFramer framer;
+    private final Jsonizer jsonizer;
+    private final Class<T> type;
+    private final CharsetDecoder decoder = Charsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer chars = CharBuffer.allocate(JsonFramer.DEFAULT_BUFFER);
+    private Boolean pending;
+
+    public JsonStream(JsonFramer framer, Jsonizer jsonizer, Class<T> type) {
+        this.framer = framer;
+        this.jsonizer = jsonizer;
+        this.type = type;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null) {
+            try {
+                pending = framer.next();
+            } catch (IOException e) {
+                throw new JsonIOException(e);
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        pending = null;
+
+        return decode(framer.buffer(), framer.offset(), framer.length());
+    }
+
+    protected T decode(byte[] buffer, int offset, int length) {
+        CharBuffer chars = chars(length);
+        decode(buffer, offset, length, chars);
+        return jsonizer.read(new JsonReader(new CharArrayReader(chars.array(), 0, chars.position())), type);
+    }
+
+    protected CharBuffer chars(int capacity) {
+        if (chars.capacity() < capacity)
+            chars = CharBuffer.allocate(Math.max(capacity, 2 * chars.capacity()));
+        chars.clear();
+        return chars;
+    }
+
+    protected void decode(byte[] buffer, int offset, int length, CharBuffer target) {
+        decoder.reset();
+        decoder.decode(ByteBuffer.wrap(buffer, offset, length), target, true);
+        decoder.flush(target);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,91 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JsonValues {
+    private JsonValues() {
+    }
+
+    public static boolean skipNull(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.NULL) return false;
+        reader.nextNull();
+        return true;
+    }
+
+    public static String string(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN)
+            return Boolean.toString(reader.nextBoolean());
+        return reader.nextString();
+    }
+
+    public static boolean bool(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        if (token == JsonToken.STRING)
+            return Boolean.parseBoolean(reader.nextString());
+        return reader.nextBoolean();
+    }
+
+    public static Long longOrNull(JsonReader reader) throws IOException {
+        if (skipNull(reader)) return null;
+        return reader.nextLong();
+    }
+
+    public static Integer intOrNull(JsonReader reader) throws IOException {
+        if (skipNull(reader)) return null;
+        return reader.nextInt();
+    }
+
+    public static <T> List<T> list(JsonReader reader, JsonDecoder<T> decoder) throws IOException {
+        if (skipNull(reader)) return null;
+        List<T> list = new ArrayList<T>();
+        reader.beginArray();
+        while (reader.hasNext())
+            list.add(decoder.decode(reader));
+        reader.endArray();
+        return list;
+    }
+
+    public static List<String> strings(JsonReader reader) throws IOException {
+        if (skipNull(reader)) return null;
+        List<String> list = new ArrayList<String>();
+        reader.beginArray();
+        while (reader.hasNext())
+            list.add(string(reader));
+        reader.endArray();
+        return list;
+    }
+
+    public static Map<String, List<String>> multimap(JsonReader reader) throws IOException {
+        return multimap(reader, null);
+    }
+
+    public static Map<String, List<String>> multimap(JsonReader reader, StringCache keys) throws IOException {
+        if (skipNull(reader)) return null;
+        Map<String, List<String>> map = new LinkedHashMap<String, List<String>>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = keys != null ? keys.canonical(reader.nextName()) : reader.nextName();
+            if (map.put(key, strings(reader)) != null)
+                throw new JsonSyntaxException("duplicate key: " + key);
+        }
+        reader.endObject();
+        return map;
+    }
+}
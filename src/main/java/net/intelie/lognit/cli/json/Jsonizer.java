@@ -2,6 +2,11 @@ package net.intelie.lognit.cli.json;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.internal.bind.MiniGson;
 import com.google.gson.internal.bind.ObjectTypeAdapter;
 import com.google.gson.internal.bind.TypeAdapter;
@@ -9,56 +14,141 @@ import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.DownloadBag;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.RawDownloadBag;
+import net.intelie.lognit.cli.model.SearchStats;
 
 import java.io.*;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
 public class Jsonizer {
-    private final Gson gson = new Gson();
-    private final GsonFlattener flattener = new GsonFlattener();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LazyMessage.class, new JsonSerializer<LazyMessage>() {
+                @Override
+                public JsonElement serialize(LazyMessage message, Type type, JsonSerializationContext context) {
+                    return context.serialize(message.toMessage(), Message.class);
+                }
+            }).create();
+    private final Map<Class<?>, JsonDecoder<?>> decoders = new HashMap<Class<?>, JsonDecoder<?>>();
+    private final Map<Class<?>, JsonEncoder<?>> encoders = new HashMap<Class<?>, JsonEncoder<?>>();
+    private final StringCache strings = new StringCache(StringCache.DEFAULT_SIZE);
+
+    public Jsonizer() {
+        MessageDecoder messages = new MessageDecoder(strings);
+        register(Message.class, messages);
+        register(MessageBag.class, new MessageBagDecoder(messages, gson));
+        register(DownloadBag.class, new DownloadBagDecoder(messages, gson));
+
+        register(Message.class, new MessageEncoder());
+        register(LazyMessage.class, new MessageEncoder());
+        register(AggregatedItem.class, new AggregatedItemEncoder(gson));
+        register(SearchStats.class, new SearchStatsEncoder());
+    }
+
+    public <T> void register(Class<T> type, JsonDecoder<T> decoder) {
+        decoders.put(type, decoder);
+    }
+
+    public <T> void register(Class<T> type, JsonEncoder<? super T> encoder) {
+        encoders.put(type, encoder);
+    }
+
+    public StringCache getStrings() {
+        return strings;
+    }
 
     public String to(Object object) {
         return gson.toJson(object);
     }
 
+    @SuppressWarnings("unchecked")
+    public void to(Object object, JsonBuffer out) {
+        JsonEncoder<Object> encoder = object != null ? (JsonEncoder<Object>) encoders.get(object.getClass()) : null;
+        if (encoder != null)
+            encoder.encode(object, out);
+        else
+            out.append(to(object));
+    }
+
     public String toFlat(Object object) {
-        return flattener.flatten(gson.toJsonTree(object)).toString();
+        StringWriter out = new StringWriter();
+        try {
+            FlatJsonWriter writer = new FlatJsonWriter(out);
+            gson.toJson(object, object != null ? object.getClass() : Object.class, writer);
+            writer.close();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return out.toString();
     }
 
     public <T> T from(String json, Class<T> type) {
-        T value = gson.fromJson(json, type);
+        JsonDecoder<T> decoder = decoderFor(type);
+        if (decoder == null || json == null)
+            return gson.fromJson(json, type);
+
+        JsonReader reader = new JsonReader(new StringReader(json));
+        T value = read(reader, type, decoder);
+        try {
+            if (value != null && reader.peek() != JsonToken.END_DOCUMENT)
+                throw new JsonIOException("JSON document was not fully consumed.");
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
         return value;
     }
 
-    public <T> Iterator<T> from(final InputStream stream, final Class<T> type) {
-        final JsonReader jsonReader = new JsonReader(new InputStreamReader(stream));
-        jsonReader.setLenient(true);
-
-        return new Iterator<T>() {
-            @Override
-            public boolean hasNext() {
-                try {
-                    return jsonReader.peek() != JsonToken.END_DOCUMENT;
-                } catch (EOFException e) {
-                    return false;
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    return false;
-                }
-            }
-
-            @Override
-            public T next() {
-                return gson.fromJson(jsonReader, type);
-            }
-
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            }
-        };
+    <T> T read(JsonReader reader, Class<T> type) {
+        JsonDecoder<T> decoder = decoderFor(type);
+        if (decoder == null)
+            return gson.fromJson(reader, type);
+        return read(reader, type, decoder);
+    }
+
+    private <T> T read(JsonReader reader, Class<T> type, JsonDecoder<T> decoder) {
+        boolean empty = true;
+        boolean lenient = reader.isLenient();
+        reader.setLenient(true);
+        try {
+            reader.peek();
+            empty = false;
+            return decoder.decode(reader);
+        } catch (EOFException e) {
+            if (empty) return null;
+            throw new JsonSyntaxException(e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        } finally {
+            reader.setLenient(lenient);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> JsonDecoder<T> decoderFor(Class<T> type) {
+        return (JsonDecoder<T>) decoders.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Iterator<T> from(InputStream stream, Class<T> type) {
+        if (type == RawDownloadBag.class)
+            return (Iterator<T>) new RawDownloadStream(new JsonFramer(stream), this);
+        if (type == DownloadBag.class)
+            return (Iterator<T>) new LazyDownloadStream(new JsonFramer(stream), this);
+        return new JsonStream<T>(new JsonFramer(stream), this, type);
     }
 }
@@ -0,0 +1,33 @@
+package net.intelie.lognit.cli.json;
+
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.DownloadBag;
+import net.intelie.lognit.cli.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class LazyDownloadStream extends DownloadScanner<DownloadBag> {
+    private final ByteScanner scanner = new ByteScanner();
+    private List<Message> items;
+
+    public LazyDownloadStream(JsonFramer framer, Jsonizer jsonizer) {
+        super(framer, jsonizer, DownloadBag.class);
+    }
+
+    @Override
+    protected void begin(int length) {
+        items = new ArrayList<Message>();
+    }
+
+    @Override
+    protected void item(byte[] buffer, int offset, int length) {
+        if (scanner.reset(buffer, offset, length).isNull(offset, length)) items.add(null);
+        else items.add(LazyMessage.of(scanner, buffer, offset, length));
+    }
+
+    @Override
+    protected DownloadBag end(boolean hasItems, Aggregated aggregated, long currentHit, long totalHits) {
+        return new DownloadBag(hasItems ? items : null, aggregated, currentHit, totalHits);
+    }
+}
@@ -0,0 +1,181 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.common.base.Charsets;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.Message;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class LazyMessage extends Message {
+    private static final byte[][] FIELDS = {
+            bytes("id"), bytes("host"), bytes("date"), bytes("time"), bytes("facility"),
+            bytes("severity"), bytes("app"), bytes("message"), bytes("metadata")};
+    private static final int ID = 0, HOST = 1, DATE = 2, TIME = 3, FACILITY = 4, SEVERITY = 5, APP = 6, MESSAGE = 7, METADATA = 8;
+
+    private final byte[] data;
+    private final int[] bounds;
+    private final Object[] values = new Object[FIELDS.length];
+    private int decoded;
+
+    private LazyMessage(byte[] data, int[] bounds) {
+        super(null);
+        this.data = data;
+        this.bounds = bounds;
+    }
+
+    static LazyMessage of(ByteScanner scanner, byte[] buffer, int offset, int length) {
+        byte[] data = Arrays.copyOfRange(buffer, offset, offset + length);
+        int[] bounds = new int[2 * FIELDS.length];
+        Arrays.fill(bounds, -1);
+
+        scanner.reset(data, 0, length);
+        scanner.expect('{');
+        while (scanner.skipSeparators() != '}') {
+            int keyStart = scanner.position();
+            scanner.skipValue();
+            int keyLength = scanner.position() - keyStart;
+            scanner.expect(':');
+            scanner.skipSeparators();
+
+            int start = scanner.position();
+            byte first = scanner.peek();
+            scanner.skipValue();
+            int end = scanner.position();
+
+            for (int field = 0; field < FIELDS.length; field++) {
+                if (!scanner.isKey(keyStart, keyLength, FIELDS[field])) continue;
+                boolean structured = first == '{' || first == '[';
+                if (field == METADATA ? first != '{' && !scanner.isNull(start, end - start) : structured)
+                    throw new JsonSyntaxException("Unexpected value for message field at position " + start);
+                bounds[2 * field] = start;
+                bounds[2 * field + 1] = end - start;
+                break;
+            }
+        }
+        return new LazyMessage(data, bounds);
+    }
+
+    public Message toMessage() {
+        return new Message(getId(), getHost(), getDate(), getTime(), getFacility(), getSeverity(), getApp(), getMessage(), getMetadata());
+    }
+
+    @Override
+    public String getId() {
+        return (String) value(ID);
+    }
+
+    @Override
+    public String getHost() {
+        return (String) value(HOST);
+    }
+
+    @Override
+    public String getDate() {
+        return (String) value(DATE);
+    }
+
+    @Override
+    public String getTime() {
+        return (String) value(TIME);
+    }
+
+    @Override
+    public String getFacility() {
+        return (String) value(FACILITY);
+    }
+
+    @Override
+    public String getSeverity() {
+        return (String) value(SEVERITY);
+    }
+
+    @Override
+    public String getApp() {
+        return (String) value(APP);
+    }
+
+    @Override
+    public String getMessage() {
+        return (String) value(MESSAGE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, List<String>> getMetadata() {
+        return (Map<String, List<String>>) value(METADATA);
+    }
+
+    private synchronized Object value(int field) {
+        if ((decoded & (1 << field)) == 0) {
+            values[field] = decode(bounds[2 * field], bounds[2 * field + 1], field == METADATA);
+            decoded |= 1 << field;
+        }
+        return values[field];
+    }
+
+    private Object decode(int start, int length, boolean multimap) {
+        if (start < 0) return null;
+        if (multimap) return multimap(start, length);
+
+        byte first = data[start];
+        if (first != '"' && first != '\'') {
+            if (length == 4 && first == 'n' && data[start + 1] == 'u' && data[start + 2] == 'l' && data[start + 3] == 'l')
+                return null;
+            return new String(data, start, length, Charsets.UTF_8);
+        }
+
+        String raw = new String(data, start + 1, length - 2, Charsets.UTF_8);
+        return raw.indexOf('\\') < 0 ? raw : unescape(raw);
+    }
+
+    private Map<String, List<String>> multimap(int start, int length) {
+        JsonReader reader = new JsonReader(new StringReader(new String(data, start, length, Charsets.UTF_8)));
+        reader.setLenient(true);
+        try {
+            return JsonValues.multimap(reader);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static String unescape(String raw) {
+        StringBuilder builder = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 == raw.length()) {
+                builder.append(c);
+                continue;
+            }
+            c = raw.charAt(++i);
+            switch (c) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= raw.length()) throw new JsonSyntaxException("Unterminated escape sequence");
+                    try {
+                        builder.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw new JsonSyntaxException(e);
+                    }
+                    i += 4;
+                    break;
+                default: builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static byte[] bytes(String name) {
+        return name.getBytes(Charsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.SearchStats;
+
+import java.io.IOException;
+import java.util.List;
+
+import static net.intelie.lognit.cli.json.JsonValues.*;
+
+public class MessageBagDecoder implements JsonDecoder<MessageBag> {
+    private final JsonDecoder<Message> messages;
+    private final Gson gson;
+
+    public MessageBagDecoder(JsonDecoder<Message> messages, Gson gson) {
+        this.messages = messages;
+        this.gson = gson;
+    }
+
+    @Override
+    public MessageBag decode(JsonReader reader) throws IOException {
+        if (skipNull(reader)) return null;
+
+        List<Message> items = null;
+        Aggregated aggregated = null;
+        SearchStats stats = null;
+        String message = null, node = null;
+        boolean success = false, realtime = false;
+        Long totalItems = null, time = null;
+        Integer totalNodes = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("items".equals(name)) items = list(reader, messages);
+            else if ("aggregated".equals(name)) aggregated = gson.fromJson(reader, Aggregated.class);
+            else if ("stats".equals(name)) stats = gson.fromJson(reader, SearchStats.class);
+            else if ("message".equals(name)) message = string(reader);
+            else if ("node".equals(name)) node = string(reader);
+            else if ("success".equals(name)) success = bool(reader);
+            else if ("realtime".equals(name)) realtime = bool(reader);
+            else if ("total_items".equals(name)) totalItems = longOrNull(reader);
+            else if ("total_nodes".equals(name)) totalNodes = intOrNull(reader);
+            else if ("time".equals(name)) time = longOrNull(reader);
+            else reader.skipValue();
+        }
+        reader.endObject();
+
+        return new MessageBag(items, stats, aggregated, node, time, message, success, realtime, totalNodes, totalItems);
+    }
+}
@@ -0,0 +1,48 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.Message;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static net.intelie.lognit.cli.json.JsonValues.*;
+
+public class MessageDecoder implements JsonDecoder<Message> {
+    private final StringCache strings;
+
+    public MessageDecoder() {
+        this(new StringCache(StringCache.DEFAULT_SIZE));
+    }
+
+    public MessageDecoder(StringCache strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public Message decode(JsonReader reader) throws IOException {
+        if (skipNull(reader)) return null;
+
+        String id = null, host = null, date = null, time = null, facility = null, severity = null, app = null, message = null;
+        Map<String, List<String>> metadata = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("id".equals(name)) id = string(reader);
+            else if ("host".equals(name)) host = strings.canonical(string(reader));
+            else if ("date".equals(name)) date = string(reader);
+            else if ("time".equals(name)) time = string(reader);
+            else if ("facility".equals(name)) facility = strings.canonical(string(reader));
+            else if ("severity".equals(name)) severity = strings.canonical(string(reader));
+            else if ("app".equals(name)) app = strings.canonical(string(reader));
+            else if ("message".equals(name)) message = string(reader);
+            else if ("metadata".equals(name)) metadata = multimap(reader, strings);
+            else reader.skipValue();
+        }
+        reader.endObject();
+
+        return new Message(id, host, date, time, facility, severity, app, message, metadata);
+    }
+}
@@ -0,0 +1,43 @@
+package net.intelie.lognit.cli.json;
+
+import net.intelie.lognit.cli.model.Message;
+
+import java.util.List;
+import java.util.Map;
+
+public class MessageEncoder implements JsonEncoder<Message> {
+    @Override
+    public void encode(Message message, JsonBuffer out) {
+        out.append('{');
+        field(out, "id", message.getId());
+        field(out, "host", message.getHost());
+        field(out, "date", message.getDate());
+        field(out, "time", message.getTime());
+        field(out, "facility", message.getFacility());
+        field(out, "severity", message.getSeverity());
+        field(out, "app", message.getApp());
+        field(out, "message", message.getMessage());
+        metadata(out, message.getMetadata());
+        out.append('}');
+    }
+
+    private void field(JsonBuffer out, String name, String value) {
+        if (value != null) out.name(name).string(value);
+    }
+
+    private void metadata(JsonBuffer out, Map<String, List<String>> metadata) {
+        if (metadata == null) return;
+        out.name("metadata").append('{');
+        for (Map.Entry<String, List<String>> entry : metadata.entrySet()) {
+            if (entry.getValue() == null) continue;
+            out.name(String.valueOf(entry.getKey())).append('[');
+            for (String value : entry.getValue()) {
+                out.separate();
+                if (value != null) out.string(value);
+                else out.append("null");
+            }
+            out.append(']');
+        }
+        out.append('}');
+    }
+}
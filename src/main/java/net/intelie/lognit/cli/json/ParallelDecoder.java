@@ -0,0 +1,199 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelDecoder {
+    public static final int MIN_PARALLEL_LENGTH = 256 * 1024;
+    public static final int CHUNK_ITEMS = 1000;
+    public static final int MAX_THREADS = 4;
+
+    private static final byte[] ITEMS = "items".getBytes(Charsets.UTF_8);
+    private static final byte[] OPEN = "[".getBytes(Charsets.UTF_8);
+    private static final byte[] CLOSE = "]".getBytes(Charsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(Charsets.UTF_8);
+
+    private final Jsonizer jsonizer;
+    private final Executor executor;
+    private final int helpers;
+
+    public ParallelDecoder(Jsonizer jsonizer) {
+        this(jsonizer, Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors())));
+    }
+
+    private ParallelDecoder(Jsonizer jsonizer, int threads) {
+        this(jsonizer, Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("lognit-decoder-%d").setDaemon(true).build()), threads - 1);
+    }
+
+    public ParallelDecoder(Jsonizer jsonizer, Executor executor, int helpers) {
+        this.jsonizer = jsonizer;
+        this.executor = executor;
+        this.helpers = helpers;
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public <T> Callable<T> decoding(final String json, final Class<T> type) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return decode(json, type);
+            }
+        };
+    }
+
+    public <T> T decode(String json, Class<T> type) {
+        if (helpers == 0 || type != MessageBag.class || json == null || json.length() < MIN_PARALLEL_LENGTH)
+            return jsonizer.from(json, type);
+
+        MessageBag bag = decodeBag(json.getBytes(Charsets.UTF_8));
+        return bag != null ? type.cast(bag) : jsonizer.from(json, type);
+    }
+
+    private MessageBag decodeBag(byte[] bytes) {
+        List<int[]> chunks = new ArrayList<int[]>();
+        int[] items = findItems(bytes, chunks);
+        if (items == null || chunks.size() < 2) return null;
+
+        MessageBag shell = read(MessageBag.class, new ByteArrayInputStream(bytes, 0, items[0]),
+                new ByteArrayInputStream(NULL), new ByteArrayInputStream(bytes, items[1], bytes.length - items[1]));
+        if (shell == null) return null;
+
+        List<List<Message>> decoded = decodeChunks(bytes, chunks);
+        List<Message> messages = new ArrayList<Message>();
+        for (List<Message> chunk : decoded)
+            messages.addAll(chunk);
+
+        return new MessageBag(messages, shell.getStats(), shell.getAggregated(), shell.getNode(), shell.getTime(),
+                shell.getMessage(), shell.isSuccess(), shell.isRealtime(), shell.getTotalNodes(), shell.getTotalItems());
+    }
+
+    private List<List<Message>> decodeChunks(final byte[] bytes, final List<int[]> chunks) {
+        final List<List<Message>> decoded = new ArrayList<List<Message>>(
+                Collections.<List<Message>>nCopies(chunks.size(), null));
+        final RuntimeException[] errors = new RuntimeException[chunks.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(chunks.size());
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = next.getAndIncrement()) < chunks.size()) {
+                    try {
+                        decoded.set(index, decodeChunk(bytes, chunks.get(index)));
+                    } catch (RuntimeException e) {
+                        errors[index] = e;
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        for (int i = 0; i < Math.min(helpers, chunks.size() - 1); i++)
+            executor.execute(worker);
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JsonSyntaxException(e);
+        }
+
+        for (RuntimeException error : errors)
+            if (error != null) throw error;
+        return decoded;
+    }
+
+    private List<Message> decodeChunk(byte[] bytes, int[] chunk) {
+        JsonReader reader = reader(new ByteArrayInputStream(OPEN),
+                new ByteArrayInputStream(bytes, chunk[0], chunk[1] - chunk[0]), new ByteArrayInputStream(CLOSE));
+        reader.setLenient(true);
+        try {
+            return JsonValues.list(reader, jsonizer.decoderFor(Message.class));
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private int[] findItems(byte[] bytes, List<int[]> chunks) {
+        ByteScanner scanner = new ByteScanner().reset(bytes, 0, bytes.length);
+        try {
+            int[] items = null;
+            scanner.expect('{');
+            while (scanner.skipSeparators() != '}') {
+                int key = scanner.position();
+                scanner.skipValue();
+                int keyLength = scanner.position() - key;
+                scanner.expect(':');
+                scanner.skipSeparators();
+                if (scanner.isKey(key, keyLength, ITEMS) && scanner.peek() == '[') {
+                    items = new int[]{scanner.position(), 0};
+                    chunks.clear();
+                    findChunks(scanner, chunks);
+                    items[1] = scanner.position();
+                } else {
+                    scanner.skipValue();
+                }
+            }
+            scanner.skip();
+            for (int i = scanner.position(); i < bytes.length; i++)
+                if (!Character.isWhitespace(bytes[i])) return null;
+            return items;
+        } catch (JsonSyntaxException e) {
+            return null;
+        }
+    }
+
+    private void findChunks(ByteScanner scanner, List<int[]> chunks) {
+        int[] chunk = null;
+        int count = 0;
+        scanner.skip();
+        while (scanner.skipSeparators() != ']') {
+            if (count++ % CHUNK_ITEMS == 0) {
+                chunk = new int[]{scanner.position(), 0};
+                chunks.add(chunk);
+            }
+            scanner.skipValue();
+            chunk[1] = scanner.position();
+        }
+        scanner.skip();
+    }
+
+    private <T> T read(Class<T> type, InputStream... parts) {
+        return jsonizer.read(reader(parts), type);
+    }
+
+    private static JsonReader reader(InputStream... parts) {
+        return new JsonReader(new InputStreamReader(
+                new SequenceInputStream(Collections.enumeration(Arrays.asList(parts))), Charsets.UTF_8));
+    }
+}
@@ -0,0 +1,39 @@
+package net.intelie.lognit.cli.json;
+
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.RawDownloadBag;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+class RawDownloadStream extends DownloadScanner<RawDownloadBag> {
+    private CharBuffer items;
+    private int[] offsets = new int[64];
+    private int count;
+
+    public RawDownloadStream(JsonFramer framer, Jsonizer jsonizer) {
+        super(framer, jsonizer, RawDownloadBag.class);
+    }
+
+    @Override
+    protected void begin(int length) {
+        items = chars(length);
+        count = 0;
+    }
+
+    @Override
+    protected void item(byte[] buffer, int offset, int length) {
+        if (count > 0) items.put('\n');
+        if (offsets.length < 2 * count + 2)
+            offsets = Arrays.copyOf(offsets, 4 * count + 2);
+        offsets[2 * count] = items.position();
+        decode(buffer, offset, length, items);
+        offsets[2 * count + 1] = items.position();
+        count++;
+    }
+
+    @Override
+    protected RawDownloadBag end(boolean hasItems, Aggregated aggregated, long currentHit, long totalHits) {
+        return new RawDownloadBag(items.array(), items.position(), offsets, count, aggregated, currentHit, totalHits);
+    }
+}
@@ -0,0 +1,44 @@
+package net.intelie.lognit.cli.json;
+
+import net.intelie.lognit.cli.model.FreqPoint;
+import net.intelie.lognit.cli.model.SearchStats;
+
+import java.util.List;
+import java.util.Map;
+
+public class SearchStatsEncoder implements JsonEncoder<SearchStats> {
+    @Override
+    public void encode(SearchStats stats, JsonBuffer out) {
+        out.append('{');
+        if (stats.fields() != null) {
+            out.name("fields").append('{');
+            for (Map.Entry<String, List<FreqPoint<String>>> entry : stats.fields().entrySet()) {
+                if (entry.getValue() == null) continue;
+                out.name(String.valueOf(entry.getKey()));
+                points(out, entry.getValue());
+            }
+            out.append('}');
+        }
+        if (stats.hours() != null) points(out.name("hours"), stats.hours());
+        if (stats.last() != null) points(out.name("last"), stats.last());
+        out.append('}');
+    }
+
+    private void points(JsonBuffer out, List<? extends FreqPoint<?>> points) {
+        out.append('[');
+        for (FreqPoint<?> point : points) {
+            out.separate();
+            if (point == null) {
+                out.append("null");
+                continue;
+            }
+            out.append('{');
+            Object key = point.key();
+            if (key instanceof String) out.name("key").string((String) key);
+            else if (key != null) out.name("key").append(key.toString());
+            out.name("freq").append(Long.toString(point.freq()));
+            out.append('}');
+        }
+        out.append(']');
+    }
+}
@@ -0,0 +1,51 @@
+package net.intelie.lognit.cli.json;
+
+public class StringCache {
+    public static final int DEFAULT_SIZE = 4096;
+    public static final int MAX_LENGTH = 64;
+
+    private final String[] entries;
+    private final int mask;
+    //plain fields on purpose: decoder threads share the cache and must not contend on
+    //the counters, so under parallel decoding the stats are only approximate
+    private long hits;
+    private long misses;
+
+    public StringCache(int size) {
+        int capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        this.entries = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public String canonical(String value) {
+        if (value == null || value.length() > MAX_LENGTH) return value;
+
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String cached = entries[index];
+        if (value.equals(cached)) {
+            hits++;
+            return cached;
+        }
+        entries[index] = value;
+        misses++;
+        return value;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long hits = getHits(), total = hits + getMisses();
+        return total == 0 ? 0 : hits * 100.0 / total;
+    }
+}
@@ -1,20 +1,38 @@
 package net.intelie.lognit.cli.model;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
+import java.math.BigInteger;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.LinkedHashMap;
-import java.util.Locale;
 
 public class AggregatedItem extends LinkedHashMap<String, Object> {
-    public static final DecimalFormatSymbols SYMBOLS = new DecimalFormatSymbols(Locale.ENGLISH);
+    public static final int DECIMALS = 6;
+    private static final double EXACT_LONGS = 1L << 53;
 
     @Override
     public Object put(String s, Object o) {
         if (o instanceof Double)
-            o = new BigDecimal(new DecimalFormat("#.######", SYMBOLS).format(o));
+            o = normalize((Double) o);
         return super.put(s, o);
     }
+
+    //same value new BigDecimal(new DecimalFormat("#.######").format(value)) gives, without the formatter
+    static BigDecimal normalize(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < EXACT_LONGS)
+            return BigDecimal.valueOf((long) value);
+
+        BigDecimal decimal = BigDecimal.valueOf(value);
+        if (decimal.scale() > DECIMALS)
+            decimal = isTie(decimal)
+                    ? new BigDecimal(value).setScale(DECIMALS, RoundingMode.HALF_EVEN)
+                    : decimal.setScale(DECIMALS, RoundingMode.HALF_EVEN);
+
+        if (decimal.signum() == 0) return BigDecimal.ZERO;
+        decimal = decimal.stripTrailingZeros();
+        return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+    }
+
+    private static boolean isTie(BigDecimal decimal) {
+        return decimal.scale() == DECIMALS + 1 && decimal.unscaledValue().abs().mod(BigInteger.TEN).intValue() == 5;
+    }
 }
@@ -6,6 +6,9 @@ import net.intelie.lognit.cli.http.*;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Lognit {
     public static final String URL_WELCOME = "/rest/me/welcome";
@@ -34,20 +37,39 @@ public class Lognit {
         return client.getServer();
     }
 
+    public Lognit forServer(String server) {
+        return new Lognit(client.forServer(server));
+    }
+
     public void authenticate(String username, String password) {
         client.authenticate(username, password);
     }
 
     public RestListenerHandle search(String query, int windowLength, boolean realtime, boolean stats, String span, RestListener<MessageBag> listener) throws IOException {
+        return client.listen(channel(query, windowLength, realtime, stats, span), MessageBag.class, listener);
+    }
+
+    public RestListenerHandle search(List<String> queries, int windowLength, boolean realtime, boolean stats, String span, List<? extends RestListener<MessageBag>> listeners) throws IOException {
+        Map<String, RestListener<MessageBag>> channels = new LinkedHashMap<String, RestListener<MessageBag>>();
+        for (int i = 0; i < queries.size(); i++)
+            channels.put(channel(queries.get(i), windowLength, realtime, stats, span), listeners.get(i));
+        return client.listen(channels, MessageBag.class);
+    }
+
+    private String channel(String query, int windowLength, boolean realtime, boolean stats, String span) throws IOException {
         SearchChannel channel = client.get(make(URL_SEARCH, query, windowLength, realtime, stats, span), SearchChannel.class);
         if (channel.getInfo() != null && !channel.getInfo().valid())
             throw new IllegalArgumentException(channel.getInfo().message());
-        return client.listen(channel.getChannel(), MessageBag.class, listener);
+        return channel.getChannel();
     }
 
     public RestStream<DownloadBag> download(String query, int windowLength, String span) throws IOException {
         return client.getStream(make(URL_DOWNLOAD, query, windowLength, span), DownloadBag.class);
     }
+
+    public RestStream<RawDownloadBag> downloadRaw(String query, int windowLength, String span) throws IOException {
+        return client.getStream(make(URL_DOWNLOAD, query, windowLength, span), RawDownloadBag.class);
+    }
     
     public Purge purge(String query, int windowLength, boolean all) throws IOException {
         Entity entity = new Entity()
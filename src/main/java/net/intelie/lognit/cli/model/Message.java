@@ -37,6 +37,7 @@ public class Message implements Comparable<Message> {
     }
 
     public String formattedDateTime() {
+        String date = getDate(), time = getTime();
         if (date == null || time == null || date.length() != 8 || time.length() != 6) return date + time;
         return String.format("%s-%s-%s %s:%s:%s",
                 date.substring(0, 4), date.substring(4, 6), date.substring(6, 8),
@@ -73,7 +74,7 @@ public class Message implements Comparable<Message> {
 
     @Override
     public int compareTo(Message that) {
-        return COMPARATOR.compare(this.id, that.id);
+        return COMPARATOR.compare(this.getId(), that.getId());
     }
 
     @Override
@@ -83,12 +84,12 @@ public class Message implements Comparable<Message> {
 
         Message that = (Message) o;
 
-        return Objects.equal(this.id, that.id);
+        return Objects.equal(this.getId(), that.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(id);
+        return Objects.hashCode(getId());
     }
 
     public String getSeverity() {
@@ -0,0 +1,59 @@
+package net.intelie.lognit.cli.model;
+
+public class RawDownloadBag {
+    private final char[] items;
+    private final int length;
+    private final int[] offsets;
+    private final int count;
+    private final Aggregated aggregated;
+    private final long total_hits;
+    private final long current_hit;
+
+    public RawDownloadBag(char[] items, int length, int[] offsets, int count, Aggregated aggregated, long current_hit, long total_hits) {
+        this.items = items;
+        this.length = length;
+        this.offsets = offsets;
+        this.count = count;
+        this.aggregated = aggregated;
+        this.total_hits = total_hits;
+        this.current_hit = current_hit;
+    }
+
+    //items as received, one per line; the buffer is reused by the next bag
+    public char[] getItems() {
+        return items;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    //start and end of each item in the buffer, two entries per item; reused by the next bag as well
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int getStart(int index) {
+        return offsets[2 * index];
+    }
+
+    public int getEnd(int index) {
+        return offsets[2 * index + 1];
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Aggregated getAggregated() {
+        return aggregated;
+    }
+
+    public long getTotalHits() {
+        return total_hits;
+    }
+
+    public long getCurrentHit() {
+        return current_hit;
+    }
+}
@@ -0,0 +1,85 @@
+package net.intelie.lognit.cli.model;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+
+import java.util.*;
+
+public class StatsAccumulator {
+    public static final int HOURS = 24;
+    public static final int LAST = 20;
+    public static final int TOP_FIELDS = 10;
+
+    private final long[] hourKeys = new long[HOURS];
+    private final long[] hourFreqs = new long[HOURS];
+    private final long[] lastKeys = new long[LAST];
+    private final long[] lastFreqs = new long[LAST];
+    private final Map<String, Map<String, long[]>> fields = new HashMap<String, Map<String, long[]>>();
+    private int hourCount;
+    private int lastCount;
+
+    public void add(SearchStats stats) {
+        if (stats == null) return;
+        hourCount = addPoints(hourKeys, hourFreqs, hourCount, stats.hours());
+        lastCount = addPoints(lastKeys, lastFreqs, lastCount, stats.last());
+
+        for (Map.Entry<String, List<FreqPoint<String>>> entry : stats.fields().entrySet()) {
+            Map<String, long[]> counts = fields.get(entry.getKey());
+            if (counts == null)
+                fields.put(entry.getKey(), counts = new LinkedHashMap<String, long[]>());
+            if (entry.getValue() == null) continue;
+
+            for (FreqPoint<String> point : entry.getValue()) {
+                long[] count = counts.get(point.key());
+                if (count == null)
+                    counts.put(point.key(), count = new long[1]);
+                count[0] += point.freq();
+            }
+        }
+    }
+
+    private int addPoints(long[] keys, long[] freqs, int count, List<FreqPoint<Long>> points) {
+        if (points == null) return count;
+        for (FreqPoint<Long> point : points) {
+            if (point.key() == null) continue;
+            long key = point.key();
+            int i = 0;
+            while (i < count && keys[i] != key) i++;
+            if (i == count) {
+                if (count == keys.length) continue;
+                keys[count++] = key;
+            }
+            freqs[i] += point.freq();
+        }
+        return count;
+    }
+
+    public SearchStats toStats() {
+        Map<String, List<FreqPoint<String>>> top = new HashMap<String, List<FreqPoint<String>>>();
+        for (Map.Entry<String, Map<String, long[]>> entry : fields.entrySet())
+            top.put(entry.getKey(), topOf(entry.getValue()));
+
+        return new SearchStats(points(hourKeys, hourFreqs, hourCount), points(lastKeys, lastFreqs, lastCount), top);
+    }
+
+    private List<FreqPoint<Long>> points(long[] keys, long[] freqs, int count) {
+        List<FreqPoint<Long>> list = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++)
+            list.add(new FreqPoint<Long>(keys[i], freqs[i]));
+        return list;
+    }
+
+    private List<FreqPoint<String>> topOf(Map<String, long[]> counts) {
+        List<FreqPoint<String>> list = Lists.newArrayListWithCapacity(counts.size());
+        for (Map.Entry<String, long[]> entry : counts.entrySet())
+            list.add(new FreqPoint<String>(entry.getKey(), entry.getValue()[0]));
+
+        Collections.sort(list, new Comparator<FreqPoint<String>>() {
+            @Override
+            public int compare(FreqPoint<String> a, FreqPoint<String> b) {
+                return Longs.compare(b.freq(), a.freq());
+            }
+        });
+        return Lists.newArrayList(list.subList(0, Math.min(TOP_FIELDS, list.size())));
+    }
+}
@@ -2,66 +2,116 @@ package net.intelie.lognit.cli.runners;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import net.intelie.lognit.cli.formatters.AsyncFormatter;
 import net.intelie.lognit.cli.formatters.Formatter;
 import net.intelie.lognit.cli.http.RestListener;
 import net.intelie.lognit.cli.model.Aggregated;
 import net.intelie.lognit.cli.model.Message;
 import net.intelie.lognit.cli.model.MessageBag;
 import net.intelie.lognit.cli.model.SearchStats;
+import net.intelie.lognit.cli.model.StatsAccumulator;
+import net.intelie.lognit.cli.state.Clock;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 public class BufferListener implements RestListener<MessageBag> {
     public static final String NO_CLUSTER_INFO = "(%s) WARN: seems there is a bug in server response, no cluster info";
     public static final String MISSING_NODES_RESPONSE = "WARN: missing some cluster responses, check nodes status";
+    public static final String MISSING_CLUSTER_RESPONSE = "(%s) WARN: missing some cluster responses, check nodes status";
     public static final String QUERY_CANCELLED = "(%s) WARN: %s";
     public static final String QUERY_INFO = "(%s) INFO: %s";
     public static final String RESPONSE_RECEIVED = "(%s) response %d/%d: %,d of %,d historic results in %dms";
+    public static final String REALTIME_SPILLED = "WARN: %,d realtime responses spilled to disk, %,d dropped";
 
     private final Semaphore errors;
     private final Deque<MessageBag> historic;
-    private final Deque<MessageBag> other;
-    private final Semaphore semaphore;
+    private final RealtimeBuffer other;
+    private final Source main;
+    private final List<Source> sources;
     private final Formatter printer;
+    private final HistoryMerger merger;
     private final boolean printStats;
     private final boolean printMeta;
+    private final boolean progressive;
+    private final HistoryWindow window;
+    private final RecentIds recent;
+    private final StatsAccumulator stats;
+    private final Map<String, Long> latencies;
     private boolean releasing;
-    private int historicCount = 0;
+    private boolean sized;
 
     public BufferListener(Formatter printer, boolean printStats, boolean printMeta) {
+        this(printer, printStats, printMeta, false);
+    }
+
+    public BufferListener(Formatter printer, boolean printStats, boolean printMeta, boolean progressive) {
+        this(printer, printStats, printMeta, progressive, new RealtimeBuffer());
+    }
+
+    public BufferListener(Formatter printer, boolean printStats, boolean printMeta, boolean progressive, RealtimeBuffer other) {
         this.errors = new Semaphore(0);
         this.printer = printer;
         this.printStats = printStats;
         this.printMeta = printMeta;
+        this.progressive = progressive;
+        this.merger = new HistoryMerger();
+        this.window = new HistoryWindow(merger, Integer.MAX_VALUE);
+        this.stats = new StatsAccumulator();
+        this.recent = new RecentIds();
+        this.latencies = new LinkedHashMap<String, Long>();
         this.historic = new LinkedList<MessageBag>();
-        this.other = new LinkedList<MessageBag>();
-        this.semaphore = new Semaphore(0);
+        this.other = other;
+        this.main = new Source(null);
+        this.sources = new ArrayList<Source>();
         this.releasing = false;
     }
 
+    public synchronized RestListener<MessageBag> newSource(String name) {
+        Source source = new Source(name);
+        sources.add(source);
+        return source;
+    }
+
+    private synchronized List<Source> sources() {
+        return sources.isEmpty() ? Collections.singletonList(main) : new ArrayList<Source>(sources);
+    }
 
     @Override
-    public synchronized void receive(MessageBag messages) {
+    public void receive(MessageBag messages) {
+        receive(main, messages);
+    }
+
+    private synchronized void receive(Source source, MessageBag messages) {
         if (messages.isSuccess() && messages.isHistoric()) {
             printer.printStatus(RESPONSE_RECEIVED, messages.getNode(),
-                    ++historicCount,
+                    ++source.responses,
                     messages.getTotalNodes(),
                     messages.getItems().size(),
                     messages.getTotalItems(),
                     messages.getTime());
+            if (messages.getNode() != null && messages.getTime() != null)
+                latencies.put(messages.getNode(), messages.getTime());
             if (!Strings.isNullOrEmpty(messages.getMessage()))
                 printer.printStatus(QUERY_INFO, messages.getNode(), messages.getMessage());
         }
         if (releasing || !messages.isSuccess()) {
             printBag(messages);
         } else if (messages.isHistoric()) {
-            historic.add(messages);
-            semaphore.release();
+            //only the batch path merges whole answers at the end, the others keep just what they folded
+            if (printStats) stats.add(messages.getStats());
+            else if (progressive) window.add(messages.getItems());
+            else historic.add(messages);
+            source.answer(messages);
+            if (progressive && !printStats && sized && allAnswered())
+                releaseFolded();
         } else {
             other.add(messages);
         }
@@ -70,68 +120,89 @@ public class BufferListener implements RestListener<MessageBag> {
     }
 
     public boolean waitHistoric(int timeout, int releaseMax) {
-        boolean success = true;
-        try {
-            if (!waitForAnswer(1, timeout)) {
-                printer.printStatus(MISSING_NODES_RESPONSE);
-                return false;
-            }
-            MessageBag first = historic.getFirst();
-            int waiting = first.getTotalNodes() - 1;
-            if (waiting < 0) {
-                printer.printStatus(NO_CLUSTER_INFO, first.getNode());
-                success = false;
-            } else if (!waitForAnswer(waiting, timeout)) {
-                printer.printStatus(MISSING_NODES_RESPONSE);
-                success = false;
-            }
-        } catch (InterruptedException ex) {
-            printer.printStatus(MISSING_NODES_RESPONSE);
+        Clock clock = new Clock();
+        return waitHistoric(clock, clock.currentMillis() + timeout, releaseMax);
+    }
+
+    //every source shares the one deadline, so a slow cluster cannot stretch the wait for the others
+    public boolean waitHistoric(Clock clock, long deadline, int releaseMax) {
+        if (progressive) resizeWindow(releaseMax);
+        boolean success = true, answered = false;
+        for (Source source : sources()) {
+            success &= source.await(clock, deadline);
+            answered |= source.hasAnswered();
         }
+        if (!answered) return false;
+
         releaseHistoric(releaseMax);
         return success;
     }
 
-    private boolean waitForAnswer(int howMany, int timeout) throws InterruptedException {
-        return semaphore.tryAcquire(howMany, timeout, TimeUnit.MILLISECONDS);
-    }
-
     public void waitForError(int n) {
         errors.acquireUninterruptibly(n);
     }
 
+    private synchronized void resizeWindow(int releaseMax) {
+        window.resize(releaseMax);
+        sized = true;
+    }
+
+    //a pending node may still send -n messages older or newer than any folded one, so the window is final only when none is left
+    private boolean allAnswered() {
+        for (Source source : sources())
+            if (!source.hasAnsweredAll()) return false;
+        return true;
+    }
+
+    synchronized int retained() {
+        int count = window.size();
+        for (MessageBag bag : historic)
+            count += bag.getItems() != null ? bag.getItems().size() : 0;
+        return count;
+    }
+
     private void releaseHistoric(int releaseMax) {
         if (printStats) {
-            SearchStats merged = new SearchStats();
-            for (MessageBag bag : historic)
-                merged.merge(bag.getStats());
-            printer.print(merged);
+            printer.print(partialStats());
+        } else if (progressive) {
+            releaseFolded();
         } else {
             List<Message> reverse = pickValidHistory(releaseMax);
 
             for (Message message : reverse)
-                printer.print(message, printMeta);
+                printMessage(message);
         }
     }
 
+    private synchronized void releaseFolded() {
+        historic.clear();
+        for (Message message : window.release())
+            printMessage(message);
+    }
+
+    public synchronized Map<String, Long> getLatencies() {
+        return new LinkedHashMap<String, Long>(latencies);
+    }
+
+    public synchronized SearchStats partialStats() {
+        return stats.toStats();
+    }
+
     private List<Message> pickValidHistory(int releaseMax) {
-        PriorityQueue<Message> queue = new PriorityQueue<Message>();
+        List<List<Message>> sources = new ArrayList<List<Message>>(historic.size());
         while (!historic.isEmpty())
-            queue.addAll(historic.pop().getItems());
+            sources.add(historic.pop().getItems());
 
-        LinkedList<Message> list = new LinkedList<Message>();
-        while (!queue.isEmpty() && list.size() < releaseMax)
-            list.addFirst(queue.poll());
-
-        return list;
+        return merger.merge(sources, releaseMax);
     }
 
     public synchronized void releaseAll() {
+        boolean first = !releasing;
         releasing = true;
-        while (!other.isEmpty()) {
-            MessageBag bag = other.pop();
+        for (MessageBag bag = other.poll(); bag != null; bag = other.poll())
             printBag(bag);
-        }
+        if (first && (other.getSpilled() > 0 || other.getDropped() > 0))
+            printer.printStatus(REALTIME_SPILLED, other.getSpilled(), other.getDropped());
     }
 
     private void printBag(MessageBag bag) {
@@ -153,10 +224,79 @@ public class BufferListener implements RestListener<MessageBag> {
     private void printMessages(boolean historic, List<Message> list) {
         if (historic) list = Lists.reverse(list);
         for (Message message : list)
+            printMessage(message);
+    }
+
+    private void printMessage(Message message) {
+        if (recent.add(message.getId()))
             printer.print(message, printMeta);
     }
 
+    public void close() {
+        if (printer instanceof AsyncFormatter)
+            ((AsyncFormatter) printer).close();
+    }
+
     public Formatter getFormatter() {
         return printer;
     }
+
+    private class Source implements RestListener<MessageBag> {
+        private final String name;
+        private final Semaphore semaphore;
+        private volatile MessageBag first;
+        private int responses;
+
+        private Source(String name) {
+            this.name = name;
+            this.semaphore = new Semaphore(0);
+        }
+
+        @Override
+        public void receive(MessageBag messages) {
+            BufferListener.this.receive(this, messages);
+        }
+
+        private void answer(MessageBag messages) {
+            if (first == null) first = messages;
+            semaphore.release();
+        }
+
+        private boolean hasAnswered() {
+            return first != null;
+        }
+
+        private boolean hasAnsweredAll() {
+            return first != null && first.getTotalNodes() != null && responses >= first.getTotalNodes();
+        }
+
+        private boolean await(Clock clock, long deadline) {
+            try {
+                if (!waitForAnswer(1, remaining(clock, deadline)))
+                    return missing();
+                int waiting = first.getTotalNodes() - 1;
+                if (waiting < 0) {
+                    printer.printStatus(NO_CLUSTER_INFO, first.getNode());
+                    return false;
+                }
+                return waitForAnswer(waiting, remaining(clock, deadline)) || missing();
+            } catch (InterruptedException ex) {
+                return missing();
+            }
+        }
+
+        private long remaining(Clock clock, long deadline) {
+            return Math.max(0, deadline - clock.currentMillis());
+        }
+
+        private boolean waitForAnswer(int howMany, long timeout) throws InterruptedException {
+            return semaphore.tryAcquire(howMany, timeout, TimeUnit.MILLISECONDS);
+        }
+
+        private boolean missing() {
+            if (name == null) printer.printStatus(MISSING_NODES_RESPONSE);
+            else printer.printStatus(MISSING_CLUSTER_RESPONSE, name);
+            return false;
+        }
+    }
 }
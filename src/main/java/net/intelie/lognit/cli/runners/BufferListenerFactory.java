@@ -1,15 +1,40 @@
 package net.intelie.lognit.cli.runners;
 
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.formatters.AsyncFormatter;
+import net.intelie.lognit.cli.formatters.Formatter;
 import net.intelie.lognit.cli.formatters.FormatterSelector;
+import net.intelie.lognit.cli.json.Jsonizer;
+import net.intelie.lognit.cli.json.StringCache;
 
 public class BufferListenerFactory {
+    private final UserConsole console;
     private final FormatterSelector selector;
+    private final Jsonizer jsonizer;
 
-    public BufferListenerFactory(FormatterSelector selector) {
+    public BufferListenerFactory(UserConsole console, FormatterSelector selector, Jsonizer jsonizer) {
+        this.console = console;
         this.selector = selector;
+        this.jsonizer = jsonizer;
+    }
+
+    public StringCache getStrings() {
+        return jsonizer.getStrings();
     }
 
     public BufferListener create(String format, boolean printStats, boolean printMeta) throws Exception {
-        return new BufferListener(selector.select(format), printStats, printMeta);
+        return create(format, printStats, printMeta, false);
+    }
+
+    public BufferListener create(String format, boolean printStats, boolean printMeta, boolean progressive) throws Exception {
+        return create(selector.select(format), printStats, printMeta, progressive);
+    }
+
+    public BufferListener create(String format, UserConsole console, boolean printStats, boolean printMeta, boolean progressive) throws Exception {
+        return create(selector.select(format, console), printStats, printMeta, progressive);
+    }
+
+    private BufferListener create(Formatter formatter, boolean printStats, boolean printMeta, boolean progressive) {
+        return new BufferListener(new AsyncFormatter(formatter, console), printStats, printMeta, progressive, new RealtimeBuffer());
     }
 }
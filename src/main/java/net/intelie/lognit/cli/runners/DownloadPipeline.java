@@ -0,0 +1,190 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.gson.JsonIOException;
+import net.intelie.lognit.cli.http.ReadAheadInputStream;
+import net.intelie.lognit.cli.http.RestStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//decodes bags on its own thread while the caller prints the ones before; the body is read by yet another thread
+public class DownloadPipeline<T> implements DownloadStream<T> {
+    public static final int BUFFERED_BAGS = 8;
+    private static final Object END = new Object();
+
+    public static class Stage {
+        private final String name;
+        private final long busyNanos;
+        private final long idleNanos;
+
+        public Stage(String name, long busyNanos, long idleNanos) {
+            this.name = name;
+            this.busyNanos = Math.max(0, busyNanos);
+            this.idleNanos = Math.max(0, idleNanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBusyMillis() {
+            return busyNanos / 1000000;
+        }
+
+        public long getIdleMillis() {
+            return idleNanos / 1000000;
+        }
+
+        public double getBusyPercent() {
+            return busyNanos + idleNanos > 0 ? busyNanos * 100.0 / (busyNanos + idleNanos) : 0;
+        }
+    }
+
+    private final RestStream<T> source;
+    private final SlicedDownload.Source<T> bags;
+    private final BlockingQueue<Object> queue;
+    private final List<Object> batch = new ArrayList<Object>();
+    private Thread decoder;
+    private int index;
+    private boolean done;
+    private T next;
+
+    private long started;
+    private long finished;
+    private long waitedNanos;
+    private volatile long decodeNanos;
+    private volatile long blockedNanos;
+
+    public DownloadPipeline(RestStream<T> source, SlicedDownload.Source<T> bags, int buffered) {
+        this.source = source;
+        this.bags = bags;
+        this.queue = new ArrayBlockingQueue<Object>(Math.max(1, buffered));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        if (decoder == null) start();
+
+        while (next == null && !done) {
+            Object item = poll();
+            if (item == END)
+                done = true;
+            else if (item instanceof RuntimeException)
+                throw (RuntimeException) item;
+            else
+                next = (T) item;
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T bag = next;
+        next = null;
+        return bag;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        if (decoder != null) {
+            decoder.interrupt();
+            finished = System.nanoTime();
+        }
+        source.close();
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        return source.getReceivedBytes();
+    }
+
+    @Override
+    public long getDecodedBytes() {
+        return source.getDecodedBytes();
+    }
+
+    public List<Stage> getStages() {
+        List<Stage> stages = new ArrayList<Stage>();
+        long starved = 0;
+        if (source.getBody() instanceof ReadAheadInputStream) {
+            ReadAheadInputStream body = (ReadAheadInputStream) source.getBody();
+            stages.add(new Stage("read", body.getReadNanos(), body.getBlockedNanos()));
+            starved = body.getStarvedNanos();
+        }
+        stages.add(new Stage("decode", decodeNanos - starved, starved + blockedNanos));
+        long elapsed = started == 0 ? 0 : (finished != 0 ? finished : System.nanoTime()) - started;
+        stages.add(new Stage("format", elapsed - waitedNanos, waitedNanos));
+        return stages;
+    }
+
+    private void start() {
+        started = System.nanoTime();
+        decoder = new Thread("lognit-decoder") {
+            @Override
+            public void run() {
+                decodeAll();
+            }
+        };
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+
+    //takes whatever the decoder has ready at once, waiting only when there is nothing
+    private Object poll() {
+        if (index == batch.size()) {
+            batch.clear();
+            index = 0;
+            if (queue.drainTo(batch) == 0) {
+                long start = System.nanoTime();
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JsonIOException(e);
+                } finally {
+                    waitedNanos += System.nanoTime() - start;
+                }
+            }
+        }
+        return batch.get(index++);
+    }
+
+    private void decodeAll() {
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                boolean more;
+                T bag = null;
+                try {
+                    more = source.hasNext();
+                    if (more) bag = bags.detach(source.next());
+                } finally {
+                    decodeNanos += System.nanoTime() - start;
+                }
+                if (!more) break;
+
+                long decoded = System.nanoTime();
+                queue.put(bag);
+                blockedNanos += System.nanoTime() - decoded;
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            //closed while waiting for room
+        } catch (RuntimeException e) {
+            try {
+                queue.put(e);
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+}
@@ -1,78 +1,364 @@
 package net.intelie.lognit.cli.runners;
 
+import com.google.gson.JsonIOException;
 import net.intelie.lognit.cli.Runner;
 import net.intelie.lognit.cli.UserConsole;
 import net.intelie.lognit.cli.UserOptions;
 import net.intelie.lognit.cli.formatters.Formatter;
 import net.intelie.lognit.cli.formatters.FormatterSelector;
 import net.intelie.lognit.cli.http.RestStream;
+import net.intelie.lognit.cli.model.Aggregated;
 import net.intelie.lognit.cli.model.DownloadBag;
 import net.intelie.lognit.cli.model.Lognit;
 import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.RawDownloadBag;
+import net.intelie.lognit.cli.state.DownloadCheckpoint;
+import net.intelie.lognit.cli.state.DownloadCheckpointStorage;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DownloadRunner implements Runner {
     public static final String DOWNLOAD_STATUS = "Downloaded %,d/%,d messages (%.2f%%). %,d/s. ETA: %.0fs";
+    public static final String TRANSFER_STATUS = ". Received %,d KB, %,d KB decompressed";
+    public static final String WRITE_STATUS = ". Writing %,d KB/s, %,d KB/s to disk";
+    public static final String FILE_STATUS = DOWNLOAD_STATUS + WRITE_STATUS;
+    public static final String PASSTHROUGH_FORMAT = "json";
+    public static final String DOWNLOAD_FAILED = "ERROR: download interrupted after %,d messages: %s";
+    public static final String RESUME_HINT = "INFO: run again with --resume to continue after message %,d";
+    public static final String RESUMING = "INFO: resuming download after %,d messages";
+    public static final String NOTHING_TO_RESUME = "INFO: no checkpoint for this download, starting from the beginning";
+    public static final String RESUME_MISMATCH = "WARN: message %,d is no longer %s, results changed since the checkpoint";
+    public static final String SLICES_OVER_LIMIT = "WARN: %,d messages in the span, more than -n %,d, downloading the span in one piece";
+    public static final String STAGE_STATS = "INFO: %s stage busy %,dms, idle %,dms (%.0f%% busy)";
     private final UserConsole console;
     private final Lognit lognit;
     private final FormatterSelector formatters;
     private final Timer timer;
+    private final DownloadCheckpointStorage checkpoints;
 
-    public DownloadRunner(UserConsole console, Lognit lognit, FormatterSelector formatters, Timer timer) {
+    public DownloadRunner(UserConsole console, Lognit lognit, FormatterSelector formatters, Timer timer, DownloadCheckpointStorage checkpoints) {
         this.console = console;
         this.lognit = lognit;
         this.formatters = formatters;
         this.timer = timer;
+        this.checkpoints = checkpoints;
     }
 
     @Override
     public int run(UserOptions options) throws Exception {
-        RestStream<DownloadBag> stream = lognit.download(options.getQuery(), options.getLines(), options.getSpan());
-        Formatter formatter = formatters.select(options.getFormat());
+        if (PASSTHROUGH_FORMAT.equalsIgnoreCase(options.getFormat()))
+            return download(options, new RawBags(options));
+        return download(options, new MessageBags(options));
+    }
+
+    private <T> int download(UserOptions options, Bags<T> bags) throws Exception {
+        File output = options.getOutputFile() != null ? new File(options.getOutputFile()) : null;
+        DownloadCheckpointStorage checkpoints = output != null ? this.checkpoints.nextTo(output) :
+                this.checkpoints.forDownload(lognit.getServer(), options.getQuery(), options.getSpan(), options.getFormat(), options.getLines());
 
         final AtomicLong current = new AtomicLong(0), total = new AtomicLong(0);
+        final AtomicReference<DownloadCheckpoint> checkpoint = new AtomicReference<DownloadCheckpoint>(resumeFrom(options, checkpoints, output));
+        //there is no way to ask the server for an offset, so a resumed download is reissued and skips what was written
+        long skip = checkpoint.get() != null ? checkpoint.get().getWritten() : 0;
+
+        FileConsole file = output != null ? new FileConsole(console, output, checkpoint.get() != null ? checkpoint.get().getOutputLength() : 0) : null;
+        UserConsole out = file != null ? file : console;
+        Formatter formatter = file != null ? formatters.redirect(options.getFormat(), file) : formatters.select(options.getFormat());
 
-        TimerTask task = makeTask(current, total);
+        List<String> spans = TimeSlices.slice(options.getSpan(), options.getSlices());
+        if (spans.size() > 1 && !fitsInLines(options, bags))
+            spans = Collections.singletonList(options.getSpan());
+        SlicedDownload<T> sliced = spans.size() > 1 ? new SlicedDownload<T>(spans, bags, SlicedDownload.BUFFERED_BAGS) : null;
+        DownloadPipeline<T> pipeline = sliced == null ? new DownloadPipeline<T>(bags.open(lognit, options.getSpan()), bags, DownloadPipeline.BUFFERED_BAGS) : null;
+        DownloadStream<T> stream = sliced != null ? sliced : pipeline;
+
+        TimerTask task = makeTask(current, total, checkpoint, checkpoints, stream, file);
         timer.schedule(task, 0, 1000);
 
+        long position = 0;
+        Exception failure = null;
         try {
             while (stream.hasNext()) {
-                DownloadBag bag = stream.next();
-                if (bag.getItems() != null)
-                    for (Message message : bag.getItems())
-                        formatter.print(message, false);
-                if (bag.getAggregated() != null)
-                    formatter.print(bag.getAggregated());
-
-                current.set(bag.getCurrentHit());
-                total.set(bag.getTotalHits());
+                T bag = stream.next();
+                int to = bags.count(bag);
+                int from = (int) Math.max(0, Math.min(to, skip - position));
+                current.set(sliced != null ? sliced.getCurrentHit() : bags.currentHit(bag));
+                total.set(sliced != null ? sliced.getTotalHits() : bags.totalHits(bag));
+                if (from > 0 && position + from == skip)
+                    checkContinuity(checkpoint.get(), bags.message(bag, from - 1));
+                if (to > from)
+                    bags.print(bag, out, formatter, from, to);
+                if (bags.aggregated(bag) != null && (to > from || position >= skip))
+                    formatter.print(bags.aggregated(bag));
+
+                position += to;
+                if (position > skip)
+                    checkpoint.set(advance(options, checkpoint.get(), position, current.get(), total.get(), to > 0 ? bags.message(bag, to - 1) : null));
+                if (file != null) {
+                    file.mark(checkpoint.get());
+                    file.check();
+                }
             }
+        } catch (JsonIOException e) {
+            failure = e;
+        } catch (IOException e) {
+            failure = e;
         } finally {
             stream.close();
+            if (file != null)
+                failure = close(file, failure);
         }
         task.cancel();
         task.run();
+        if (options.isVerbose() && pipeline != null)
+            printStages(pipeline);
 
+        if (failure != null) {
+            Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+            //what the checkpoint holds is what was actually written, unlike the hits the server reported
+            DownloadCheckpoint saved = checkpoints.load();
+            if (saved != null && !saved.isFor(options.getQuery(), options.getSpan(), options.getFormat(), options.getLines()))
+                saved = null;
+            console.println(DOWNLOAD_FAILED, saved != null ? saved.getWritten() : 0L, cause.getMessage());
+            if (saved != null)
+                console.println(RESUME_HINT, saved.getWritten());
+            return 1;
+        }
+        checkpoints.clear();
         return 0;
     }
 
-    private TimerTask makeTask(final AtomicLong current, final AtomicLong total) {
+    //each slice brings its own last -n messages, which are the last -n of the whole span only when the span holds no more than -n
+    private <T> boolean fitsInLines(UserOptions options, Bags<T> bags) throws IOException {
+        if (options.getLines() <= 0) return true;
+
+        //asks for a single message, so closing the probe does not read a whole download through
+        RestStream<T> probe = bags.open(lognit, options.getSpan(), 1);
+        try {
+            long hits = probe.hasNext() ? bags.totalHits(probe.next()) : 0;
+            if (hits <= options.getLines()) return true;
+            console.println(SLICES_OVER_LIMIT, hits, options.getLines());
+            return false;
+        } finally {
+            probe.close();
+        }
+    }
+
+    private void printStages(DownloadPipeline<?> pipeline) {
+        console.fixCursor();
+        for (DownloadPipeline.Stage stage : pipeline.getStages())
+            console.println(STAGE_STATS, stage.getName(), stage.getBusyMillis(), stage.getIdleMillis(), stage.getBusyPercent());
+    }
+
+    private Exception close(FileConsole file, Exception failure) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            if (failure == null) return e;
+        }
+        return failure;
+    }
+
+    private DownloadCheckpoint resumeFrom(UserOptions options, DownloadCheckpointStorage checkpoints, File output) {
+        if (!options.isResume()) return null;
+
+        DownloadCheckpoint checkpoint = checkpoints.load();
+        if (checkpoint == null || !checkpoint.isFor(options.getQuery(), options.getSpan(), options.getFormat(), options.getLines()) ||
+                output != null && output.length() < checkpoint.getOutputLength()) {
+            console.println(NOTHING_TO_RESUME);
+            return null;
+        }
+        console.println(RESUMING, checkpoint.getWritten());
+        return checkpoint;
+    }
+
+    private void checkContinuity(DownloadCheckpoint checkpoint, Message last) {
+        if (checkpoint.getLastId() != null && last != null && !checkpoint.getLastId().equals(last.getId()))
+            console.println(RESUME_MISMATCH, checkpoint.getWritten(), checkpoint.getLastId());
+    }
+
+    private DownloadCheckpoint advance(UserOptions options, DownloadCheckpoint previous, long written, long currentHit, long totalHits, Message last) {
+        if (last == null && previous != null)
+            return new DownloadCheckpoint(options.getQuery(), options.getSpan(), options.getFormat(), options.getLines(),
+                    written, currentHit, totalHits, previous.getLastId(), previous.getLastDate(), previous.getLastTime());
+        return new DownloadCheckpoint(options.getQuery(), options.getSpan(), options.getFormat(), options.getLines(),
+                written, currentHit, totalHits, last != null ? last.getId() : null,
+                last != null ? last.getDate() : null, last != null ? last.getTime() : null);
+    }
+
+    private abstract class Bags<T> implements SlicedDownload.Source<T> {
+        protected final UserOptions options;
+
+        protected Bags(UserOptions options) {
+            this.options = options;
+        }
+
+        //each slice gets its own connection, as one http client serves a single request at a time
+        @Override
+        public RestStream<T> open(String span) throws IOException {
+            return open(lognit.forServer(lognit.getServer()), span);
+        }
+
+        protected RestStream<T> open(Lognit lognit, String span) throws IOException {
+            return open(lognit, span, options.getLines());
+        }
+
+        protected abstract RestStream<T> open(Lognit lognit, String span, int lines) throws IOException;
+
+        protected abstract int count(T bag);
+
+        //prints messages from (inclusive) to (exclusive) of the bag
+        protected abstract void print(T bag, UserConsole out, Formatter formatter, int from, int to);
+
+        //null when messages are not decoded
+        protected abstract Message message(T bag, int index);
+
+        protected abstract Aggregated aggregated(T bag);
+    }
+
+    private class MessageBags extends Bags<DownloadBag> {
+        public MessageBags(UserOptions options) {
+            super(options);
+        }
+
+        @Override
+        protected RestStream<DownloadBag> open(Lognit lognit, String span, int lines) throws IOException {
+            return lognit.download(options.getQuery(), lines, span);
+        }
+
+        @Override
+        protected int count(DownloadBag bag) {
+            return bag.getItems() != null ? bag.getItems().size() : 0;
+        }
+
+        @Override
+        protected void print(DownloadBag bag, UserConsole out, Formatter formatter, int from, int to) {
+            for (Message message : bag.getItems().subList(from, to))
+                formatter.print(message, false);
+        }
+
+        @Override
+        protected Message message(DownloadBag bag, int index) {
+            return bag.getItems().get(index);
+        }
+
+        @Override
+        protected Aggregated aggregated(DownloadBag bag) {
+            return bag.getAggregated();
+        }
+
+        @Override
+        public DownloadBag detach(DownloadBag bag) {
+            return bag;
+        }
+
+        @Override
+        public long currentHit(DownloadBag bag) {
+            return bag.getCurrentHit();
+        }
+
+        @Override
+        public long totalHits(DownloadBag bag) {
+            return bag.getTotalHits();
+        }
+    }
+
+    private class RawBags extends Bags<RawDownloadBag> {
+        public RawBags(UserOptions options) {
+            super(options);
+        }
+
+        @Override
+        protected RestStream<RawDownloadBag> open(Lognit lognit, String span, int lines) throws IOException {
+            return lognit.downloadRaw(options.getQuery(), lines, span);
+        }
+
+        @Override
+        protected int count(RawDownloadBag bag) {
+            return bag.getCount();
+        }
+
+        @Override
+        protected void print(RawDownloadBag bag, UserConsole out, Formatter formatter, int from, int to) {
+            int start = bag.getStart(from);
+            out.printOut(bag.getItems(), start, bag.getEnd(to - 1) - start);
+        }
+
+        @Override
+        protected Message message(RawDownloadBag bag, int index) {
+            return null;
+        }
+
+        @Override
+        protected Aggregated aggregated(RawDownloadBag bag) {
+            return bag.getAggregated();
+        }
+
+        @Override
+        public RawDownloadBag detach(RawDownloadBag bag) {
+            return new RawDownloadBag(Arrays.copyOf(bag.getItems(), bag.getLength()), bag.getLength(),
+                    Arrays.copyOf(bag.getOffsets(), 2 * bag.getCount()), bag.getCount(),
+                    bag.getAggregated(), bag.getCurrentHit(), bag.getTotalHits());
+        }
+
+        @Override
+        public long currentHit(RawDownloadBag bag) {
+            return bag.getCurrentHit();
+        }
+
+        @Override
+        public long totalHits(RawDownloadBag bag) {
+            return bag.getTotalHits();
+        }
+    }
+
+    private TimerTask makeTask(final AtomicLong current, final AtomicLong total, final AtomicReference<DownloadCheckpoint> checkpoint,
+                               final DownloadCheckpointStorage checkpoints, final DownloadStream<?> stream, final FileConsole file) {
         return new TimerTask() {
-            long lastHit = 0;
+            long lastHit = 0, lastUncompressed = 0, lastCompressed = 0;
+            DownloadCheckpoint stored = checkpoint.get();
 
             @Override
             public void run() {
+                //a file only vouches for what its writer already flushed
+                DownloadCheckpoint latest = file != null ? file.getDurable() : checkpoint.get();
+                if (latest != null && latest != stored)
+                    checkpoints.store(stored = latest);
+
                 long currentHit = current.get();
                 long totalHits = total.get();
-                console.printStill(DOWNLOAD_STATUS,
+                StringBuilder status = new StringBuilder(DOWNLOAD_STATUS);
+                List<Object> args = new ArrayList<Object>(Arrays.<Object>asList(
                         currentHit,
                         totalHits,
                         currentHit / (double) totalHits * 100,
                         currentHit - lastHit,
-                        calculateETA(currentHit, totalHits));
+                        calculateETA(currentHit, totalHits)));
+
+                long received = stream.getReceivedBytes(), decoded = stream.getDecodedBytes();
+                if (decoded > 0) {
+                    status.append(TRANSFER_STATUS);
+                    args.add(received / 1024);
+                    args.add(decoded / 1024);
+                }
+                if (file != null) {
+                    long uncompressed = file.getUncompressedBytes(), compressed = file.getCompressedBytes();
+                    status.append(WRITE_STATUS);
+                    args.add((uncompressed - lastUncompressed) / 1024);
+                    args.add((compressed - lastCompressed) / 1024);
+                    lastUncompressed = uncompressed;
+                    lastCompressed = compressed;
+                }
+                console.printStill(status.toString(), args.toArray());
                 lastHit = currentHit;
             }
 
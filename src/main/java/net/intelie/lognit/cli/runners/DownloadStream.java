@@ -0,0 +1,12 @@
+package net.intelie.lognit.cli.runners;
+
+import java.util.Iterator;
+
+//what the download runner reads bags from, whether one connection or many
+public interface DownloadStream<T> extends Iterator<T> {
+    long getReceivedBytes();
+
+    long getDecodedBytes();
+
+    void close();
+}
@@ -0,0 +1,147 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.UserOptions;
+import net.intelie.lognit.cli.http.RestListener;
+import net.intelie.lognit.cli.http.RestListenerHandle;
+import net.intelie.lognit.cli.model.Lognit;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.state.Clock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+public class FederatedSearch implements RestListenerHandle {
+    public static final String CLUSTER_FAILED = "(%s) WARN: %s";
+    public static final String CLUSTER_LATE = "(%s) WARN: handshake is taking too long, going on without it";
+    public static final String CLUSTER_DISCONNECTED = "(%s) WARN: disconnected";
+
+    private final UserConsole console;
+    private final Clock clock;
+    private final ExecutorService executor;
+    private final Map<String, Future<RestListenerHandle>> handshakes;
+    private boolean closed;
+
+    public FederatedSearch(UserConsole console, Clock clock) {
+        this.console = console;
+        this.clock = clock;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("lognit-federated-%d").setDaemon(true).build());
+        this.handshakes = new LinkedHashMap<String, Future<RestListenerHandle>>();
+    }
+
+    public void start(final Lognit lognit, String server, final UserOptions options, final List<? extends RestListener<MessageBag>> listeners) {
+        handshakes.put(server, executor.submit(new Callable<RestListenerHandle>() {
+            @Override
+            public RestListenerHandle call() throws Exception {
+                RestListenerHandle handle = listeners.size() == 1 ?
+                        lognit.search(options.getQuery(), options.getLines(), options.isFollow(), options.isStats(), options.getSpan(), listeners.get(0)) :
+                        lognit.search(options.getQueries(), options.getLines(), options.isFollow(), options.isStats(), options.getSpan(), listeners);
+                return register(handle);
+            }
+        }));
+    }
+
+    private synchronized RestListenerHandle register(RestListenerHandle handle) {
+        if (closed) handle.close();
+        return handle;
+    }
+
+    public int await(int timeout) throws Exception {
+        return awaitUntil(clock.currentMillis() + timeout);
+    }
+
+    public int awaitUntil(long deadline) throws Exception {
+        Exception failure = null;
+        int connected = 0;
+        for (Map.Entry<String, Future<RestListenerHandle>> entry : handshakes.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - clock.currentMillis()), TimeUnit.MILLISECONDS);
+                connected++;
+            } catch (TimeoutException e) {
+                console.println(CLUSTER_LATE, entry.getKey());
+            } catch (ExecutionException e) {
+                failure = cause(e);
+                console.println(CLUSTER_FAILED, entry.getKey(), failure.getMessage());
+            }
+        }
+        if (connected == 0 && failure != null)
+            throw failure;
+        return connected;
+    }
+
+    private Exception cause(ExecutionException e) {
+        return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+
+    //each server is watched on its own, so one dropping is reported while the others still stream
+    @Override
+    public void waitDisconnected() {
+        List<Future<?>> watchers = new ArrayList<Future<?>>();
+        synchronized (this) {
+            if (closed) return;
+            for (Map.Entry<String, Future<RestListenerHandle>> entry : handshakes.entrySet())
+                watchers.add(executor.submit(watch(entry.getKey(), entry.getValue())));
+        }
+        for (Future<?> watcher : watchers) {
+            try {
+                watcher.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                //the watcher only reports, there is nothing to recover
+            }
+        }
+    }
+
+    private Runnable watch(final String server, final Future<RestListenerHandle> handshake) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                RestListenerHandle handle = handleOf(handshake, true);
+                if (handle == null) return;
+                handle.waitDisconnected();
+                if (!isClosed())
+                    console.println(CLUSTER_DISCONNECTED, server);
+            }
+        };
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        for (Future<RestListenerHandle> handshake : handshakes.values()) {
+            RestListenerHandle handle = handleOf(handshake, false);
+            if (handle == null && !handshake.cancel(true))
+                handle = handleOf(handshake, false);
+            if (handle != null) handle.close();
+        }
+        executor.shutdown();
+    }
+
+    private RestListenerHandle handleOf(Future<RestListenerHandle> handshake, boolean wait) {
+        if (!wait && !handshake.isDone()) return null;
+        try {
+            return handshake.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CountingOutputStream;
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.state.DownloadCheckpoint;
+
+import java.io.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+//prints messages into a file from a writer thread, in large chunks and optionally gzipped; anything else goes to the console
+public class FileConsole extends UserConsole {
+    public static final int CHUNK_CHARS = 256 * 1024;
+    public static final int QUEUED_CHUNKS = 4;
+    public static final int FILE_BUFFER = 256 * 1024;
+    public static final long MEMBER_BYTES = 4 * 1024 * 1024;
+
+    private static final Chunk END = new Chunk(null);
+
+    private final UserConsole console;
+    private final File file;
+    private final boolean gzip;
+    private final long offset;
+    private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<Chunk>(QUEUED_CHUNKS);
+    private final Thread writer;
+    private Chunk chunk = new Chunk(new char[CHUNK_CHARS]);
+
+    private volatile long uncompressed;
+    private volatile long compressed;
+    private volatile DownloadCheckpoint durable;
+    private volatile IOException failure;
+
+    public FileConsole(UserConsole console, File file, long offset) throws IOException {
+        this(console, file, offset, file.getName().endsWith(".gz"));
+    }
+
+    public FileConsole(UserConsole console, File file, long offset, boolean gzip) throws IOException {
+        this.console = console;
+        this.file = file;
+        this.gzip = gzip;
+        this.offset = offset;
+
+        //whatever follows the offset was written after the last checkpoint and is going to be written again
+        RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+        try {
+            truncate.setLength(offset);
+        } finally {
+            truncate.close();
+        }
+
+        final OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true), FILE_BUFFER);
+        this.writer = new Thread("lognit-writer") {
+            @Override
+            public void run() {
+                write(out);
+            }
+        };
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    //bytes of text written so far, before compression
+    public long getUncompressedBytes() {
+        return uncompressed;
+    }
+
+    //bytes that actually reached the file so far
+    public long getCompressedBytes() {
+        return compressed;
+    }
+
+    //the latest checkpoint whose messages are all in the file, sized to them
+    public DownloadCheckpoint getDurable() {
+        return durable;
+    }
+
+    @Override
+    public synchronized void printOut(String format, Object... args) {
+        String line = reallyFormat(format, args);
+        char[] chars = reserve(line.length());
+        line.getChars(0, line.length(), chars, chunk.length);
+        chunk.length += line.length();
+        chars[chunk.length++] = '\n';
+    }
+
+    @Override
+    public synchronized void printOut(char[] chars, int offset, int length) {
+        char[] target = reserve(length);
+        System.arraycopy(chars, offset, target, chunk.length, length);
+        chunk.length += length;
+        target[chunk.length++] = '\n';
+    }
+
+    //everything printed so far is covered by the checkpoint
+    public synchronized void mark(DownloadCheckpoint checkpoint) {
+        chunk.mark = checkpoint;
+        chunk.marked = chunk.length;
+    }
+
+    public synchronized void check() throws IOException {
+        if (failure != null)
+            throw failure;
+    }
+
+    public synchronized void close() throws IOException {
+        try {
+            put(chunk);
+            put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        check();
+    }
+
+    private char[] reserve(int length) {
+        if (chunk.length + length + 1 > chunk.chars.length) {
+            try {
+                handOff(new Chunk(new char[Math.max(CHUNK_CHARS, length + 1)]));
+            } catch (InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return chunk.chars;
+    }
+
+    private void handOff(Chunk next) throws InterruptedIOException {
+        Chunk full = chunk;
+        chunk = next;
+        try {
+            put(full);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void put(Chunk chunk) throws InterruptedException {
+        queue.put(chunk);
+    }
+
+    private void write(OutputStream file) {
+        CountingOutputStream counted = new CountingOutputStream(file);
+        Member member = null;
+        DownloadCheckpoint pending = null;
+        Chunk chunk;
+        while ((chunk = take()) != END) {
+            if (failure != null) continue;
+            try {
+                member = write(member, counted, chunk, 0, chunk.marked);
+
+                //a checkpoint only holds at a member boundary, as a truncated gzip member cannot be read back
+                if (chunk.mark != null) {
+                    pending = chunk.mark;
+                    if (member != null && member.size() >= MEMBER_BYTES) {
+                        member.finish();
+                        member = null;
+                    }
+                    if (member == null)
+                        publish(counted, pending);
+                }
+                if (chunk.length > chunk.marked) {
+                    member = write(member, counted, chunk, chunk.marked, chunk.length);
+                    pending = null;
+                }
+                if (member != null)
+                    uncompressed = member.uncompressed();
+                compressed = counted.getCount();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        try {
+            if (member != null && failure == null) {
+                member.finish();
+                if (pending != null)
+                    publish(counted, pending);
+            }
+            compressed = counted.getCount();
+            file.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        }
+    }
+
+    private Member write(Member member, OutputStream out, Chunk chunk, int from, int to) throws IOException {
+        if (from == to) return member;
+        if (member == null)
+            member = new Member(out);
+        member.writer.write(chunk.chars, from, to - from);
+        return member;
+    }
+
+    private Chunk take() {
+        while (true) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                //the printing side still needs its chunks drained
+            }
+        }
+    }
+
+    private void publish(CountingOutputStream counted, DownloadCheckpoint checkpoint) throws IOException {
+        counted.flush();
+        compressed = counted.getCount();
+        durable = checkpoint.withOutputLength(offset + compressed);
+    }
+
+    private class Member {
+        private final long base = uncompressed;
+        private final CountingOutputStream text;
+        private final Writer writer;
+
+        //each member ends up a complete gzip stream, and concatenated ones read back as a single file
+        public Member(OutputStream out) throws IOException {
+            OutputStream file = new NonClosing(out);
+            text = new CountingOutputStream(gzip ? new GZIPOutputStream(file, 64 * 1024) : file);
+            writer = new OutputStreamWriter(text, Charsets.UTF_8);
+        }
+
+        public long size() {
+            return text.getCount();
+        }
+
+        public long uncompressed() {
+            return base + text.getCount();
+        }
+
+        public void finish() throws IOException {
+            writer.close();
+            uncompressed = uncompressed();
+        }
+    }
+
+    private static class NonClosing extends FilterOutputStream {
+        public NonClosing(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static class Chunk {
+        private final char[] chars;
+        private int length;
+        private int marked;
+        private DownloadCheckpoint mark;
+
+        public Chunk(char[] chars) {
+            this.chars = chars;
+        }
+    }
+
+    @Override
+    public void println(String format, Object... args) {
+        console.println(format, args);
+    }
+
+    @Override
+    public void printStill(String format, Object... args) {
+        console.printStill(format, args);
+    }
+
+    @Override
+    public boolean isTTY() {
+        return false;
+    }
+
+    @Override
+    public char waitChar(char... allowed) {
+        return console.waitChar(allowed);
+    }
+
+    @Override
+    public void fixCursor() {
+        console.fixCursor();
+    }
+
+    @Override
+    public void registerFix(Runtime runtime) {
+        console.registerFix(runtime);
+    }
+
+    @Override
+    public String readLine(String format, Object... args) {
+        return console.readLine(format, args);
+    }
+
+    @Override
+    public String readPassword(String format, Object... args) {
+        return console.readPassword(format, args);
+    }
+}
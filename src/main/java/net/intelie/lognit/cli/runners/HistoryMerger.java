@@ -0,0 +1,100 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.UnmodifiableIterator;
+import net.intelie.lognit.cli.model.Message;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+//nodes answer newest first, so the merge only walks the head of each list; a node that breaks
+//that order where the merge looks is caught on the way and the merge is redone over sorted copies
+public class HistoryMerger {
+    public List<Message> merge(Iterable<? extends List<Message>> sources, int releaseMax) {
+        return Lists.reverse(newest(sources, releaseMax));
+    }
+
+    public List<Message> newest(Iterable<? extends List<Message>> sources, int releaseMax) {
+        List<Message> newest = mergeNewest(sources, releaseMax);
+        if (newest != null) return newest;
+
+        List<List<Message>> sorted = Lists.newArrayList();
+        for (List<Message> source : sources)
+            if (source != null) sorted.add(Ordering.<Message>natural().sortedCopy(source));
+        return mergeNewest(sorted, releaseMax);
+    }
+
+    public List<Message> newest(List<Message> first, List<Message> second, int releaseMax) {
+        if (first == null) first = Collections.emptyList();
+        if (second == null) second = Collections.emptyList();
+
+        List<Message> newest = mergeNewest(first, second, releaseMax);
+        if (newest != null) return newest;
+
+        return mergeNewest(Ordering.<Message>natural().sortedCopy(first),
+                Ordering.<Message>natural().sortedCopy(second), releaseMax);
+    }
+
+    private List<Message> mergeNewest(Iterable<? extends List<Message>> sources, int releaseMax) {
+        List<NewestFirst> iterators = Lists.newArrayList();
+        int available = 0;
+        for (List<Message> source : sources) {
+            if (source == null || source.isEmpty()) continue;
+            iterators.add(new NewestFirst(source.iterator()));
+            available += source.size();
+        }
+
+        Iterator<Message> merged = Iterators.mergeSorted(iterators, Ordering.<Message>natural());
+
+        List<Message> newest = Lists.newArrayListWithCapacity(Math.max(0, Math.min(releaseMax, available)));
+        while (merged.hasNext() && newest.size() < releaseMax)
+            newest.add(merged.next());
+
+        for (NewestFirst iterator : iterators)
+            if (iterator.broken) return null;
+        return newest;
+    }
+
+    private List<Message> mergeNewest(List<Message> first, List<Message> second, int releaseMax) {
+        List<Message> newest = Lists.newArrayListWithCapacity(
+                Math.max(0, Math.min(releaseMax, first.size() + second.size())));
+        int i = 0, j = 0;
+        while (newest.size() < releaseMax && (i < first.size() || j < second.size())) {
+            if (j >= second.size() || i < first.size() && first.get(i).compareTo(second.get(j)) <= 0) {
+                if (i + 1 < first.size() && first.get(i).compareTo(first.get(i + 1)) > 0) return null;
+                newest.add(first.get(i++));
+            } else {
+                if (j + 1 < second.size() && second.get(j).compareTo(second.get(j + 1)) > 0) return null;
+                newest.add(second.get(j++));
+            }
+        }
+
+        return newest;
+    }
+
+    private static class NewestFirst extends UnmodifiableIterator<Message> {
+        private final Iterator<Message> source;
+        private Message last;
+        private boolean broken;
+
+        public NewestFirst(Iterator<Message> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public Message next() {
+            Message next = source.next();
+            if (last != null && last.compareTo(next) > 0)
+                broken = true;
+            return last = next;
+        }
+    }
+}
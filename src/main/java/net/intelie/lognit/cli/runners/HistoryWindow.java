@@ -0,0 +1,50 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.collect.Lists;
+import net.intelie.lognit.cli.model.Message;
+
+import java.util.Collections;
+import java.util.List;
+
+public class HistoryWindow {
+    private final HistoryMerger merger;
+    private List<Message> newest;
+    private int size;
+
+    public HistoryWindow(HistoryMerger merger, int size) {
+        this.merger = merger;
+        this.size = size;
+        this.newest = Collections.emptyList();
+    }
+
+    public void resize(int size) {
+        this.size = size;
+        if (newest.size() > size)
+            newest = Lists.newArrayList(newest.subList(0, Math.max(0, size)));
+    }
+
+    public void add(List<Message> items) {
+        if (items == null || items.isEmpty() || size <= 0) return;
+        if (isFull() && watermark().compareTo(items.get(0)) <= 0) return;
+
+        newest = merger.newest(newest, items, size);
+    }
+
+    public int size() {
+        return newest.size();
+    }
+
+    public boolean isFull() {
+        return newest.size() >= size;
+    }
+
+    public Message watermark() {
+        return newest.isEmpty() ? null : newest.get(newest.size() - 1);
+    }
+
+    public List<Message> release() {
+        List<Message> result = Lists.reverse(newest);
+        newest = Collections.emptyList();
+        return result;
+    }
+}
@@ -12,6 +12,7 @@ public class MainRunner implements Runner {
     private final PurgeRunner purge;
     private final PauseRunner pause;
     private final DownloadRunner download;
+    private final NodesReportRunner nodesReport;
 
     public MainRunner(SearchRunner search,
                       InfoRunner info,
@@ -20,7 +21,8 @@ public class MainRunner implements Runner {
                       WelcomeRunner welcome,
                       PurgeRunner purge,
                       PauseRunner pause,
-                      DownloadRunner download) {
+                      DownloadRunner download,
+                      NodesReportRunner nodesReport) {
         this.search = search;
         this.info = info;
         this.completion = completion;
@@ -29,6 +31,7 @@ public class MainRunner implements Runner {
         this.purge = purge;
         this.pause = pause;
         this.download = download;
+        this.nodesReport = nodesReport;
     }
 
     @Override
@@ -37,11 +40,13 @@ public class MainRunner implements Runner {
             return usage.run(options);
         else if (options.isInfo())
             return info.run(options);
+        else if (options.isNodesReport())
+            return nodesReport.run(options);
         else if (options.isComplete())
             return completion.run(options);
         else if (options.isPurge() || options.isUnpurge() || options.isCancelPurges())
             return purge.run(options);
-        else if (options.isPause() || options.isResume())
+        else if (options.isPause() || options.isResume() && !options.isDownload())
             return pause.run(options);
         else if (options.isDownload())
             return download.run(options);
@@ -0,0 +1,86 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+import net.intelie.lognit.cli.Runner;
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.UserOptions;
+import net.intelie.lognit.cli.state.LatencyHistory;
+
+import java.util.*;
+
+public class NodesReportRunner implements Runner {
+    public static final String NO_HISTORY = "no node latency recorded yet, run some searches first";
+    public static final String HEADER = "%-30s %8s %8s %8s";
+    public static final String NODE_LINE = "%-30s %8d %6dms %6dms%s";
+    public static final String STRAGGLER = "  <- straggler";
+    public static final String SUGGESTED_TIMEOUT = "suggested timeout: -t %d";
+    public static final int MIN_SAMPLES = 5;
+    public static final int STRAGGLER_FACTOR = 2;
+
+    private final UserConsole console;
+    private final LatencyHistory history;
+
+    public NodesReportRunner(UserConsole console, LatencyHistory history) {
+        this.console = console;
+        this.history = history;
+    }
+
+    @Override
+    public int run(UserOptions options) {
+        Map<String, List<Long>> samples = history.load();
+        if (samples.isEmpty()) {
+            console.println(NO_HISTORY);
+            return 0;
+        }
+
+        List<NodeLatency> nodes = new ArrayList<NodeLatency>();
+        for (Map.Entry<String, List<Long>> entry : samples.entrySet())
+            nodes.add(new NodeLatency(entry.getKey(), entry.getValue()));
+        Collections.sort(nodes);
+
+        long median = medianOf(nodes);
+        long worst = 0;
+        console.printOut(HEADER, "node", "samples", "p50", "p99");
+        for (NodeLatency node : nodes) {
+            boolean straggler = nodes.size() > 1 && node.count >= MIN_SAMPLES && node.p50 > STRAGGLER_FACTOR * median;
+            console.printOut(NODE_LINE, node.name, node.count, node.p50, node.p99, straggler ? STRAGGLER : "");
+            worst = Math.max(worst, node.p99);
+        }
+        console.printOut(SUGGESTED_TIMEOUT, Math.max(1, (worst + 999) / 1000));
+        return 0;
+    }
+
+    private long medianOf(List<NodeLatency> nodes) {
+        List<Long> p50s = Lists.newArrayListWithCapacity(nodes.size());
+        for (NodeLatency node : nodes)
+            p50s.add(node.p50);
+        return percentile(p50s, 50);
+    }
+
+    static long percentile(List<Long> values, int percent) {
+        long[] sorted = Longs.toArray(values);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static class NodeLatency implements Comparable<NodeLatency> {
+        private final String name;
+        private final int count;
+        private final long p50;
+        private final long p99;
+
+        private NodeLatency(String name, List<Long> times) {
+            this.name = name;
+            this.count = times.size();
+            this.p50 = percentile(times, 50);
+            this.p99 = percentile(times, 99);
+        }
+
+        @Override
+        public int compareTo(NodeLatency that) {
+            return Longs.compare(that.p50, this.p50);
+        }
+    }
+}
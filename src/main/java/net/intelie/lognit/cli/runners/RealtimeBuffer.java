@@ -0,0 +1,183 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.codec.RecordReader;
+import net.intelie.lognit.cli.codec.RecordWriter;
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class RealtimeBuffer {
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    public static final long DEFAULT_SPILL_BUDGET = 1024L * 1024 * 1024;
+    private static final long BAG_OVERHEAD = 96;
+    private static final long MESSAGE_OVERHEAD = 64;
+    private static final long ENTRY_OVERHEAD = 48;
+    private static final long STRING_OVERHEAD = 40;
+
+    private final long memoryBudget;
+    private final long spillBudget;
+    private final Deque<MessageBag> memory;
+    private long memoryBytes;
+    private long spillBytes;
+    private long spilled;
+    private long dropped;
+    private long unread;
+    private File spill;
+    private RecordWriter writer;
+    private RecordReader reader;
+
+    public RealtimeBuffer() {
+        this(DEFAULT_MEMORY_BUDGET, DEFAULT_SPILL_BUDGET);
+    }
+
+    public RealtimeBuffer(long memoryBudget, long spillBudget) {
+        this.memoryBudget = memoryBudget;
+        this.spillBudget = spillBudget;
+        this.memory = new LinkedList<MessageBag>();
+    }
+
+    public void add(MessageBag bag) {
+        long size = estimate(bag);
+        if (spill == null && memoryBytes + size <= memoryBudget) {
+            memory.add(bag);
+            memoryBytes += size;
+            return;
+        }
+
+        //the budget is checked before writing, so the file may go over it by at most one bag
+        if (spillBytes < spillBudget && append(bag)) {
+            spilled++;
+            unread++;
+        } else {
+            dropped++;
+        }
+    }
+
+    //rough heap taken by a decoded bag; host, facility, severity, app and metadata keys are shared by the string cache
+    public static long estimate(MessageBag bag) {
+        long size = BAG_OVERHEAD + chars(bag.getMessage());
+        if (bag.getItems() != null)
+            for (Message message : bag.getItems())
+                size += estimate(message);
+        if (bag.getAggregated() != null)
+            for (AggregatedItem item : bag.getAggregated())
+                size += estimate(item);
+        return size;
+    }
+
+    private static long estimate(Message message) {
+        long size = MESSAGE_OVERHEAD + chars(message.getId()) + chars(message.getDate()) + chars(message.getTime()) + chars(message.getMessage());
+        if (message.getMetadata() != null)
+            for (List<String> values : message.getMetadata().values()) {
+                size += ENTRY_OVERHEAD;
+                if (values != null)
+                    for (String value : values)
+                        size += chars(value);
+            }
+        return size;
+    }
+
+    private static long estimate(AggregatedItem item) {
+        long size = ENTRY_OVERHEAD;
+        for (Map.Entry<String, Object> entry : item.entrySet()) {
+            size += ENTRY_OVERHEAD + chars(entry.getKey());
+            size += entry.getValue() instanceof String ? chars((String) entry.getValue()) : STRING_OVERHEAD;
+        }
+        return size;
+    }
+
+    private static long chars(String value) {
+        return value != null ? STRING_OVERHEAD + 2L * value.length() : 0;
+    }
+
+    private boolean append(MessageBag bag) {
+        try {
+            if (spill == null) {
+                spill = File.createTempFile("lognit-realtime", ".bin");
+                spill.deleteOnExit();
+                writer = new RecordWriter(new BufferedOutputStream(new FileOutputStream(spill)));
+            }
+            if (writer == null) return false;
+            writer.write(bag);
+            spillBytes = writer.getSize();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (IOException e) {
+            closeQuietly(writer);
+            writer = null;
+            return false;
+        }
+    }
+
+    public MessageBag poll() {
+        if (!memory.isEmpty()) {
+            MessageBag bag = memory.pop();
+            if (memory.isEmpty()) memoryBytes = 0;
+            return bag;
+        }
+        if (spill == null) return null;
+
+        try {
+            if (reader == null) {
+                if (writer != null) writer.close();
+                writer = null;
+                reader = new RecordReader(new BufferedInputStream(new FileInputStream(spill)));
+            }
+            MessageBag bag = (MessageBag) reader.read();
+            if (bag != null) {
+                unread--;
+                return bag;
+            }
+        } catch (IOException e) {
+            dropped += unread;
+        }
+        clear();
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return memory.isEmpty() && spill == null;
+    }
+
+    public void clear() {
+        memory.clear();
+        memoryBytes = 0;
+        spillBytes = 0;
+        unread = 0;
+        closeQuietly(writer);
+        closeQuietly(reader);
+        writer = null;
+        reader = null;
+        if (spill != null)
+            spill.delete();
+        spill = null;
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            if (closeable != null) closeable.close();
+        } catch (IOException e) {
+        }
+    }
+
+    public long getSpilled() {
+        return spilled;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
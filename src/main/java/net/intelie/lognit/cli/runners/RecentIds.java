@@ -0,0 +1,32 @@
+package net.intelie.lognit.cli.runners;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RecentIds {
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final LinkedHashMap<String, Boolean> ids;
+
+    public RecentIds() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RecentIds(final int capacity) {
+        this.ids = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized boolean add(String id) {
+        if (id == null) return true;
+        return ids.put(id, Boolean.TRUE) == null;
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+}
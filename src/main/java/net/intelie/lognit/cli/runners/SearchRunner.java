@@ -2,53 +2,82 @@ package net.intelie.lognit.cli.runners;
 
 import com.google.common.base.Strings;
 import net.intelie.lognit.cli.Runner;
+import net.intelie.lognit.cli.TaggedConsole;
 import net.intelie.lognit.cli.UserConsole;
 import net.intelie.lognit.cli.UserOptions;
+import net.intelie.lognit.cli.formatters.AsyncFormatter;
+import net.intelie.lognit.cli.formatters.Formatter;
+import net.intelie.lognit.cli.http.RestListener;
 import net.intelie.lognit.cli.http.RestListenerHandle;
+import net.intelie.lognit.cli.json.StringCache;
 import net.intelie.lognit.cli.model.Lognit;
+import net.intelie.lognit.cli.model.MessageBag;
 import net.intelie.lognit.cli.state.Clock;
+import net.intelie.lognit.cli.state.LatencyHistory;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class SearchRunner implements Runner {
     public static final String HANDSHAKE = "INFO: handshake (%dms)";
     public static final String REALTIME_DISCONNECTED = "Realtime results disconnected";
+    public static final String QUERY_TAG = "[%d] %s";
+    public static final String PRINTER_QUEUE = "INFO: printer queue max depth %,d/%,d, %,d stalls (%dms)";
+    public static final String STRING_CACHE = "INFO: string cache %,d hits, %,d misses (%.1f%% hit rate)";
 
     private final UserConsole console;
     private final Lognit lognit;
     private final BufferListenerFactory factory;
     private final Clock clock;
     private final Runtime runtime;
+    private final LatencyHistory latencies;
 
-    public SearchRunner(UserConsole console, Lognit lognit, BufferListenerFactory factory, Clock clock, Runtime runtime) {
+    public SearchRunner(UserConsole console, Lognit lognit, BufferListenerFactory factory, Clock clock, Runtime runtime, LatencyHistory latencies) {
         this.console = console;
         this.lognit = lognit;
         this.factory = factory;
         this.clock = clock;
         this.runtime = runtime;
+        this.latencies = latencies;
     }
 
     @Override
     public int run(UserOptions options) throws Exception {
         try {
-            BufferListener listener = factory.create(options.getFormat(), options.isStats(), options.isMetadata());
+            long deadline = sharesTimeout(options) ? clock.currentMillis() + options.getTimeoutInMilliseconds() : 0;
+            List<BufferListener> listeners = createListeners(options);
 
-            RestListenerHandle handle = handshake(options, listener);
+            RestListenerHandle handle = handshake(options, listeners, deadline);
 
             try {
-                listener.waitHistoric(options.getTimeoutInMilliseconds(), options.getLines());
+                waitHistoric(options, listeners, deadline);
                 if (options.isFollow()) {
-                    listener.releaseAll();
+                    for (BufferListener listener : listeners)
+                        listener.releaseAll();
                     handle.waitDisconnected();
                     throw new RetryConnectionException(options.realtimeOnly(), REALTIME_DISCONNECTED);
                 }
                 if (!Strings.isNullOrEmpty(options.getSpan())) {
-                    listener.releaseAll();
-                    listener.waitForError(1);
+                    for (BufferListener listener : listeners)
+                        listener.releaseAll();
+                    for (BufferListener listener : listeners)
+                        listener.waitForError(1);
                 }
                 return 0;
             } finally {
                 handle.close();
+                List<Map<String, Long>> samples = new ArrayList<Map<String, Long>>();
+                for (BufferListener listener : listeners) {
+                    listener.close();
+                    samples.add(listener.getLatencies());
+                    if (options.isVerbose())
+                        printQueueStats(listener.getFormatter());
+                }
+                latencies.store(samples);
+                if (options.isVerbose())
+                    printCacheStats(factory.getStrings());
             }
         } catch (Exception e) {
             if (options.isFollow() && !(e instanceof RetryConnectionException))
@@ -58,9 +87,48 @@ public class SearchRunner implements Runner {
         }
     }
 
-    private RestListenerHandle handshake(UserOptions options, BufferListener listener) throws IOException {
+    private List<BufferListener> createListeners(UserOptions options) throws Exception {
+        List<String> queries = options.getQueries();
+        if (queries.size() <= 1)
+            return Collections.singletonList(factory.create(options.getFormat(), options.isStats(), options.isMetadata(), options.isProgressive()));
+
+        List<BufferListener> listeners = new ArrayList<BufferListener>();
+        for (int i = 0; i < queries.size(); i++) {
+            console.println(QUERY_TAG, i + 1, queries.get(i));
+            listeners.add(factory.create(options.getFormat(), consoleFor(options.getFormat(), i), options.isStats(), options.isMetadata(), options.isProgressive()));
+        }
+        return listeners;
+    }
+
+    //only text output is tagged, json lines must stay parseable one by one
+    private UserConsole consoleFor(String format, int index) {
+        boolean colored = "colored".equalsIgnoreCase(format);
+        if (!colored && !"plain".equalsIgnoreCase(format))
+            return console;
+        return new TaggedConsole(console, index, String.valueOf(index + 1), colored);
+    }
+
+    //with several queries or servers, handshakes and historic answers share one -t budget;
+    //a single query keeps the whole -t for its historic answer, as it always did
+    private boolean sharesTimeout(UserOptions options) {
+        return options.isFederated() || options.getQueries().size() > 1;
+    }
+
+    private void waitHistoric(UserOptions options, List<BufferListener> listeners, long deadline) {
+        if (!sharesTimeout(options)) {
+            listeners.get(0).waitHistoric(options.getTimeoutInMilliseconds(), options.getLines());
+            return;
+        }
+
+        for (BufferListener listener : listeners)
+            listener.waitHistoric(clock, deadline, options.getLines());
+    }
+
+    private RestListenerHandle handshake(UserOptions options, List<BufferListener> listeners, long deadline) throws Exception {
         long start = clock.currentMillis();
-        RestListenerHandle handle = lognit.search(options.getQuery(), options.getLines(), options.isFollow(), options.isStats(), options.getSpan(), listener);
+        RestListenerHandle handle = options.isFederated() ? federate(options, listeners, deadline) : listeners.size() == 1 ?
+                lognit.search(options.getQuery(), options.getLines(), options.isFollow(), options.isStats(), options.getSpan(), listeners.get(0)) :
+                lognit.search(options.getQueries(), options.getLines(), options.isFollow(), options.isStats(), options.getSpan(), listeners);
         registerRuntime(handle);
 
         if (options.isVerbose())
@@ -68,6 +136,43 @@ public class SearchRunner implements Runner {
         return handle;
     }
 
+    private RestListenerHandle federate(UserOptions options, List<BufferListener> listeners, long deadline) throws Exception {
+        FederatedSearch federated = new FederatedSearch(console, clock);
+        List<String> servers = options.getServers();
+        for (int i = 0; i < servers.size(); i++) {
+            List<RestListener<MessageBag>> sources = new ArrayList<RestListener<MessageBag>>();
+            for (BufferListener listener : listeners)
+                sources.add(listener.newSource(servers.get(i)));
+            federated.start(i == 0 ? lognit : forServer(servers.get(i), options), servers.get(i), options, sources);
+        }
+        try {
+            federated.awaitUntil(deadline);
+        } catch (Exception e) {
+            federated.close();
+            throw e;
+        }
+        return federated;
+    }
+
+    //a password typed interactively stays with the server it was asked for; one given on the command line goes to each listed server
+    private Lognit forServer(String server, UserOptions options) {
+        Lognit other = lognit.forServer(server);
+        if (!options.askPassword())
+            other.authenticate(options.getUser(), options.getPassword());
+        return other;
+    }
+
+    private void printQueueStats(Formatter formatter) {
+        if (!(formatter instanceof AsyncFormatter)) return;
+        AsyncFormatter async = (AsyncFormatter) formatter;
+        console.println(PRINTER_QUEUE, async.getMaxDepth(), async.getCapacity(), async.getStalls(), async.getStalledMillis());
+    }
+
+    private void printCacheStats(StringCache strings) {
+        if (strings == null) return;
+        console.println(STRING_CACHE, strings.getHits(), strings.getMisses(), strings.getHitRate());
+    }
+
     private void registerRuntime(final RestListenerHandle handle) {
         runtime.addShutdownHook(new Thread() {
             @Override
@@ -0,0 +1,163 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonIOException;
+import net.intelie.lognit.cli.http.RestStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SlicedDownload<T> implements DownloadStream<T> {
+    public static final int BUFFERED_BAGS = 8;
+    public static final int MAX_CONNECTIONS = 8;
+    private static final Object END = new Object();
+
+    public interface Source<T> {
+        RestStream<T> open(String span) throws IOException;
+
+        //copies whatever the stream reuses, as bags wait in the buffer while it reads on
+        T detach(T bag);
+
+        long currentHit(T bag);
+
+        long totalHits(T bag);
+    }
+
+    private final Source<T> source;
+    private final List<Slice> slices = new ArrayList<Slice>();
+    private final ExecutorService executor;
+    private int index;
+    private T next;
+
+    public SlicedDownload(List<String> spans, Source<T> source, int buffered) {
+        this.source = source;
+        //slices start in order and are read in order, so the one being read always holds a thread
+        this.executor = Executors.newFixedThreadPool(Math.min(spans.size(), MAX_CONNECTIONS), new ThreadFactoryBuilder()
+                .setNameFormat("lognit-download-%d").setDaemon(true).build());
+        for (String span : spans) {
+            Slice slice = new Slice(span, buffered);
+            slices.add(slice);
+            executor.execute(slice);
+        }
+    }
+
+    public long getCurrentHit() {
+        long sum = 0;
+        for (Slice slice : slices)
+            sum += slice.currentHit;
+        return sum;
+    }
+
+    public long getTotalHits() {
+        long sum = 0;
+        for (Slice slice : slices)
+            sum += slice.totalHits;
+        return sum;
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        long sum = 0;
+        for (Slice slice : slices)
+            sum += slice.stream != null ? slice.stream.getReceivedBytes() : 0;
+        return sum;
+    }
+
+    @Override
+    public long getDecodedBytes() {
+        long sum = 0;
+        for (Slice slice : slices)
+            sum += slice.stream != null ? slice.stream.getDecodedBytes() : 0;
+        return sum;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        while (next == null && index < slices.size()) {
+            Object item = slices.get(index).take();
+            if (item == END)
+                index++;
+            else if (item instanceof RuntimeException)
+                throw (RuntimeException) item;
+            else
+                next = (T) item;
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T bag = next;
+        next = null;
+        return bag;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private class Slice implements Runnable {
+        private final String span;
+        private final BlockingQueue<Object> queue;
+        private volatile long currentHit;
+        private volatile long totalHits;
+        private volatile RestStream<T> stream;
+
+        public Slice(String span, int buffered) {
+            this.span = span;
+            this.queue = new ArrayBlockingQueue<Object>(Math.max(1, buffered));
+        }
+
+        public Object take() {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JsonIOException(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                stream = source.open(span);
+                while (stream.hasNext()) {
+                    T bag = source.detach(stream.next());
+                    currentHit = source.currentHit(bag);
+                    totalHits = source.totalHits(bag);
+                    queue.put(bag);
+                }
+                queue.put(END);
+                stream.close();
+            } catch (InterruptedException e) {
+                //abandoned: leave the connection alone, closing it would read the rest of the response
+            } catch (IOException e) {
+                fail(stream, new JsonIOException(e));
+            } catch (RuntimeException e) {
+                fail(stream, e);
+            }
+        }
+
+        private void fail(RestStream<T> stream, RuntimeException e) {
+            if (stream != null) stream.close();
+            try {
+                queue.put(e);
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.intelie.lognit.cli.runners;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TimeSlices {
+    public static final long MIN_SLICE = 60 * 1000;
+    private static final long RESOLUTION = 1000;
+    private static final Pattern RANGE = Pattern.compile("\\s*(from\\s+)?(.+?)\\s+to\\s+(.+?)\\s*", Pattern.CASE_INSENSITIVE);
+    private static final String[] FORMATS = {"yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "yyyy-MM-dd"};
+
+    //splits an explicit "[from] <start> to <end>" span; anything else (relative spans, no span) is kept whole
+    public static List<String> slice(String span, int count) {
+        if (span == null || count <= 1) return Collections.singletonList(span);
+
+        Matcher matcher = RANGE.matcher(span);
+        if (!matcher.matches()) return Collections.singletonList(span);
+        Date start = parse(matcher.group(2)), end = parse(matcher.group(3));
+        if (start == null || end == null || !start.before(end)) return Collections.singletonList(span);
+
+        long length = end.getTime() - start.getTime();
+        count = (int) Math.max(1, Math.min(count, length / MIN_SLICE));
+        if (count == 1) return Collections.singletonList(span);
+
+        String prefix = matcher.group(1) != null ? matcher.group(1) : "";
+        SimpleDateFormat format = new SimpleDateFormat(FORMATS[0]);
+        List<String> slices = new ArrayList<String>(count);
+        //both ends are inclusive at one second resolution, so each slice stops a second before the next starts
+        for (int i = 0; i < count; i++) {
+            Date from = new Date(boundary(start, length, i, count));
+            Date to = i == count - 1 ? end : new Date(boundary(start, length, i + 1, count) - RESOLUTION);
+            slices.add(prefix + format.format(from) + " to " + format.format(to));
+        }
+        return slices;
+    }
+
+    private static long boundary(Date start, long length, int index, int count) {
+        long time = start.getTime() + length * index / count;
+        return time - time % RESOLUTION;
+    }
+
+    private static Date parse(String text) {
+        for (String pattern : FORMATS) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            format.setLenient(false);
+            ParsePosition position = new ParsePosition(0);
+            Date date = format.parse(text, position);
+            if (date != null && position.getIndex() == text.length())
+                return date;
+        }
+        return null;
+    }
+}
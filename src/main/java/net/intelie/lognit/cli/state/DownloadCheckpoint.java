@@ -0,0 +1,118 @@
+package net.intelie.lognit.cli.state;
+
+import com.google.common.base.Objects;
+
+public class DownloadCheckpoint {
+    private final String query;
+    private final String span;
+    private final String format;
+    private final int lines;
+    private final long written;
+    private final long currentHit;
+    private final long totalHits;
+    private final String lastId;
+    private final String lastDate;
+    private final String lastTime;
+    private final long outputLength;
+
+    public DownloadCheckpoint(String query, String span, String format, int lines, long written, long currentHit, long totalHits,
+                              String lastId, String lastDate, String lastTime) {
+        this(query, span, format, lines, written, currentHit, totalHits, lastId, lastDate, lastTime, 0);
+    }
+
+    public DownloadCheckpoint(String query, String span, String format, int lines, long written, long currentHit, long totalHits,
+                              String lastId, String lastDate, String lastTime, long outputLength) {
+        this.query = query;
+        this.span = span;
+        this.format = format;
+        this.lines = lines;
+        this.written = written;
+        this.currentHit = currentHit;
+        this.totalHits = totalHits;
+        this.lastId = lastId;
+        this.lastDate = lastDate;
+        this.lastTime = lastTime;
+        this.outputLength = outputLength;
+    }
+
+    //the same checkpoint, for output files holding exactly its messages in their first length bytes
+    public DownloadCheckpoint withOutputLength(long length) {
+        return new DownloadCheckpoint(query, span, format, lines, written, currentHit, totalHits, lastId, lastDate, lastTime, length);
+    }
+
+    //a checkpoint only resumes the very same download, as anything else changes what was written
+    public boolean isFor(String query, String span, String format, int lines) {
+        return Objects.equal(this.query, query) &&
+                Objects.equal(this.span, span) &&
+                Objects.equal(this.format, format) &&
+                this.lines == lines;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getSpan() {
+        return span;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getCurrentHit() {
+        return currentHit;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    public String getLastDate() {
+        return lastDate;
+    }
+
+    public String getLastTime() {
+        return lastTime;
+    }
+
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DownloadCheckpoint that = (DownloadCheckpoint) o;
+        return Objects.equal(this.query, that.query) &&
+                Objects.equal(this.span, that.span) &&
+                Objects.equal(this.format, that.format) &&
+                Objects.equal(this.lines, that.lines) &&
+                Objects.equal(this.written, that.written) &&
+                Objects.equal(this.currentHit, that.currentHit) &&
+                Objects.equal(this.totalHits, that.totalHits) &&
+                Objects.equal(this.lastId, that.lastId) &&
+                Objects.equal(this.lastDate, that.lastDate) &&
+                Objects.equal(this.lastTime, that.lastTime) &&
+                Objects.equal(this.outputLength, that.outputLength);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(query, span, format, lines, written, currentHit, totalHits, lastId, lastDate, lastTime, outputLength);
+    }
+}
@@ -0,0 +1,101 @@
+package net.intelie.lognit.cli.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.hash.Hashing;
+
+import java.io.*;
+import java.util.Properties;
+
+public class DownloadCheckpointStorage {
+    private final File file;
+
+    public DownloadCheckpointStorage(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    //downloads written to a file keep their checkpoint beside it
+    public DownloadCheckpointStorage nextTo(File output) {
+        return new DownloadCheckpointStorage(new File(output.getPath() + ".checkpoint"));
+    }
+
+    //downloads to the console get one checkpoint each, so starting or finishing one leaves the others alone
+    public DownloadCheckpointStorage forDownload(String server, String query, String span, String format, int lines) {
+        String key = Joiner.on('\n').useForNull("").join(server, query, span, format, lines);
+        return new DownloadCheckpointStorage(new File(file.getPath() + "." + Hashing.md5().hashString(key, Charsets.UTF_8).toString().substring(0, 16)));
+    }
+
+    public DownloadCheckpoint load() {
+        try {
+            if (!file.exists()) return null;
+            Properties props = new Properties();
+            Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            try {
+                props.load(reader);
+            } finally {
+                reader.close();
+            }
+            return new DownloadCheckpoint(
+                    props.getProperty("query"),
+                    props.getProperty("span"),
+                    props.getProperty("format"),
+                    Integer.parseInt(props.getProperty("lines")),
+                    Long.parseLong(props.getProperty("written")),
+                    Long.parseLong(props.getProperty("current_hit")),
+                    Long.parseLong(props.getProperty("total_hits")),
+                    props.getProperty("last_id"),
+                    props.getProperty("last_date"),
+                    props.getProperty("last_time"),
+                    Long.parseLong(props.getProperty("output_length", "0")));
+        } catch (Exception ex) {
+            //ex.printStackTrace();
+            return null;
+        }
+    }
+
+    public synchronized void store(DownloadCheckpoint checkpoint) {
+        Properties props = new Properties();
+        put(props, "query", checkpoint.getQuery());
+        put(props, "span", checkpoint.getSpan());
+        put(props, "format", checkpoint.getFormat());
+        put(props, "lines", String.valueOf(checkpoint.getLines()));
+        put(props, "written", String.valueOf(checkpoint.getWritten()));
+        put(props, "current_hit", String.valueOf(checkpoint.getCurrentHit()));
+        put(props, "total_hits", String.valueOf(checkpoint.getTotalHits()));
+        put(props, "last_id", checkpoint.getLastId());
+        put(props, "last_date", checkpoint.getLastDate());
+        put(props, "last_time", checkpoint.getLastTime());
+        put(props, "output_length", String.valueOf(checkpoint.getOutputLength()));
+
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            //written aside and renamed, so a crash mid-write never leaves a torn checkpoint behind
+            File temp = new File(file.getPath() + ".tmp");
+            Writer writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+            try {
+                props.store(writer, null);
+            } finally {
+                writer.close();
+            }
+            if (!temp.renameTo(file)) {
+                file.delete();
+                temp.renameTo(file);
+            }
+        } catch (Exception ex) {
+            //ex.printStackTrace();
+        }
+    }
+
+    public synchronized void clear() {
+        file.delete();
+    }
+
+    private static void put(Properties props, String key, String value) {
+        if (value != null)
+            props.setProperty(key, value);
+    }
+}
@@ -0,0 +1,102 @@
+package net.intelie.lognit.cli.state;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LatencyHistory {
+    public static final int MAX_SAMPLES = 200;
+
+    private final File file;
+
+    public LatencyHistory(File file) {
+        this.file = file;
+    }
+
+    public Map<String, List<Long>> load() {
+        Map<String, List<Long>> samples = new LinkedHashMap<String, List<Long>>();
+        try {
+            if (!file.exists()) return samples;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.lastIndexOf('\t');
+                    if (tab < 0) continue;
+                    try {
+                        add(samples, line.substring(0, tab), Long.parseLong(line.substring(tab + 1).trim()));
+                    } catch (NumberFormatException ex) {
+                        //a broken line must not cost the ones after it, as store rewrites the file from what was loaded
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (Exception ex) {
+            //ex.printStackTrace();
+        }
+        return samples;
+    }
+
+    public void store(Map<String, Long> latencies) {
+        store(Collections.singletonList(latencies));
+    }
+
+    //all the samples of a search go in one rewrite, under a lock so concurrent nit processes keep each other's
+    public synchronized void store(List<Map<String, Long>> latencies) {
+        boolean empty = true;
+        for (Map<String, Long> map : latencies)
+            empty &= map.isEmpty();
+        if (empty) return;
+
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            RandomAccessFile lock = new RandomAccessFile(new File(file.getPath() + ".lock"), "rw");
+            try {
+                lock.getChannel().lock();
+                write(merge(load(), latencies));
+            } finally {
+                lock.close();
+            }
+        } catch (Exception ex) {
+            //ex.printStackTrace();
+        }
+    }
+
+    private Map<String, List<Long>> merge(Map<String, List<Long>> samples, List<Map<String, Long>> latencies) {
+        for (Map<String, Long> map : latencies)
+            for (Map.Entry<String, Long> entry : map.entrySet())
+                if (entry.getKey() != null && entry.getValue() != null)
+                    add(samples, entry.getKey(), entry.getValue());
+        return samples;
+    }
+
+    //written aside and renamed, so a reader never sees a half-written file
+    private void write(Map<String, List<Long>> samples) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+        try {
+            for (Map.Entry<String, List<Long>> entry : samples.entrySet()) {
+                List<Long> times = entry.getValue();
+                for (Long time : times.subList(Math.max(0, times.size() - MAX_SAMPLES), times.size()))
+                    writer.print(entry.getKey() + "\t" + time + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+        if (!temp.renameTo(file)) {
+            file.delete();
+            temp.renameTo(file);
+        }
+    }
+
+    private void add(Map<String, List<Long>> samples, String node, long time) {
+        List<Long> times = samples.get(node);
+        if (times == null)
+            samples.put(node, times = new ArrayList<Long>());
+        times.add(time);
+    }
+}
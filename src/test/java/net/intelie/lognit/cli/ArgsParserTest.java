@@ -21,6 +21,19 @@ public class ArgsParserTest {
         assertThat(args).isEqualTo(new ArgsParser("-a", "abc", "--ew", "234"));
     }
 
+    @Test
+    public void willGetAllRepeatedValues() throws Exception {
+        ArgsParser args = new ArgsParser("-q", "abc", "-a", "-q", "def", "--query", "ghi");
+        assertThat(args.options(String.class, "-q", "--query")).containsExactly("abc", "def", "ghi");
+        assertThat(args).isEqualTo(new ArgsParser("-a"));
+    }
+
+    @Test
+    public void whenRepeatedValuesDontExist() throws Exception {
+        ArgsParser args = new ArgsParser("-a");
+        assertThat(args.options(String.class, "-q")).isEmpty();
+    }
+
     @Test
     public void willGetText() throws Exception {
         ArgsParser args = new ArgsParser("-a", "abc", "-e", "123");
@@ -0,0 +1,65 @@
+package net.intelie.lognit.cli;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaggedConsoleTest {
+    private UserConsole console;
+
+    @Before
+    public void setUp() throws Exception {
+        console = mock(UserConsole.class);
+    }
+
+    @Test
+    public void willPrefixOutputWithTag() {
+        TaggedConsole tagged = new TaggedConsole(console, 0, "1", true);
+        tagged.printOut("%s-%d", "abc", 42);
+        verify(console).printOut("%s %s", "[1]", "abc-42");
+    }
+
+    @Test
+    public void willNotTagEncodedOutput() {
+        TaggedConsole tagged = new TaggedConsole(console, 0, "1", true);
+        char[] chars = "[abc]".toCharArray();
+        tagged.printOut(chars, 1, 3);
+        verify(console).printOut(chars, 1, 3);
+    }
+
+    @Test
+    public void willNotFormatWithoutArguments() {
+        TaggedConsole tagged = new TaggedConsole(console, 0, "1", true);
+        tagged.println("100%");
+        verify(console).println("%s %s", "[1]", "100%");
+    }
+
+    @Test
+    public void willColorTheTagOnTTY() {
+        when(console.isTTY()).thenReturn(true);
+        TaggedConsole tagged = new TaggedConsole(console, 1, "2", true);
+        tagged.printOut("abc");
+        verify(console).printOut("%s %s", "\u001b[33m[2]\u001b[0m", "abc");
+    }
+
+    @Test
+    public void willNotColorTheTagWhenPlain() {
+        when(console.isTTY()).thenReturn(true);
+        TaggedConsole tagged = new TaggedConsole(console, 1, "2", false);
+        tagged.printOut("abc");
+        verify(console).printOut("%s %s", "[2]", "abc");
+    }
+
+    @Test
+    public void willDelegateEverythingElse() {
+        when(console.isTTY()).thenReturn(true);
+        TaggedConsole tagged = new TaggedConsole(console, 0, "1", true);
+        assertThat(tagged.isTTY()).isTrue();
+        tagged.printStill("abc");
+        verify(console).printStill("abc");
+    }
+}
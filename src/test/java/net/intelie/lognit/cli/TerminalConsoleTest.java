@@ -3,7 +3,6 @@ package net.intelie.lognit.cli;
 import jline.ConsoleOperations;
 import jline.ConsoleReader;
 import jline.CursorBuffer;
-import net.intelie.lognit.cli.UserConsole;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -13,7 +12,7 @@ import java.io.*;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
-public class UserConsoleTest {
+public class TerminalConsoleTest {
 
     private ByteArrayOutputStream err;
     private ByteArrayOutputStream out;
@@ -28,16 +27,24 @@ public class UserConsoleTest {
 
     @Test
     public void willPrintMessageToStdout() throws Exception {
-        UserConsole input = new UserConsole(console, new PrintWriter(out));
+        UserConsole input = new TerminalConsole(console, new PrintWriter(out));
         input.printOut("abc%d", 1);
 
         assertThat(out.toString()).isEqualTo(safe("abc1\n"));
     }
 
+    @Test
+    public void willPrintCharsToStdout() throws Exception {
+        UserConsole input = new TerminalConsole(console, new PrintWriter(out));
+        input.printOut("xabc%dx".toCharArray(), 1, 5);
+
+        assertThat(out.toString()).isEqualTo(safe("abc%d\n"));
+    }
+
 
     @Test
     public void willPrintToStderr() throws Exception {
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
         input.println("abc%d", 1);
 
         assertThat(err.toString()).isEqualTo(safe("abc1\n"));
@@ -48,7 +55,7 @@ public class UserConsoleTest {
         CursorBuffer buffer = mock(CursorBuffer.class);
         when(console.getCursorBuffer()).thenReturn(buffer);
 
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
         input.printStill("abc%d", 1);
         
         verify(buffer).clearBuffer();
@@ -59,7 +66,7 @@ public class UserConsoleTest {
 
     @Test
     public void willFixUnfinishedLines() throws Exception {
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
 
         input.fixCursor();
         assertThat(err.toString()).isEqualTo(safe(""));
@@ -80,7 +87,7 @@ public class UserConsoleTest {
     @Test
     public void willRegisterFixAtRuntime() throws Exception {
         Runtime runtime = mock(Runtime.class);
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
         input.registerFix(runtime);
 
         input.printStill("abc");
@@ -95,7 +102,7 @@ public class UserConsoleTest {
     @Test
     public void willReadCharFromStdin() throws Exception {
         console.setInput(mockIn("abdq"));
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
         assertThat(input.waitChar('q', 'd')).isEqualTo('d');
         assertThat(input.waitChar('q')).isEqualTo('q');
     }
@@ -104,7 +111,7 @@ public class UserConsoleTest {
     @Test
     public void willReadFromStdin() throws Exception {
         console.setInput(mockIn("abc\nqwe\n"));
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
         assertThat(input.readLine("field1: ")).isEqualTo("abc");
         assertThat(input.readLine("field2: ")).isEqualTo("qwe");
         verify(console).readLine("field1: ");
@@ -116,7 +123,7 @@ public class UserConsoleTest {
     @Test
     public void willReadPasswordFromStdin() throws Exception {
         console.setInput(mockIn("abc\nqwe\n"));
-        UserConsole input = new UserConsole(console, null);
+        UserConsole input = new TerminalConsole(console, null);
         assertThat(input.readPassword("field1: ")).isEqualTo("abc");
         assertThat(input.readPassword("field2: ")).isEqualTo("qwe");
         verify(console).readLine("field1: ", '\0');
@@ -130,7 +137,7 @@ public class UserConsoleTest {
         OutputStreamWriter out = mock(OutputStreamWriter.class);
         when(in.read()).thenThrow(new IOException());
 
-        UserConsole input = new UserConsole(new ConsoleReader(in, out), null);
+        UserConsole input = new TerminalConsole(new ConsoleReader(in, out), null);
         assertThat(input.readPassword("abc")).isEqualTo("");
         assertThat(input.readLine("qwe")).isEqualTo("");
         assertThat(input.waitChar('a', 'b')).isEqualTo('\0');
@@ -141,7 +148,7 @@ public class UserConsoleTest {
         OutputStreamWriter out = mock(OutputStreamWriter.class);
         doThrow(new IOException()).when(out).write(any(char[].class));
 
-        UserConsole input = new UserConsole(new ConsoleReader(null, out), null);
+        UserConsole input = new TerminalConsole(new ConsoleReader(null, out), null);
         input.println("abc");
         input.printStill("abc");
     }
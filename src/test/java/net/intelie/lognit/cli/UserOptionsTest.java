@@ -38,6 +38,13 @@ public class UserOptionsTest {
         assertThat(opts.isMetadata()).isEqualTo(false);
         assertThat(opts.isNoCheckCertificate()).isEqualTo(false);
         assertThat(opts.getSpan()).isEqualTo(null);
+        assertThat(opts.isProgressive()).isEqualTo(false);
+        assertThat(opts.getQueries()).isEmpty();
+        assertThat(opts.getServers()).isEmpty();
+        assertThat(opts.isFederated()).isFalse();
+        assertThat(opts.isNodesReport()).isFalse();
+        assertThat(opts.getSlices()).isEqualTo(1);
+        assertThat(opts.getOutputFile()).isNull();
     }
 
     @Test
@@ -52,6 +59,32 @@ public class UserOptionsTest {
         assertThat(opts.realtimeOnly()).isEqualTo(new UserOptions("abc", "-n", "0"));
     }
 
+    @Test
+    public void canHaveManyQueries() {
+        UserOptions opts = new UserOptions("abc", "-q", "def", "--query", "ghi", "-n", "5");
+        assertThat(opts.getQuery()).isEqualTo("abc");
+        assertThat(opts.getQueries()).containsExactly("abc", "def", "ghi");
+        assertThat(opts.realtimeOnly().getQueries()).containsExactly("abc", "def", "ghi");
+    }
+
+    @Test
+    public void canHaveOnlyRepeatedQueries() {
+        UserOptions opts = new UserOptions("-q", "def", "-q", "ghi");
+        assertThat(opts.hasQuery()).isTrue();
+        assertThat(opts.getQuery()).isEqualTo("def");
+        assertThat(opts.getQueries()).containsExactly("def", "ghi");
+    }
+
+    @Test
+    public void canHaveManyServers() {
+        UserOptions opts = new UserOptions("-s", "A", "abc", "--server", "B", "-n", "5");
+        assertThat(opts.getServer()).isEqualTo("A");
+        assertThat(opts.getServers()).containsExactly("A", "B");
+        assertThat(opts.isFederated()).isTrue();
+        assertThat(opts.getQuery()).isEqualTo("abc");
+        assertThat(opts.realtimeOnly().getServers()).containsExactly("A", "B");
+    }
+
     @Test
     public void defaultForLinesIs100WhenDownload() {
         UserOptions opts = new UserOptions("--download");
@@ -61,7 +94,7 @@ public class UserOptionsTest {
 
     @Test
     public void canConstructWithNonDefaults() {
-        UserOptions opts = new UserOptions("--purge", "--unpurge", "--pause", "--resume", "-d", "--all", "--cancel-purges", "-s", "A", "-u", "B", "-p", "C", "D", "-n", "43", "-t", "42", "-f", "-?", "-i", "-o", "plain", "-c", "-v", "--force-login", "-b", "--meta", "--no-check-certificate", "--span", "what");
+        UserOptions opts = new UserOptions("--purge", "--unpurge", "--pause", "--resume", "-d", "--all", "--cancel-purges", "-s", "A", "-u", "B", "-p", "C", "D", "-n", "43", "-t", "42", "-f", "-?", "-i", "-o", "plain", "-c", "-v", "--force-login", "-b", "--meta", "--no-check-certificate", "--span", "what", "--nodes-report", "--slices", "4", "-O", "out.gz");
         assertThat(opts.getServer()).isEqualTo("A");
         assertThat(opts.hasServer()).isEqualTo(true);
         assertThat(opts.getUser()).isEqualTo("B");
@@ -89,6 +122,14 @@ public class UserOptionsTest {
         assertThat(opts.isMetadata()).isEqualTo(true);
         assertThat(opts.isNoCheckCertificate()).isEqualTo(true);
         assertThat(opts.getSpan()).isEqualTo("what");
+        assertThat(opts.isNodesReport()).isEqualTo(true);
+        assertThat(opts.getSlices()).isEqualTo(4);
+        assertThat(opts.getOutputFile()).isEqualTo("out.gz");
+    }
+
+    @Test
+    public void slicesAreAtLeastOne() {
+        assertThat(new UserOptions("--slices", "0").getSlices()).isEqualTo(1);
     }
 
     @Test
@@ -111,8 +152,8 @@ public class UserOptionsTest {
 
     @Test
     public void differentOrderShouldDoTheSame() {
-        UserOptions opts1 = new UserOptions("-s", "A", "--purge", "--force-login", "-d", "--all", "--cancel-purges", "--unpurge", "-u", "B", "-p", "C", "D", "--no-check-certificate","-n", "43", "-t", "42", "-f", "-?", "-i", "-o", "-c", "-b", "-v", "--meta", "--span", "what");
-        UserOptions opts2 = new UserOptions("--unpurge", "--force-login", "--cancel-purges", "--all", "-i", "-d", "-s", "A", "--purge", "-v", "-u", "B", "-p", "C", "D", "-n", "43", "--no-check-certificate", "-t", "42", "-f", "-?", "-o", "-c", "--bars", "--metadata", "--span", "what");
+        UserOptions opts1 = new UserOptions("-s", "A", "--purge", "--force-login", "-d", "--all", "--cancel-purges", "--unpurge", "-u", "B", "-p", "C", "D", "--no-check-certificate","-n", "43", "-t", "42", "-f", "-?", "-i", "-o", "-c", "-b", "-v", "--meta", "--span", "what", "--progressive", "-q", "E", "-s", "F", "--nodes-report", "--slices", "4", "-O", "out.gz");
+        UserOptions opts2 = new UserOptions("--unpurge", "--force-login", "--cancel-purges", "--all", "-i", "-d", "-s", "A", "--purge", "-v", "-u", "B", "-p", "C", "D", "-n", "43", "--no-check-certificate", "-t", "42", "-f", "-?", "-o", "-c", "--bars", "--progressive", "--query", "E", "--metadata", "--span", "what", "--slices", "4", "--output-file", "out.gz", "--server", "F", "--nodes-report");
         assertThat(opts1).isEqualTo(opts2);
         assertThat(opts1.hashCode()).isEqualTo(opts2.hashCode());
     }
@@ -121,7 +162,7 @@ public class UserOptionsTest {
     public void whenAreDifferent() {
         String[] original = {"--all", "--pause", "--resume", "--cancel-purges", "--unpurge", "--purge",
                 "-s", "A", "-u", "B", "-p", "C", "D", "-n", "43", "-t", "42", "-f", "-o", "plain", "-?",
-                "-i", "-c", "-v", "-d", "--force-login", "--bars", "--metadata", "--no-check-certificate", "--span", "what"};
+                "-i", "-c", "-v", "-d", "--force-login", "--bars", "--metadata", "--no-check-certificate", "--span", "what", "--progressive", "-q", "E", "-s", "F", "--nodes-report", "--slices", "4", "-O", "out.gz"};
         UserOptions opts1 = new UserOptions(original);
 
         for (int i = 0; i < original.length; i++) {
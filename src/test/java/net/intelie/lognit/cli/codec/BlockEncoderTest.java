@@ -0,0 +1,80 @@
+package net.intelie.lognit.cli.codec;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BlockEncoderTest {
+    private final BlockEncoder encoder = new BlockEncoder(4);
+
+    @Test
+    public void writesSmallVarIntsInOneByte() throws Exception {
+        encoder.writeVarInt(0);
+        encoder.writeVarInt(127);
+        assertThat(encoder.length()).isEqualTo(2);
+        encoder.writeVarInt(128);
+        assertThat(encoder.length()).isEqualTo(4);
+    }
+
+    @Test
+    public void roundTripsVarLongsAndSignedVarLongs() throws Exception {
+        long[] values = {0, 1, -1, 63, -64, 64, 127, 128, 16383, 16384, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            encoder.writeVarLong(value);
+            encoder.writeSignedVarLong(value);
+            encoder.writeLong(value);
+        }
+
+        BlockDecoder decoder = decoder();
+        for (long value : values) {
+            assertThat(decoder.readVarLong()).isEqualTo(value);
+            assertThat(decoder.readSignedVarLong()).isEqualTo(value);
+            assertThat(decoder.readLong()).isEqualTo(value);
+        }
+        assertThat(decoder.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void writesSmallNegativesCompactlyWhenSigned() throws Exception {
+        encoder.writeSignedVarLong(-1);
+        encoder.writeSignedVarLong(-64);
+        assertThat(encoder.length()).isEqualTo(2);
+    }
+
+    @Test
+    public void roundTripsStringsIncludingNullAndUnicode() throws Exception {
+        String[] values = {null, "", "abc", "ação", "日本", "😀 end"};
+        for (String value : values)
+            encoder.writeString(value);
+
+        BlockDecoder decoder = decoder();
+        for (String value : values)
+            assertThat(decoder.readString()).isEqualTo(value);
+        assertThat(decoder.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void growsAndResets() throws Exception {
+        for (int i = 0; i < 1000; i++)
+            encoder.writeByte(i);
+        assertThat(encoder.length()).isEqualTo(1000);
+        encoder.reset();
+        assertThat(encoder.length()).isEqualTo(0);
+    }
+
+    @Test(expected = CorruptRecordException.class)
+    public void rejectsStringsRunningPastTheBlock() throws Exception {
+        encoder.writeString("abcdef");
+        new BlockDecoder().reset(encoder.buffer(), 0, encoder.length() - 1).readString();
+    }
+
+    @Test(expected = CorruptRecordException.class)
+    public void rejectsTruncatedVarInts() throws Exception {
+        encoder.writeVarInt(300);
+        new BlockDecoder().reset(encoder.buffer(), 0, 1).readVarInt();
+    }
+
+    private BlockDecoder decoder() {
+        return new BlockDecoder().reset(encoder.buffer(), 0, encoder.length());
+    }
+}
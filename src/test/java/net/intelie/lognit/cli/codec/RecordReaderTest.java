@@ -0,0 +1,182 @@
+package net.intelie.lognit.cli.codec;
+
+import com.google.gson.Gson;
+import net.intelie.lognit.cli.json.Jsonizer;
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.FreqPoint;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.SearchStats;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RecordReaderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void roundTripsMessages() throws Exception {
+        Map<String, List<String>> metadata = new LinkedHashMap<String, List<String>>();
+        metadata.put("pri", Arrays.asList("1", null));
+        metadata.put("empty", new ArrayList<String>());
+        metadata.put("none", null);
+        List<Object> records = Arrays.<Object>asList(
+                new Message("A", "host", "20120610", "101010", "user", "INFO", "app", "ação \"quoted\"", metadata),
+                new Message("B"),
+                new Message(null, "host", null, null, null, "INFO", null, "", null));
+
+        assertRoundTrips(records, 64 * 1024);
+    }
+
+    @Test
+    public void roundTripsAggregatedItems() throws Exception {
+        AggregatedItem item = new AggregatedItem();
+        item.put("count", 123.0);
+        item.put("avg", 0.1234567);
+        item.put("big", new BigDecimal(new BigInteger("123456789012345678901234567890"), 3));
+        item.put("int", 42);
+        item.put("long", -42L);
+        item.put("name", "x");
+        item.put("flag", true);
+        item.put("off", false);
+        item.put("nothing", null);
+        item.put("list", Arrays.<Object>asList(1.5, "a", null, Arrays.asList(true)));
+        Map<String, Object> nested = new LinkedHashMap<String, Object>();
+        nested.put("k", "v");
+        item.put("map", nested);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordWriter writer = new RecordWriter(out);
+        writer.write(item);
+        writer.close();
+
+        AggregatedItem read = (AggregatedItem) new RecordReader(new ByteArrayInputStream(out.toByteArray())).read();
+        assertThat(read).isEqualTo(item);
+        assertThat(new ArrayList<String>(read.keySet())).isEqualTo(new ArrayList<String>(item.keySet()));
+    }
+
+    @Test
+    public void roundTripsDecodedSearchResultsAcrossManyBlocks() throws Exception {
+        StringBuilder json = new StringBuilder("{items:[");
+        for (int i = 0; i < 500; i++)
+            json.append(i > 0 ? "," : "").append("{id:'").append(i).append("', host:'h").append(i % 7)
+                    .append("', app:'a', severity:'INFO', message:'line ").append(i).append("', metadata:{pri:['").append(i % 3).append("']}}");
+        MessageBag bag = new Jsonizer().from(json.append("]}").toString(), MessageBag.class);
+
+        assertRoundTrips(new ArrayList<Object>(bag.getItems()), 512);
+    }
+
+    @Test
+    public void roundTripsBags() throws Exception {
+        AggregatedItem item = new AggregatedItem();
+        item.put("count", 12.0);
+        Map<String, List<FreqPoint<String>>> fields = new LinkedHashMap<String, List<FreqPoint<String>>>();
+        fields.put("host", Arrays.asList(new FreqPoint<String>("h1", 10), new FreqPoint<String>("h2", 2)));
+        SearchStats stats = new SearchStats(Arrays.asList(new FreqPoint<Long>(1000L, 3)), Arrays.asList(new FreqPoint<Long>(-1L, 1)), fields);
+        MessageBag full = new MessageBag(Arrays.asList(new Message("A", "host", null, null, null, null, null, "text", null), new Message("B")),
+                stats, new Aggregated(item), "node", 123L, "msg", true, false, 3, 5000000000L);
+        MessageBag empty = new MessageBag(null, null, null, null, null, null, false, true, null, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordWriter writer = new RecordWriter(out);
+        writer.write(full);
+        writer.write(empty);
+        writer.close();
+
+        RecordReader reader = new RecordReader(new ByteArrayInputStream(out.toByteArray()));
+        MessageBag read = (MessageBag) reader.read();
+        assertThat(gson.toJson(read)).isEqualTo(gson.toJson(full));
+        assertThat(read.getStats()).isEqualTo(stats);
+        assertThat(gson.toJson(reader.read())).isEqualTo(gson.toJson(empty));
+        assertThat(reader.read()).isNull();
+    }
+
+    @Test
+    public void sizeCountsTheBlockStillBeingFilled() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordWriter writer = new RecordWriter(out);
+        long initial = writer.getSize();
+        writer.write(new Message("A"));
+
+        assertThat(writer.getSize()).isGreaterThan(initial);
+        writer.flush();
+        assertThat(writer.getSize()).isEqualTo(out.size());
+    }
+
+    @Test
+    public void sharesDictionaryStringsBetweenRecords() throws Exception {
+        List<Object> read = roundTrip(Arrays.<Object>asList(
+                new Message("A", "host", null, null, null, null, null, null, null),
+                new Message("B", "host", null, null, null, null, null, null, null)), 1024);
+
+        assertThat(((Message) read.get(1)).getHost()).isSameAs(((Message) read.get(0)).getHost());
+    }
+
+    @Test
+    public void returnsNullForAnEmptyFile() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RecordWriter(out).close();
+
+        assertThat(new RecordReader(new ByteArrayInputStream(out.toByteArray())).read()).isNull();
+    }
+
+    @Test(expected = CorruptRecordException.class)
+    public void rejectsOtherFiles() throws Exception {
+        new RecordReader(new ByteArrayInputStream("{items:[]}".getBytes()));
+    }
+
+    @Test(expected = CorruptRecordException.class)
+    public void detectsCorruptedBlocks() throws Exception {
+        byte[] bytes = write(Arrays.<Object>asList(new Message("A", "host", null, null, null, null, null, "some text", null)), 1024);
+        bytes[bytes.length - 8] ^= 1;
+
+        new RecordReader(new ByteArrayInputStream(bytes)).read();
+    }
+
+    @Test(expected = EOFException.class)
+    public void detectsTruncatedFiles() throws Exception {
+        byte[] bytes = write(Arrays.<Object>asList(new Message("A", "host", null, null, null, null, null, "some text", null)), 1024);
+
+        new RecordReader(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2))).read();
+    }
+
+    private void assertRoundTrips(List<Object> records, int blockSize) throws Exception {
+        List<Object> read = roundTrip(records, blockSize);
+        assertThat(read).hasSize(records.size());
+        for (int i = 0; i < records.size(); i++)
+            assertThat(gson.toJson(read.get(i))).isEqualTo(gson.toJson(records.get(i)));
+    }
+
+    private List<Object> roundTrip(List<Object> records, int blockSize) throws Exception {
+        RecordReader reader = new RecordReader(new ByteArrayInputStream(write(records, blockSize)));
+        List<Object> read = new ArrayList<Object>();
+        Object record;
+        while ((record = reader.read()) != null)
+            read.add(record);
+        reader.close();
+        return read;
+    }
+
+    private byte[] write(List<Object> records, int blockSize) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordWriter writer = new RecordWriter(out, blockSize);
+        for (Object record : records) {
+            if (record instanceof Message) writer.write((Message) record);
+            else writer.write((AggregatedItem) record);
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package net.intelie.lognit.cli.codec;
+
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.Message;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RecordWriterTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    public void writesTheHeaderEvenWithoutRecords() throws Exception {
+        new RecordWriter(out).close();
+        assertThat(new String(out.toByteArray(), "ISO-8859-1")).isEqualTo("LGNB\u0001");
+    }
+
+    @Test
+    public void writesRepeatedSharedValuesOnlyOnce() throws Exception {
+        RecordWriter writer = new RecordWriter(out);
+        writer.write(message("1"));
+        writer.flush();
+        int first = out.size();
+        writer.write(message("2"));
+        writer.close();
+
+        String written = new String(out.toByteArray(), "ISO-8859-1");
+        assertThat(written.indexOf("some.host.example.com")).isEqualTo(written.lastIndexOf("some.host.example.com"));
+        assertThat(out.size() - first).isLessThan(first / 2);
+    }
+
+    @Test
+    public void flushesFullBlocksAsItGoes() throws Exception {
+        RecordWriter writer = new RecordWriter(out, 64);
+        writer.write(message("1"));
+        assertThat(out.size()).isGreaterThan(5);
+        writer.close();
+    }
+
+    @Test
+    public void rejectsUnencodableValuesWithoutCorruptingTheFile() throws Exception {
+        AggregatedItem item = new AggregatedItem();
+        item.put("bad", new Object());
+
+        RecordWriter writer = new RecordWriter(out);
+        try {
+            writer.write(item);
+        } catch (IllegalArgumentException e) {
+            writer.write(message("1"));
+        }
+        writer.close();
+
+        RecordReader reader = new RecordReader(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(((Message) reader.read()).getId()).isEqualTo("1");
+        assertThat(reader.read()).isNull();
+    }
+
+    private Message message(String id) {
+        return new Message(id, "some.host.example.com", "20120610", "101010", "daemon", "INFO", "application-name", "x", null);
+    }
+}
@@ -0,0 +1,192 @@
+package net.intelie.lognit.cli.formatters;
+
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.SearchStats;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AsyncFormatterTest {
+    private final UserConsole console = mock(UserConsole.class);
+
+    @Test(timeout = 1000)
+    public void willPrintEverythingInOrderBeforeClosing() {
+        Recorder recorder = new Recorder(null);
+        AsyncFormatter async = new AsyncFormatter(recorder, console);
+        Aggregated aggregated = new Aggregated();
+        SearchStats stats = new SearchStats();
+
+        async.printStatus("status %s", "A");
+        async.print(new Message("B"), true);
+        async.print(aggregated);
+        async.print(stats);
+        async.close();
+
+        assertThat(recorder.printed).containsExactly("status %s", new Message("B"), aggregated, stats);
+    }
+
+    @Test(timeout = 1000)
+    public void willCountStallsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Recorder recorder = new Recorder(latch);
+        AsyncFormatter async = new AsyncFormatter(recorder, console, 1, 10);
+
+        async.print(new Message("A"), false);
+        while (recorder.printed.isEmpty()) Thread.sleep(1);
+        async.print(new Message("B"), false);
+        Thread releaser = release(latch);
+        async.print(new Message("C"), false);
+
+        assertThat(async.getStalls()).isEqualTo(1);
+        assertThat(async.getMaxDepth()).isEqualTo(1);
+        assertThat(async.getCapacity()).isEqualTo(1);
+
+        async.close();
+        releaser.join();
+        assertThat(recorder.printed).containsExactly(new Message("A"), new Message("B"), new Message("C"));
+    }
+
+    @Test(timeout = 1000)
+    public void afterClosingWillPrintSynchronously() {
+        Recorder recorder = new Recorder(null);
+        AsyncFormatter async = new AsyncFormatter(recorder, console);
+        async.close();
+        async.close();
+
+        async.print(new Message("A"), false);
+
+        assertThat(recorder.printed).containsExactly(new Message("A"));
+    }
+
+    @Test(timeout = 1000)
+    public void aStalledProducerDoesNotHoldBackTheOthers() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Recorder recorder = new Recorder(latch);
+        final AsyncFormatter async = new AsyncFormatter(recorder, console, 1, 10);
+
+        async.print(new Message("A"), false);
+        while (recorder.printed.isEmpty()) Thread.sleep(1);
+        async.print(new Message("B"), false);
+        Thread stalled = new Thread() {
+            @Override
+            public void run() {
+                async.print(new Message("C"), false);
+            }
+        };
+        stalled.start();
+        while (stalled.getState() != Thread.State.WAITING) Thread.sleep(1);
+
+        assertThat(async.getMaxDepth()).isEqualTo(1);
+
+        latch.countDown();
+        stalled.join();
+        //close may wait for room as well, so the stall is counted before it
+        assertThat(async.getStalls()).isEqualTo(1);
+        async.close();
+        assertThat(recorder.printed).containsExactly(new Message("A"), new Message("B"), new Message("C"));
+    }
+
+    @Test(timeout = 1000)
+    public void aFailureIsReportedAndStopsPrinting() throws Exception {
+        final RuntimeException failure = new IllegalStateException("broken pipe");
+        Recorder recorder = new Recorder(null) {
+            @Override
+            public void print(Message message, boolean withMetadata) {
+                if (message.getId().equals("B")) throw failure;
+                super.print(message, withMetadata);
+            }
+        };
+        AsyncFormatter async = new AsyncFormatter(recorder, console);
+
+        async.print(new Message("A"), false);
+        async.print(new Message("B"), false);
+        async.print(new Message("C"), false);
+        async.close();
+
+        assertThat(recorder.printed).containsExactly(new Message("A"));
+        assertThat(async.getFailure()).isSameAs(failure);
+        verify(console).println(AsyncFormatter.PRINT_FAILED, "broken pipe");
+    }
+
+    @Test(timeout = 1000)
+    public void anErrorInTheDelegateDoesNotLeaveProducersWaiting() throws Exception {
+        final Error failure = new AssertionError("bad formatter");
+        Recorder recorder = new Recorder(null) {
+            @Override
+            public void print(Message message, boolean withMetadata) {
+                if (message.getId().equals("A")) throw failure;
+                super.print(message, withMetadata);
+            }
+        };
+        AsyncFormatter async = new AsyncFormatter(recorder, console, 1, 1);
+
+        for (int i = 0; i < 100; i++)
+            async.print(new Message(i == 0 ? "A" : "B" + i), false);
+        async.close();
+
+        assertThat(recorder.printed).isEmpty();
+        assertThat(async.getFailure()).isSameAs(failure);
+        verify(console).println(AsyncFormatter.PRINT_FAILED, "bad formatter");
+    }
+
+    private Thread release(final CountDownLatch latch) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                }
+                latch.countDown();
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    private static class Recorder implements Formatter {
+        private final List<Object> printed = Collections.synchronizedList(new ArrayList<Object>());
+        private final CountDownLatch latch;
+
+        private Recorder(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void printStatus(String format, Object... args) {
+            record(format);
+        }
+
+        @Override
+        public void print(Message message, boolean withMetadata) {
+            record(message);
+        }
+
+        @Override
+        public void print(Aggregated aggregated) {
+            record(aggregated);
+        }
+
+        @Override
+        public void print(SearchStats stats) {
+            record(stats);
+        }
+
+        private void record(Object value) {
+            printed.add(value);
+            try {
+                if (latch != null) latch.await();
+            } catch (InterruptedException e) {
+            }
+        }
+    }
+}
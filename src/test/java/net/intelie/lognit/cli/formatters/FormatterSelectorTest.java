@@ -67,6 +67,60 @@ public class FormatterSelectorTest {
         assertThat(selector.select("iem://abc")).isSameAs(sender);
     }
 
+    @Test
+    public void whenSelectingForTheSameConsole() throws Exception {
+        assertThat(selector.select("plain", console)).isSameAs(plain);
+    }
+
+    @Test
+    public void whenSelectingColoredForAnotherConsole() throws Exception {
+        Formatter formatter = selector.select("colored", mock(UserConsole.class));
+        assertThat(formatter).isInstanceOf(ColoredFormatter.class);
+        assertThat(formatter).isNotSameAs(colored);
+    }
+
+    @Test
+    public void whenSelectingPlainForAnotherConsole() throws Exception {
+        Formatter formatter = selector.select("plain", mock(UserConsole.class));
+        assertThat(formatter).isInstanceOf(PlainFormatter.class);
+        assertThat(formatter).isNotSameAs(plain);
+    }
+
+    @Test
+    public void jsonIsNeverTaggedToKeepItParseable() throws Exception {
+        assertThat(selector.select("json", mock(UserConsole.class))).isSameAs(json);
+    }
+
+    @Test
+    public void whenRedirectingJsonToAnotherConsole() throws Exception {
+        UserConsole other = mock(UserConsole.class);
+        JsonFormatter redirected = mock(JsonFormatter.class);
+        when(json.forConsole(other)).thenReturn(redirected);
+
+        assertThat(selector.redirect("json", other)).isSameAs(redirected);
+    }
+
+    @Test
+    public void whenRedirectingFlatJsonToAnotherConsole() throws Exception {
+        UserConsole other = mock(UserConsole.class);
+        FlatJsonFormatter redirected = mock(FlatJsonFormatter.class);
+        when(flatJson.forConsole(other)).thenReturn(redirected);
+
+        assertThat(selector.redirect("flat-json", other)).isSameAs(redirected);
+    }
+
+    @Test
+    public void whenRedirectingPlainToAnotherConsole() throws Exception {
+        Formatter formatter = selector.redirect("plain", mock(UserConsole.class));
+        assertThat(formatter).isInstanceOf(PlainFormatter.class);
+        assertThat(formatter).isNotSameAs(plain);
+    }
+
+    @Test
+    public void whenRedirectingToTheSameConsole() throws Exception {
+        assertThat(selector.redirect("json", console)).isSameAs(json);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void whenIsNullThrowsException() throws Exception {
         selector.select(null);
@@ -9,37 +9,51 @@ import net.intelie.lognit.cli.model.Message;
 import net.intelie.lognit.cli.model.SearchStats;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
 
 public class JsonFormatterTest {
     private JsonFormatter printer;
     private UserConsole console;
     private Jsonizer jsonizer;
+    private List<String> printed;
 
     @Before
     public void setUp() throws Exception {
         console = mock(UserConsole.class);
-        jsonizer = mock(Jsonizer.class);
+        jsonizer = new Jsonizer();
         printer = new JsonFormatter(console, jsonizer);
+        printed = new ArrayList<String>();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                printed.add(new String((char[]) args[0], (Integer) args[1], (Integer) args[2]));
+                return null;
+            }
+        }).when(console).printOut(any(char[].class), anyInt(), anyInt());
     }
 
     @Test
     public void testPrintMessage() throws Exception {
         Message message = new Message("123", "A", "11111111", "111111", "D", "E", "F", "abc", null);
-        when(jsonizer.to(message)).thenReturn("abc");
         printer.print(message, false);
-        verify(console).printOut("%s", "abc");
+        assertThat(printed).containsExactly(jsonizer.to(message));
     }
 
     @Test
     public void testPrintStats() throws Exception {
-        SearchStats stats = mock(SearchStats.class);
-        when(jsonizer.to(stats)).thenReturn("abc");
+        SearchStats stats = new SearchStats();
         printer.print(stats);
-        verify(console).printOut("%s", "abc");
+        assertThat(printed).containsExactly(jsonizer.to(stats));
     }
 
 
@@ -49,11 +63,8 @@ public class JsonFormatterTest {
         AggregatedItem item2 = AggregatedItemHelper.map("abc", 124);
         Aggregated aggr = new Aggregated(item1, item2);
 
-        when(jsonizer.to(item1)).thenReturn("abc");
-        when(jsonizer.to(item2)).thenReturn("qwe");
         printer.print(aggr);
-        verify(console).printOut("%s", "abc");
-        verify(console).printOut("%s", "qwe");
+        assertThat(printed).containsExactly(jsonizer.to(item1), jsonizer.to(item2));
     }
 
     @Test
@@ -3,6 +3,8 @@ package net.intelie.lognit.cli.http;
 import org.cometd.client.BayeuxClient;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.mockito.Mockito.*;
 
 public class BayeuxHandleTest {
@@ -15,6 +17,16 @@ public class BayeuxHandleTest {
         verify(client).disconnect();
     }
 
+    @Test
+    public void willUnsubscribeEveryChannelWhenClosing() {
+        BayeuxClient client = mock(BayeuxClient.class, RETURNS_DEEP_STUBS);
+        BayeuxHandle handle = new BayeuxHandle(client, Arrays.asList("abc", "def"));
+        handle.close();
+        verify(client.getChannel("abc")).unsubscribe();
+        verify(client.getChannel("def")).unsubscribe();
+        verify(client, times(1)).disconnect();
+    }
+
     @Test
     public void waitDisconnectedWaitsForSoLong() {
         BayeuxClient client = mock(BayeuxClient.class);
@@ -0,0 +1,93 @@
+package net.intelie.lognit.cli.http;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.fail;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DecodingInputStreamTest {
+    private static final String TEXT = "{\"id\":\"A\"}\n{\"id\":\"B\"}\n{\"id\":\"A\"}\n{\"id\":\"B\"}\n{\"id\":\"A\"}\n{\"id\":\"B\"}";
+
+    @Test
+    public void whenNotEncodedPassesBytesThrough() throws Exception {
+        DecodingInputStream stream = new DecodingInputStream(new ByteArrayInputStream(TEXT.getBytes(Charsets.UTF_8)), null);
+
+        assertThat(read(stream)).isEqualTo(TEXT);
+        assertThat(stream.getReceivedBytes()).isEqualTo(TEXT.length());
+        assertThat(stream.getDecodedBytes()).isEqualTo(TEXT.length());
+    }
+
+    @Test
+    public void identityIsTheSameAsNoEncoding() throws Exception {
+        DecodingInputStream stream = new DecodingInputStream(new ByteArrayInputStream(TEXT.getBytes(Charsets.UTF_8)), "identity");
+
+        assertThat(read(stream)).isEqualTo(TEXT);
+    }
+
+    @Test
+    public void whenGzippedCountsBothSides() throws Exception {
+        byte[] gzipped = gzip();
+        DecodingInputStream stream = new DecodingInputStream(new ByteArrayInputStream(gzipped), "GZIP");
+
+        assertThat(read(stream)).isEqualTo(TEXT);
+        assertThat(stream.getReceivedBytes()).isEqualTo(gzipped.length);
+        assertThat(stream.getDecodedBytes()).isEqualTo(TEXT.length());
+    }
+
+    @Test
+    public void whenDeflatedWithZlibHeader() throws Exception {
+        byte[] deflated = deflate(false);
+        DecodingInputStream stream = new DecodingInputStream(new ByteArrayInputStream(deflated), "deflate");
+
+        assertThat(read(stream)).isEqualTo(TEXT);
+        assertThat(stream.getReceivedBytes()).isEqualTo(deflated.length);
+    }
+
+    @Test
+    public void whenDeflatedRaw() throws Exception {
+        byte[] deflated = deflate(true);
+        DecodingInputStream stream = new DecodingInputStream(new ByteArrayInputStream(deflated), "deflate");
+
+        assertThat(read(stream)).isEqualTo(TEXT);
+    }
+
+    @Test
+    public void whenEncodingIsUnknown() throws Exception {
+        try {
+            new DecodingInputStream(new ByteArrayInputStream(new byte[0]), "br");
+            fail("should have thrown");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("unsupported content encoding: br");
+        }
+    }
+
+    private byte[] gzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        return write(bytes, new GZIPOutputStream(bytes));
+    }
+
+    private byte[] deflate(boolean raw) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        return write(bytes, new DeflaterOutputStream(bytes, new Deflater(Deflater.DEFAULT_COMPRESSION, raw)));
+    }
+
+    private byte[] write(ByteArrayOutputStream bytes, OutputStream out) throws IOException {
+        out.write(TEXT.getBytes(Charsets.UTF_8));
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private String read(DecodingInputStream stream) throws IOException {
+        return new String(ByteStreams.toByteArray(stream), Charsets.UTF_8);
+    }
+}
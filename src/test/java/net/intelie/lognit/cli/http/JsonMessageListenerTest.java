@@ -1,15 +1,30 @@
 package net.intelie.lognit.cli.http;
 
 import net.intelie.lognit.cli.json.Jsonizer;
+import net.intelie.lognit.cli.json.ParallelDecoder;
 import net.intelie.lognit.cli.model.Welcome;
 import org.cometd.bayeux.Message;
 import org.junit.Test;
+import org.mockito.InOrder;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.fail;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
 
 public class JsonMessageListenerTest {
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+    private final Executor deferred = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+    };
+
     @Test
     public void testOnMessage() throws Exception {
         RestListener<Welcome> restListener = mock(RestListener.class);
@@ -18,11 +33,104 @@ public class JsonMessageListenerTest {
         Jsonizer jsonizer = mock(Jsonizer.class);
         when(jsonizer.from("blablabla", Welcome.class)).thenReturn(welcome);
 
-        Message message = mock(Message.class);
-        when(message.getData()).thenReturn("blablabla");
+        JsonMessageListener<Welcome> listener = new JsonMessageListener<Welcome>(restListener, Welcome.class, new ParallelDecoder(jsonizer));
+        listener.onMessage(null, message("blablabla"));
+        verify(restListener, timeout(1000)).receive(welcome);
+    }
+
+    @Test
+    public void deliversInArrivalOrderWhenLaterMessagesDecodeFirst() throws Exception {
+        RestListener<Welcome> restListener = mock(RestListener.class);
+        Welcome first = new Welcome("first"), second = new Welcome("second"), third = new Welcome("third");
+
+        Jsonizer jsonizer = mock(Jsonizer.class);
+        when(jsonizer.from("1", Welcome.class)).thenReturn(first);
+        when(jsonizer.from("2", Welcome.class)).thenReturn(second);
+        when(jsonizer.from("3", Welcome.class)).thenReturn(third);
+
+        JsonMessageListener<Welcome> listener = new JsonMessageListener<Welcome>(restListener, Welcome.class, new ParallelDecoder(jsonizer, deferred, 0));
+        listener.onMessage(null, message("1"));
+        listener.onMessage(null, message("2"));
+        listener.onMessage(null, message("3"));
+
+        Collections.reverse(tasks);
+        tasks.get(0).run();
+        tasks.get(1).run();
+        verifyZeroInteractions(restListener);
+
+        tasks.get(2).run();
+        InOrder order = inOrder(restListener);
+        order.verify(restListener).receive(first);
+        order.verify(restListener).receive(second);
+        order.verify(restListener).receive(third);
+    }
+
+    @Test
+    public void skipsMessagesThatFailToDecodeWithoutBlockingTheRest() throws Exception {
+        RestListener<Welcome> restListener = mock(RestListener.class);
+        Welcome second = new Welcome("second");
+
+        Jsonizer jsonizer = mock(Jsonizer.class);
+        when(jsonizer.from("1", Welcome.class)).thenThrow(new IllegalStateException("bad json"));
+        when(jsonizer.from("2", Welcome.class)).thenReturn(second);
 
-        JsonMessageListener<Welcome> listener = new JsonMessageListener<Welcome>(restListener, Welcome.class, jsonizer);
-        listener.onMessage(null, message);
-        verify(restListener).receive(welcome);
+        JsonMessageListener<Welcome> listener = new JsonMessageListener<Welcome>(restListener, Welcome.class, new ParallelDecoder(jsonizer, deferred, 0));
+        listener.onMessage(null, message("1"));
+        listener.onMessage(null, message("2"));
+        tasks.get(1).run();
+        tasks.get(0).run();
+
+        verify(restListener).receive(second);
+        verifyNoMoreInteractions(restListener);
+    }
+
+    @Test
+    public void rethrowsDecodeFailuresOnTheNextMessage() throws Exception {
+        RestListener<Welcome> restListener = mock(RestListener.class);
+        Jsonizer jsonizer = mock(Jsonizer.class);
+        when(jsonizer.from("1", Welcome.class)).thenThrow(new IllegalStateException("bad json"));
+
+        JsonMessageListener<Welcome> listener = new JsonMessageListener<Welcome>(restListener, Welcome.class, new ParallelDecoder(jsonizer, deferred, 0));
+        listener.onMessage(null, message("1"));
+        tasks.get(0).run();
+
+        try {
+            listener.onMessage(null, message("2"));
+            fail("should have thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("bad json");
+        }
+        listener.onMessage(null, message("3"));
+    }
+
+    @Test(timeout = 5000)
+    public void blocksWhileTooManyMessagesAreBeingDecoded() throws Exception {
+        RestListener<Welcome> restListener = mock(RestListener.class);
+        Jsonizer jsonizer = mock(Jsonizer.class);
+        final JsonMessageListener<Welcome> listener = new JsonMessageListener<Welcome>(restListener, Welcome.class,
+                new ParallelDecoder(jsonizer, deferred, 0), 2);
+        listener.onMessage(null, message("1"));
+        listener.onMessage(null, message("2"));
+
+        Thread third = new Thread() {
+            @Override
+            public void run() {
+                listener.onMessage(null, message("3"));
+            }
+        };
+        third.start();
+        while (third.getState() != Thread.State.WAITING)
+            Thread.sleep(10);
+        assertThat(tasks).hasSize(2);
+
+        tasks.get(0).run();
+        third.join();
+        verify(restListener).receive(null);
+    }
+
+    private Message message(String data) {
+        Message message = mock(Message.class);
+        when(message.getData()).thenReturn(data);
+        return message;
     }
 }
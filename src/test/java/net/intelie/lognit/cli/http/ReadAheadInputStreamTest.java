@@ -0,0 +1,93 @@
+package net.intelie.lognit.cli.http;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ReadAheadInputStreamTest {
+    @Test(timeout = 5000)
+    public void readsEverythingInOrder() throws Exception {
+        byte[] data = new byte[3 * ReadAheadInputStream.BLOCK_SIZE + 17];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (i * 31);
+
+        ReadAheadInputStream stream = new ReadAheadInputStream(new ByteArrayInputStream(data), 2);
+
+        assertThat(stream.read()).isEqualTo(data[0] & 0xff);
+        byte[] rest = ByteStreams.toByteArray(stream);
+        assertThat(rest.length).isEqualTo(data.length - 1);
+        for (int i = 0; i < rest.length; i++)
+            if (rest[i] != data[i + 1]) fail("differs at " + i);
+        assertThat(stream.read()).isEqualTo(-1);
+        assertThat(stream.read(new byte[4], 0, 4)).isEqualTo(-1);
+    }
+
+    @Test(timeout = 5000)
+    public void failuresShowUpAfterTheBytesBeforeThem() throws Exception {
+        InputStream failing = new InputStream() {
+            int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (count == 3) throw new IOException("connection reset");
+                return 'a' + count++;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                b[off] = (byte) read();
+                return 1;
+            }
+        };
+        ReadAheadInputStream stream = new ReadAheadInputStream(failing);
+
+        assertThat(stream.read()).isEqualTo('a');
+        assertThat(stream.read()).isEqualTo('b');
+        assertThat(stream.read()).isEqualTo('c');
+        try {
+            stream.read();
+            fail("should have failed");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("connection reset");
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void closesTheBodyOnceTheReaderStops() throws Exception {
+        final CountDownLatch closed = new CountDownLatch(1);
+        InputStream body = new ByteArrayInputStream(new byte[10 * ReadAheadInputStream.BLOCK_SIZE]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1024));
+            }
+
+            @Override
+            public void close() throws IOException {
+                closed.countDown();
+            }
+        };
+        ReadAheadInputStream stream = new ReadAheadInputStream(body, 1);
+        assertThat(stream.read()).isEqualTo(0);
+        stream.close();
+
+        assertThat(closed.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test(timeout = 5000)
+    public void accountsForTimeSpentWaiting() throws Exception {
+        ReadAheadInputStream stream = new ReadAheadInputStream(new ByteArrayInputStream(new byte[100]));
+        ByteStreams.toByteArray(stream);
+
+        assertThat(stream.getReadNanos()).isGreaterThanOrEqualTo(0);
+        assertThat(stream.getBlockedNanos()).isGreaterThanOrEqualTo(0);
+        assertThat(stream.getStarvedNanos()).isGreaterThan(0);
+    }
+}
@@ -1,5 +1,6 @@
 package net.intelie.lognit.cli.http;
 
+import com.google.common.io.ByteStreams;
 import net.intelie.lognit.cli.json.Jsonizer;
 import org.apache.commons.httpclient.*;
 import org.apache.commons.httpclient.auth.AuthScope;
@@ -12,8 +13,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static junit.framework.Assert.fail;
 import static org.fest.assertions.Assertions.assertThat;
@@ -53,16 +59,38 @@ public class RestClientImplTest {
         verifyNoMoreInteractions(client.getParams(), client.getState());
     }
 
+    @Test
+    public void whenCreatingForAnotherServerKeepsCookies() throws Exception {
+        Cookie cookie = new Cookie("server", "B", "C", "/", 1000, false);
+        when(client.getState().getCookies()).thenReturn(new Cookie[]{cookie});
+
+        RestClient other = rest.forServer("other:9000");
+
+        assertThat(other.getServer()).isEqualTo("other:9000");
+        assertThat(other.getState().getCookies()).containsOnly(cookie);
+        assertThat(rest.getServer()).isEqualTo("localhost");
+    }
+
 
     @Test
     public void whenAuthenticating() throws Exception {
         rest.authenticate("abc", "123");
 
         verify(client.getParams()).setAuthenticationPreemptive(true);
-        verify(client.getState()).setCredentials(AuthScope.ANY, new UsernamePasswordCredentials("abc", "123"));
+        verify(client.getState()).setCredentials(new AuthScope("localhost", 80), new UsernamePasswordCredentials("abc", "123"));
         verifyNoMoreInteractions(client.getParams(), client.getState());
     }
 
+    @Test
+    public void whenCreatingForAnotherServerLeavesThePasswordBehind() throws Exception {
+        RestClientImpl main = new RestClientImpl(new HttpClient(), methodFactory, bayeuxFactory, jsonizer);
+        main.setServer("https://main:9000");
+        main.authenticate("abc", "123");
+
+        assertThat(((RestClientImpl) main.forServer("other:9000")).getCredentials()).isNull();
+        assertThat(((RestClientImpl) main.forServer("https://main:9000")).getCredentials()).isEqualTo(new UsernamePasswordCredentials("abc", "123"));
+    }
+
     @Test
     public void willExecuteSuccessfulRequest() throws Exception {
         HttpMethod method = mockGet("http://localhost/abc", "HTTP/1.0 200 OK", String.class, "QWEQWE");
@@ -84,6 +112,45 @@ public class RestClientImplTest {
         assertThat(stream.hasNext()).isFalse();
     }
 
+    @Test
+    public void willAcceptCompressedResponses() throws Exception {
+        HttpMethod method = mockGet("http://localhost/abc", "HTTP/1.0 200 OK", String.class, "QWEQWE");
+
+        rest.get("abc", String.class);
+
+        verify(method).setRequestHeader("Accept-Encoding", "gzip, deflate");
+    }
+
+    @Test
+    public void willDecompressGzippedResponses() throws Exception {
+        HttpMethod method = mockGet("http://localhost/abc", "HTTP/1.0 200 OK", String.class, "QWEQWE");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write("BLABLA".getBytes());
+        gzip.close();
+        when(method.getResponseBodyAsStream()).thenReturn(new ByteArrayInputStream(bytes.toByteArray()));
+        when(method.getResponseHeader("Content-Encoding")).thenReturn(new Header("Content-Encoding", "gzip"));
+
+        assertThat(rest.get("abc", String.class)).isEqualTo("QWEQWE");
+    }
+
+    @Test
+    public void willCountBytesOfCompressedStreams() throws Exception {
+        HttpMethod method = mockGet("http://localhost/abc", "HTTP/1.0 200 OK", String.class, "ABC", "QWE");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write("BLABLA".getBytes());
+        gzip.close();
+        when(method.getResponseBodyAsStream()).thenReturn(new ByteArrayInputStream(bytes.toByteArray()));
+        when(method.getResponseHeader("Content-Encoding")).thenReturn(new Header("Content-Encoding", "gzip"));
+
+        RestStream<String> stream = rest.getStream("abc", String.class);
+        ByteStreams.toByteArray(stream.getBody());
+
+        assertThat(stream.getReceivedBytes()).isEqualTo(bytes.size());
+        assertThat(stream.getDecodedBytes()).isEqualTo(6);
+    }
+
     @Test
     public void willExecuteSuccessfulGetStreamWithNoBody() throws Exception {
         HttpMethod method = mockGet("http://localhost/abc", "HTTP/1.0 200 OK", String.class);
@@ -270,7 +337,7 @@ public class RestClientImplTest {
         if (objects.length == 1)
             when(jsonizer.from("BLABLA", type)).thenReturn(objects[0]);
         else if(objects.length > 1)
-            when(jsonizer.from(stream, type)).thenReturn(Arrays.asList(objects).iterator());
+            when(jsonizer.from(any(InputStream.class), eq(type))).thenReturn(Arrays.asList(objects).iterator());
     }
 
 
@@ -338,6 +405,24 @@ public class RestClientImplTest {
         verify(bayeux.getChannel("testChannel")).subscribe(any(ClientSessionChannel.MessageListener.class));
     }
 
+    @Test
+    public void willShareOneHandshakeAmongManyChannels() throws Exception {
+        BayeuxClient bayeux = mock(BayeuxClient.class, RETURNS_DEEP_STUBS);
+        when(bayeuxFactory.create("http://server/cometd")).thenReturn(bayeux);
+        Map<String, RestListener<Object>> listeners = new LinkedHashMap<String, RestListener<Object>>();
+        listeners.put("channelA", mock(RestListener.class));
+        listeners.put("channelB", mock(RestListener.class));
+
+        rest.setServer("server");
+        RestListenerHandle handle = rest.listen(listeners, Object.class);
+
+        verify(bayeuxFactory, times(1)).create("http://server/cometd");
+        verify(bayeux, times(1)).handshake(120000);
+        verify(bayeux.getChannel("channelA")).subscribe(any(JsonMessageListener.class));
+        verify(bayeux.getChannel("channelB")).subscribe(any(JsonMessageListener.class));
+        assertThat(handle).isInstanceOf(BayeuxHandle.class);
+    }
+
     @Test
     public void willRegisterAListenerThatDeserializesJSON() throws Exception {
         BayeuxClient bayeux = mock(BayeuxClient.class, RETURNS_DEEP_STUBS);
@@ -0,0 +1,56 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import net.intelie.lognit.cli.model.AggregatedItem;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AggregatedItemEncoderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void encodesLikeGson() throws Exception {
+        AggregatedItem item = new AggregatedItem();
+        item.put("count()", 123.0);
+        item.put("avg", 0.1234567);
+        item.put("tiny", 0.000001);
+        item.put("huge", 1e21);
+        item.put("decimal", new BigDecimal("12.50"));
+        item.put("int", 42);
+        item.put("long", -42L);
+        item.put("name", "<x> & 'y'");
+        item.put("flag", true);
+        item.put("nothing", null);
+        item.put("list", Arrays.<Object>asList(1.5, "a", null, Arrays.asList(false)));
+        Map<String, Object> nested = new LinkedHashMap<String, Object>();
+        nested.put("k", "v");
+        nested.put("skipped", null);
+        item.put("map", nested);
+        item.put("other", 'c');
+
+        assertSameAsGson(item);
+    }
+
+    @Test
+    public void encodesEmptyItemsLikeGson() throws Exception {
+        assertSameAsGson(new AggregatedItem());
+    }
+
+    @Test
+    public void encodesDecodedAggregationsLikeGson() throws Exception {
+        for (AggregatedItem item : gson.fromJson("[{a:1, b:2.5, c:'x', d:null, e:[1, {f:2}], g:{h:true}}]", net.intelie.lognit.cli.model.Aggregated.class))
+            assertSameAsGson(item);
+    }
+
+    private void assertSameAsGson(AggregatedItem item) {
+        JsonBuffer buffer = new JsonBuffer();
+        new AggregatedItemEncoder(gson).encode(item, buffer);
+        assertThat(buffer.toString()).isEqualTo(gson.toJson(item));
+    }
+}
@@ -0,0 +1,51 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.DownloadBag;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DownloadBagDecoderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void decodesLikeGson() throws Exception {
+        assertSameAsGson("{items:[{id:'A', metadata:{pri:['0']}}, {id:'B'}], current_hit:10, total_hits:'20', remaining_docs:7}");
+    }
+
+    @Test
+    public void decodesAggregatedLikeGson() throws Exception {
+        assertSameAsGson("{aggregated:[{abc:123.456}, {def:'x'}], current_hit:null, total_hits:3}");
+    }
+
+    @Test
+    public void decodesEmptyAndNull() throws Exception {
+        assertSameAsGson("{}");
+        assertThat(decode("null")).isNull();
+    }
+
+    @Test
+    public void exposesValuesThroughGetters() throws Exception {
+        DownloadBag bag = decode("{items:[{id:'A'}], current_hit:10, total_hits:20}");
+
+        assertThat(bag.getItems()).hasSize(1);
+        assertThat(bag.getCurrentHit()).isEqualTo(10L);
+        assertThat(bag.getTotalHits()).isEqualTo(20L);
+        assertThat(bag.getAggregated()).isNull();
+    }
+
+    private void assertSameAsGson(String json) throws Exception {
+        DownloadBag decoded = decode(json);
+        assertThat(gson.toJson(decoded)).isEqualTo(gson.toJson(gson.fromJson(json, DownloadBag.class)));
+    }
+
+    private DownloadBag decode(String json) throws Exception {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        return new DownloadBagDecoder(new MessageDecoder(), gson).decode(reader);
+    }
+}
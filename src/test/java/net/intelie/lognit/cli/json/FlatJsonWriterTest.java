@@ -0,0 +1,70 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static net.intelie.lognit.cli.JsonHelpers.jsonParse;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FlatJsonWriterTest {
+    @Test
+    public void whenFlatteningAlreadyFlattenedJson() throws Exception {
+        assertThat(flatten("{abc:'qwe', n:1.5, b:true}")).isEqualTo("{\"abc\":\"qwe\",\"n\":1.5,\"b\":true}");
+    }
+
+    @Test
+    public void whenFlatteningNull() throws Exception {
+        assertThat(flatten("{abc:null, def:'x'}")).isEqualTo("{\"def\":\"x\"}");
+    }
+
+    @Test
+    public void whenFlatteningNonFlattenedObject() throws Exception {
+        assertThat(flatten("{abc:{abd:'qwe', x:{y:1}}, z:2}")).isEqualTo("{\"abd\":\"qwe\",\"y\":1,\"z\":2}");
+    }
+
+    @Test
+    public void whenFlatteningObjectWithInnerArray() throws Exception {
+        assertThat(flatten("{abc:[123, 'qwe']}")).isEqualTo("{\"abc\":123}");
+    }
+
+    @Test
+    public void whenFlatteningOuterArray() throws Exception {
+        assertThat(flatten("[123, 'qwe']")).isEqualTo("{\"default\":123}");
+    }
+
+    @Test
+    public void whenFlatteningOuterPrimitive() throws Exception {
+        assertThat(flatten("'abc'")).isEqualTo("{\"default\":\"abc\"}");
+    }
+
+    @Test
+    public void firstValueWins() throws Exception {
+        assertThat(flatten("{a:1, b:{a:2, c:[]}, c:[3, 4], d:[5]}")).isEqualTo("{\"a\":1,\"c\":3,\"d\":5}");
+    }
+
+    @Test
+    public void arraysKeepTheirFirstElementAsIs() throws Exception {
+        assertThat(flatten("{a:[{b:{c:1}, n:null}, 2], d:[[null, 3]], e:[null, 4]}"))
+                .isEqualTo("{\"a\":{\"b\":{\"c\":1}},\"d\":[null,3],\"e\":null}");
+    }
+
+    @Test
+    public void skippedElementsAreSkippedWhole() throws Exception {
+        assertThat(flatten("{a:[1, {a:2, b:3}, [4]], b:5}")).isEqualTo("{\"a\":1,\"b\":5}");
+    }
+
+    @Test
+    public void whenFlatteningEmptyObject() throws Exception {
+        assertThat(flatten("{}")).isEqualTo("{}");
+    }
+
+    private String flatten(String json) throws Exception {
+        StringWriter out = new StringWriter();
+        FlatJsonWriter writer = new FlatJsonWriter(out);
+        new Gson().toJson(jsonParse(json), writer);
+        writer.close();
+        return out.toString();
+    }
+}
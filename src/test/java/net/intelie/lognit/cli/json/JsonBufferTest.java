@@ -0,0 +1,42 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JsonBufferTest {
+    private final Gson gson = new Gson();
+    private final JsonBuffer buffer = new JsonBuffer(4);
+
+    @Test
+    public void escapesStringsLikeGson() throws Exception {
+        StringBuilder all = new StringBuilder();
+        for (char c = 0; c < 0x3000; c++)
+            all.append(c);
+        all.append("😀￿");
+
+        assertThat(buffer.string(all.toString()).toString()).isEqualTo(gson.toJson(all.toString()));
+    }
+
+    @Test
+    public void separatesNamesAndElements() throws Exception {
+        buffer.append('{').name("a").append('[');
+        buffer.separate().append('1');
+        buffer.separate().string("x");
+        buffer.append(']').name("b").append('{').append('}').append('}');
+
+        assertThat(buffer.toString()).isEqualTo("{\"a\":[1,\"x\"],\"b\":{}}");
+    }
+
+    @Test
+    public void isReusableAfterReset() throws Exception {
+        buffer.append("a long enough value to grow the buffer");
+        buffer.reset();
+        buffer.string("b");
+
+        assertThat(buffer.toString()).isEqualTo("\"b\"");
+        assertThat(buffer.length()).isEqualTo(3);
+        assertThat(new String(buffer.chars(), 0, buffer.length())).isEqualTo("\"b\"");
+    }
+}
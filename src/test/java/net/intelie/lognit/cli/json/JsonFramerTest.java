@@ -0,0 +1,75 @@
+package net.intelie.lognit.cli.json;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JsonFramerTest {
+    @Test
+    public void splitsConcatenatedDocuments() throws Exception {
+        assertThat(frames("{a:1}\n{b:2}{c:[3]}  [4,5]", 64)).isEqualTo(list("{a:1}", "{b:2}", "{c:[3]}", "[4,5]"));
+    }
+
+    @Test
+    public void ignoresBracesInsideStrings() throws Exception {
+        assertThat(frames("{a:\"}{\"} {b:'\\'}'} {c:\"\\\"}\"}", 64))
+                .isEqualTo(list("{a:\"}{\"}", "{b:'\\'}'}", "{c:\"\\\"}\"}"));
+    }
+
+    @Test
+    public void canGrowAndRefillSmallBuffers() throws Exception {
+        assertThat(frames("{message:'abcdefghijklmnopqrstuvwxyz'} {b:2} {c:3}", 4))
+                .isEqualTo(list("{message:'abcdefghijklmnopqrstuvwxyz'}", "{b:2}", "{c:3}"));
+    }
+
+    @Test
+    public void canSplitScalars() throws Exception {
+        assertThat(frames("'abc' 42 true\"x\"{a:1}", 64)).isEqualTo(list("'abc'", "42", "true", "\"x\"", "{a:1}"));
+    }
+
+    @Test
+    public void returnsTrailingScalarAtEnd() throws Exception {
+        assertThat(frames("{a:1}\n42", 64)).isEqualTo(list("{a:1}", "42"));
+    }
+
+    @Test(expected = EOFException.class)
+    public void failsOnDocumentCutByTheEndOfTheStream() throws Exception {
+        frames("{a:1}\n{messa", 64);
+    }
+
+    @Test(expected = EOFException.class)
+    public void failsOnStringCutByTheEndOfTheStream() throws Exception {
+        frames("'abc' 'de", 4);
+    }
+
+    @Test
+    public void emptyOrBlankStreamHasNoDocuments() throws Exception {
+        assertThat(frames("", 64)).isEmpty();
+        assertThat(frames(" \r\n\t ", 2)).isEmpty();
+    }
+
+    @Test
+    public void keepsMultiByteCharacters() throws Exception {
+        assertThat(frames("{a:'ação'}{b:'日本'}", 3)).isEqualTo(list("{a:'ação'}", "{b:'日本'}"));
+    }
+
+    private List<String> frames(String data, int bufferSize) throws IOException {
+        JsonFramer framer = new JsonFramer(new ByteArrayInputStream(data.getBytes("UTF-8")), bufferSize);
+        List<String> frames = new ArrayList<String>();
+        while (framer.next())
+            frames.add(new String(framer.buffer(), framer.offset(), framer.length(), "UTF-8"));
+        return frames;
+    }
+
+    private List<String> list(String... values) {
+        List<String> list = new ArrayList<String>();
+        for (String value : values) list.add(value);
+        return list;
+    }
+}
@@ -0,0 +1,56 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import net.intelie.lognit.cli.model.MessageBag;
+
+import java.lang.management.ManagementFactory;
+
+//not a unit test: run by hand, e.g. java -cp target/classes:target/test-classes:<deps> net.intelie.lognit.cli.json.JsonizerBenchmark
+public class JsonizerBenchmark {
+    private static final int ITEMS = 1000, BAGS = 50, ROUNDS = 20;
+
+    public static void main(String[] args) {
+        String json = bag();
+        System.out.printf("%d bags of %d messages, %,d KB each%n", BAGS, ITEMS, json.length() / 1024);
+
+        Jsonizer jsonizer = new Jsonizer();
+        Gson gson = new Gson();
+        for (int round = 0; round < ROUNDS; round++) {
+            report(round, "decoders", run(jsonizer, null, json));
+            report(round, "gson", run(null, gson, json));
+        }
+    }
+
+    private static long[] run(Jsonizer jsonizer, Gson gson, String json) {
+        long allocated = allocated(), start = System.nanoTime(), sink = 0;
+        for (int i = 0; i < BAGS; i++) {
+            MessageBag bag = jsonizer != null ? jsonizer.from(json, MessageBag.class) : gson.fromJson(json, MessageBag.class);
+            sink += bag.getItems().size();
+        }
+        if (sink != (long) BAGS * ITEMS) throw new IllegalStateException();
+        return new long[]{System.nanoTime() - start, allocated() - allocated};
+    }
+
+    private static void report(int round, String name, long[] result) {
+        if (round == 0 || round == ROUNDS - 1)
+            System.out.printf("%s %-8s %6.1fms %,8d KB allocated%n", round == 0 ? "cold" : "warm", name, result[0] / 1e6, result[1] / 1024);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static String bag() {
+        StringBuilder builder = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < ITEMS; i++) {
+            if (i > 0) builder.append(',');
+            builder.append("{\"id\":\"").append(1000000000L + i).append("\",\"host\":\"host").append(i % 20)
+                    .append("\",\"date\":\"20121010\",\"time\":\"").append(100000 + i % 60000)
+                    .append("\",\"facility\":\"local").append(i % 8).append("\",\"severity\":\"INFO\",\"app\":\"app").append(i % 5)
+                    .append("\",\"message\":\"request ").append(i).append(" served in 42ms by worker pool, upstream answered with status 200 and 1234 bytes")
+                    .append("\",\"metadata\":{\"env\":[\"prod\"],\"region\":[\"sa-east-").append(i % 3).append("\"]}}");
+        }
+        return builder.append("],\"node\":\"node1\",\"success\":true,\"realtime\":false,\"total_items\":").append(ITEMS)
+                .append(",\"total_nodes\":3,\"time\":12}").toString();
+    }
+}
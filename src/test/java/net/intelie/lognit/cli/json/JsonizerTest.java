@@ -1,20 +1,28 @@
 package net.intelie.lognit.cli.json;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 import net.intelie.lognit.cli.model.AggregatedItem;
 import net.intelie.lognit.cli.model.DownloadBag;
 import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
 import net.intelie.lognit.cli.model.Welcome;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.math.BigDecimal;
 import java.util.*;
 
 import static net.intelie.lognit.cli.JsonHelpers.jsonParse;
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 public class JsonizerTest {
 
@@ -31,6 +39,20 @@ public class JsonizerTest {
         assertThat(json.to(welcome)).isEqualTo(new Gson().toJson(welcome));
     }
 
+    @Test
+    public void testToBufferMatchesToForEncodedAndOtherTypes() throws Exception {
+        Message message = new Message("a", "h", null, null, null, null, null, "<x>", null);
+        AggregatedItem item = json.from("{abc:123, def:1.5}", AggregatedItem.class);
+        Welcome welcome = new Welcome("abc");
+
+        JsonBuffer buffer = new JsonBuffer();
+        for (Object value : Arrays.asList(message, item, welcome, null)) {
+            buffer.reset();
+            json.to(value, buffer);
+            assertThat(buffer.toString()).isEqualTo(json.to(value));
+        }
+    }
+
     @Test
     public void testToFlat() throws Exception {
         HashMap<String, List<String>> metadata = new HashMap<String, List<String>>();
@@ -40,6 +62,24 @@ public class JsonizerTest {
         assertThat(jsonParse(json.toFlat(message))).isEqualTo(jsonParse("{id:'a', abc:'123'}"));
     }
 
+    @Test
+    public void testToFlatKeepsFieldOrderAndHtmlCharacters() throws Exception {
+        LinkedHashMap<String, List<String>> metadata = new LinkedHashMap<String, List<String>>();
+        metadata.put("abc", Arrays.asList("<1>", "234"));
+        metadata.put("host", Arrays.asList("other"));
+
+        Message message = new Message("a", "h", "20120610", "191553", null, "INFO", null, "x=y", metadata);
+        assertThat(json.toFlat(message)).isEqualTo(
+                "{\"id\":\"a\",\"host\":\"h\",\"date\":\"20120610\",\"time\":\"191553\",\"severity\":\"INFO\",\"message\":\"x=y\",\"abc\":\"<1>\"}");
+    }
+
+    @Test
+    public void testToFlatAggregatedAndNull() throws Exception {
+        AggregatedItem item = json.from("{abc:123, def:1.5}", AggregatedItem.class);
+        assertThat(json.toFlat(item)).isEqualTo("{\"abc\":123,\"def\":1.5}");
+        assertThat(json.toFlat(null)).isEqualTo("{\"default\":null}");
+    }
+
     @Test
     public void testFrom() throws Exception {
         String welcome = "{message:'abc'}";
@@ -117,10 +157,126 @@ public class JsonizerTest {
 
     @Test(expected = JsonSyntaxException.class)
     public void testFromStreamMalformed() throws Exception {
+        ByteArrayInputStream stream = new ByteArrayInputStream("{message:'abc'}\n{messa}".getBytes());
+        Iterator<Welcome> iterator = json.from(stream, Welcome.class);
+
+        assertThat(iterator.next().getMessage()).isEqualTo("abc");
+        iterator.next();
+    }
+
+    @Test
+    public void testFromStreamTruncated() throws Exception {
         ByteArrayInputStream stream = new ByteArrayInputStream("{message:'abc'}\n{messa".getBytes());
         Iterator<Welcome> iterator = json.from(stream, Welcome.class);
 
         assertThat(iterator.next().getMessage()).isEqualTo("abc");
+        try {
+            iterator.hasNext();
+            fail();
+        } catch (JsonIOException e) {
+            assertThat(e.getCause()).isInstanceOf(EOFException.class);
+        }
+    }
+
+    @Test
+    public void testFromUsesRegisteredDecoders() throws Exception {
+        MessageBag bag = json.from("{items:[{id:'A'}], node:'n1', success:true}", MessageBag.class);
+        assertThat(bag.getItems().get(0).getId()).isEqualTo("A");
+        assertThat(bag.getNode()).isEqualTo("n1");
+
+        assertThat(json.from("{id:'B'}", Message.class).getId()).isEqualTo("B");
+        assertThat(json.from("", Message.class)).isNull();
+        assertThat(json.from((String) null, Message.class)).isNull();
+    }
+
+    @Test
+    public void testFromCanUseCustomDecoder() throws Exception {
+        json.register(Welcome.class, new JsonDecoder<Welcome>() {
+            @Override
+            public Welcome decode(JsonReader reader) throws IOException {
+                return new Welcome(reader.nextString() + "!");
+            }
+        });
+        assertThat(json.from("'abc'", Welcome.class).getMessage()).isEqualTo("abc!");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testFromDecoderMustConsumeTheWholeDocument() throws Exception {
+        json.from("{id:'B'} {id:'C'}", Message.class);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testFromDecoderMalformed() throws Exception {
+        json.from("{id:'B'", Message.class);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testFromDecoderWrongType() throws Exception {
+        json.from("{items:{}}", MessageBag.class);
+    }
+
+    @Test(expected = JsonIOException.class)
+    public void testFromDecoderStreamTruncated() throws Exception {
+        ByteArrayInputStream stream = new ByteArrayInputStream("{items:[], total_hits:1}\n{items:[{id".getBytes());
+        Iterator<DownloadBag> iterator = json.from(stream, DownloadBag.class);
+
+        assertThat(iterator.next().getTotalHits()).isEqualTo(1);
         iterator.next();
     }
+
+    @Test
+    public void testFromStreamDecodesUtf8() throws Exception {
+        ByteArrayInputStream stream = new ByteArrayInputStream("{message:'ação'} {message:'日本'}".getBytes("UTF-8"));
+        Iterator<Welcome> iterator = json.from(stream, Welcome.class);
+
+        assertThat(iterator.next().getMessage()).isEqualTo("ação");
+        assertThat(iterator.next().getMessage()).isEqualTo("日本");
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testFromStreamReportsReadFailures() throws Exception {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        Iterator<Welcome> iterator = json.from(new SequenceInputStream(
+                new ByteArrayInputStream("{message:'abc'} ".getBytes()), broken), Welcome.class);
+
+        assertThat(iterator.next().getMessage()).isEqualTo("abc");
+        try {
+            iterator.hasNext();
+            fail("must throw");
+        } catch (JsonIOException e) {
+            assertThat(e.getCause().getMessage()).isEqualTo("connection reset");
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testFromStreamPastTheEnd() throws Exception {
+        json.from(new ByteArrayInputStream(new byte[0]), Welcome.class).next();
+    }
+
+    @Test
+    public void testFromStreamDecodesDownloadedMessagesLazily() throws Exception {
+        ByteArrayInputStream stream = new ByteArrayInputStream("{items:[{id:'A', host:'h'}, null], aggregated:[{abc:1}], current_hit:2, total_hits:3}{}".getBytes());
+        Iterator<DownloadBag> iterator = json.from(stream, DownloadBag.class);
+
+        DownloadBag bag = iterator.next();
+        assertThat(bag.getItems().get(0)).isInstanceOf(LazyMessage.class);
+        assertThat(bag.getItems().get(0).getHost()).isEqualTo("h");
+        assertThat(bag.getItems().get(1)).isNull();
+        assertThat(bag.getAggregated().get(0).get("abc")).isEqualTo(new BigDecimal(1));
+        assertThat(bag.getCurrentHit()).isEqualTo(2);
+        assertThat(bag.getTotalHits()).isEqualTo(3);
+
+        assertThat(iterator.next().getItems()).isNull();
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testFromStreamRejectsItemsThatAreNotAnArray() throws Exception {
+        json.from(new ByteArrayInputStream("{items:{}}".getBytes()), DownloadBag.class).next();
+    }
 }
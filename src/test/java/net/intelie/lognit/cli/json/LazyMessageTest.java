@@ -0,0 +1,92 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import net.intelie.lognit.cli.model.Message;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LazyMessageTest {
+    private final Gson gson = new Gson();
+    private final Jsonizer jsonizer = new Jsonizer();
+
+    @Test
+    public void decodesLikeTheEagerDecoder() throws Exception {
+        assertSame("{\"id\":\"A\",\"host\":\"h\",\"date\":\"20120610\",\"time\":\"191553\",\"facility\":\"KERN\",\"severity\":\"INFO\",\"app\":\"x\",\"message\":\"abc\",\"metadata\":{\"pri\":[\"0\",\"1\"],\"b\":[]}}");
+        assertSame("{id:'A', message:'it\\'s \\u00e7\\n \"q\"', host:\"a\\\\b\", extra:{id:'no'}, date:20120610, time:true}");
+        assertSame("{\"id\":\"ação\",\"message\":\"日本\",\"metadata\":null,\"host\":null}");
+        assertSame("{\"id\":\"A\",\"id\":\"B\"}");
+        assertSame("{}");
+    }
+
+    @Test
+    public void decodesOnlyWhatIsAsked() throws Exception {
+        LazyMessage message = lazy("{\"id\":\"A\",\"metadata\":{\"a\":[\"1\"],\"a\":[\"2\"]}}");
+
+        assertThat(message.getId()).isEqualTo("A");
+        try {
+            message.getMetadata();
+            throw new AssertionError("must throw");
+        } catch (JsonSyntaxException e) {
+        }
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void rejectsStructuredValuesForPlainFields() throws Exception {
+        lazy("{\"id\":{\"a\":1}}");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void rejectsPlainValuesForMetadata() throws Exception {
+        lazy("{\"metadata\":\"abc\"}");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void rejectsNonObjects() throws Exception {
+        lazy("[1]");
+    }
+
+    @Test
+    public void behavesAsAMessage() throws Exception {
+        LazyMessage message = lazy("{\"id\":\"b\",\"date\":\"20120610\",\"time\":\"191553\"}");
+
+        assertThat(message).isEqualTo(new Message("b"));
+        assertThat(message.hashCode()).isEqualTo(new Message("b").hashCode());
+        assertThat(message.compareTo(new Message("a"))).isLessThan(0);
+        assertThat(message.formattedDateTime()).isEqualTo("2012-06-10 19:15:53");
+    }
+
+    @Test
+    public void serializesLikeAMessage() throws Exception {
+        String json = "{\"id\":\"A\",\"host\":\"<h>\",\"message\":\"abc\",\"metadata\":{\"pri\":[\"0\"]}}";
+
+        assertThat(jsonizer.to(lazy(json))).isEqualTo(jsonizer.to(eager(json)));
+        assertThat(jsonizer.toFlat(lazy(json))).isEqualTo(jsonizer.toFlat(eager(json)));
+    }
+
+    private void assertSame(String json) throws Exception {
+        LazyMessage lazy = lazy(json);
+        Message eager = eager(json);
+
+        assertThat(lazy.getId()).isEqualTo(eager.getId());
+        assertThat(lazy.getHost()).isEqualTo(eager.getHost());
+        assertThat(lazy.getDate()).isEqualTo(eager.getDate());
+        assertThat(lazy.getTime()).isEqualTo(eager.getTime());
+        assertThat(lazy.getFacility()).isEqualTo(eager.getFacility());
+        assertThat(lazy.getSeverity()).isEqualTo(eager.getSeverity());
+        assertThat(lazy.getApp()).isEqualTo(eager.getApp());
+        assertThat(lazy.getMessage()).isEqualTo(eager.getMessage());
+        assertThat(lazy.getMetadata()).isEqualTo(eager.getMetadata());
+        assertThat(gson.toJson(lazy.toMessage())).isEqualTo(gson.toJson(eager));
+    }
+
+    private Message eager(String json) {
+        return jsonizer.from(json, Message.class);
+    }
+
+    private LazyMessage lazy(String json) throws Exception {
+        byte[] bytes = (" " + json + " ").getBytes("UTF-8");
+        return LazyMessage.of(new ByteScanner(), bytes, 1, bytes.length - 2);
+    }
+}
@@ -0,0 +1,61 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.MessageBag;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MessageBagDecoderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void decodesHistoricBagLikeGson() throws Exception {
+        assertSameAsGson("{items:[{id:'A', message:'abc', metadata:{x:['1']}}, null, {id:'B'}], node:'n1', time:42, " +
+                "message:'info', success:true, realtime:false, total_items:1234, total_nodes:3}");
+    }
+
+    @Test
+    public void decodesAggregatedAndStatsLikeGson() throws Exception {
+        assertSameAsGson("{aggregated:[{abc:123, def:'x'}], stats:{hours:[], last:[], fields:{}}, success:'true', realtime:true}");
+    }
+
+    @Test
+    public void decodesFailureLikeGson() throws Exception {
+        assertSameAsGson("{message:'cancelled', node:'n2', success:false, items:null, unknown:[1, {a:2}]}");
+    }
+
+    @Test
+    public void decodesEmptyAndNull() throws Exception {
+        assertSameAsGson("{}");
+        assertThat(decode("null")).isNull();
+    }
+
+    @Test
+    public void exposesValuesThroughGetters() throws Exception {
+        MessageBag bag = decode("{items:[{id:'A'}], node:'n1', time:42, success:true, total_items:10, total_nodes:3}");
+
+        assertThat(bag.getItems()).hasSize(1);
+        assertThat(bag.getItems().get(0).getId()).isEqualTo("A");
+        assertThat(bag.getNode()).isEqualTo("n1");
+        assertThat(bag.getTime()).isEqualTo(42L);
+        assertThat(bag.isSuccess()).isTrue();
+        assertThat(bag.isHistoric()).isTrue();
+        assertThat(bag.getTotalItems()).isEqualTo(10L);
+        assertThat(bag.getTotalNodes()).isEqualTo(3);
+    }
+
+    private void assertSameAsGson(String json) throws Exception {
+        MessageBag decoded = decode(json);
+        assertThat(gson.toJson(decoded)).isEqualTo(gson.toJson(gson.fromJson(json, MessageBag.class)));
+    }
+
+    private MessageBag decode(String json) throws Exception {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        return new MessageBagDecoder(new MessageDecoder(), gson).decode(reader);
+    }
+}
@@ -0,0 +1,73 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import net.intelie.lognit.cli.model.Message;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MessageDecoderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void decodesLikeGson() throws Exception {
+        assertSameAsGson("{message:'abc', host:'A', date:'B', time:'C', facility:'D', severity:'E', app:'F', id:'123', metadata:{'aaa': ['bbb', 'ccc'], 'ddd': []}}");
+    }
+
+    @Test
+    public void coercesScalarsLikeGson() throws Exception {
+        assertSameAsGson("{id:123, host:true, date:null, metadata:{'aaa': [1, false, null], 'bbb': null}}");
+    }
+
+    @Test
+    public void ignoresUnknownFields() throws Exception {
+        assertSameAsGson("{id:'a', other:{x:[1, 2, {y:3}]}, more:[], message:'b'}");
+    }
+
+    @Test
+    public void decodesEmptyAndNull() throws Exception {
+        assertSameAsGson("{}");
+        assertThat(decode("null")).isNull();
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void rejectsDuplicateMetadataKeys() throws Exception {
+        decode("{metadata:{'aaa': ['1'], 'aaa': ['2']}}");
+    }
+
+    @Test
+    public void sharesRepeatedLowCardinalityStrings() throws Exception {
+        StringCache strings = new StringCache(1024);
+        MessageDecoder decoder = new MessageDecoder(strings);
+        String json = "{id:'1', host:'h', facility:'f', severity:'s', app:'a', date:'20120610', metadata:{'pri': ['0']}}";
+
+        Message a = decode(decoder, json), b = decode(decoder, json.replace("'1'", "'2'"));
+        assertThat(b.getHost()).isSameAs(a.getHost());
+        assertThat(b.getFacility()).isSameAs(a.getFacility());
+        assertThat(b.getSeverity()).isSameAs(a.getSeverity());
+        assertThat(b.getApp()).isSameAs(a.getApp());
+        assertThat(b.getMetadata().keySet().iterator().next()).isSameAs(a.getMetadata().keySet().iterator().next());
+        assertThat(b.getDate()).isNotSameAs(a.getDate());
+        assertThat(strings.getHits()).isEqualTo(5);
+        assertThat(strings.getMisses()).isEqualTo(5);
+    }
+
+    private void assertSameAsGson(String json) throws Exception {
+        Message decoded = decode(json);
+        assertThat(gson.toJson(decoded)).isEqualTo(gson.toJson(gson.fromJson(json, Message.class)));
+    }
+
+    private Message decode(String json) throws Exception {
+        return decode(new MessageDecoder(), json);
+    }
+
+    private Message decode(MessageDecoder decoder, String json) throws Exception {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        return decoder.decode(reader);
+    }
+}
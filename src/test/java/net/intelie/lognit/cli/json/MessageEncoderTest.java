@@ -0,0 +1,51 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import net.intelie.lognit.cli.model.Message;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MessageEncoderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void encodesLikeGson() throws Exception {
+        Map<String, List<String>> metadata = new LinkedHashMap<String, List<String>>();
+        metadata.put("pri", Arrays.asList("1", null, "<b>"));
+        metadata.put("none", null);
+        metadata.put("empty", Arrays.<String>asList());
+
+        assertSameAsGson(new Message("123", "A", "20120610", "101010", "D", "E", "F", "ação 'quoted' \"x\" a=b\n", metadata));
+    }
+
+    @Test
+    public void omitsNullFieldsLikeGson() throws Exception {
+        assertSameAsGson(new Message("123"));
+        assertSameAsGson(new Message(null));
+        assertSameAsGson(new Message(null, "A", null, null, null, "E", null, "", new LinkedHashMap<String, List<String>>()));
+    }
+
+    @Test
+    public void encodesLazyMessagesThroughTheirGetters() throws Exception {
+        byte[] json = "{'id':'1', 'host':'h', 'message':'a\\u0041', metadata:{'k':['v']}}".getBytes("UTF-8");
+        LazyMessage lazy = LazyMessage.of(new ByteScanner(), json, 0, json.length);
+
+        assertThat(encode(lazy)).isEqualTo(gson.toJson(lazy.toMessage()));
+    }
+
+    private void assertSameAsGson(Message message) {
+        assertThat(encode(message)).isEqualTo(gson.toJson(message));
+    }
+
+    private String encode(Message message) {
+        JsonBuffer buffer = new JsonBuffer();
+        new MessageEncoder().encode(message, buffer);
+        return buffer.toString();
+    }
+}
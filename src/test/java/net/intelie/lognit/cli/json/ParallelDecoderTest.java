@@ -0,0 +1,71 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.Welcome;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ParallelDecoderTest {
+    private final Gson gson = new Gson();
+    private final Jsonizer jsonizer = new Jsonizer();
+    private final ParallelDecoder decoder = new ParallelDecoder(jsonizer, Executors.newFixedThreadPool(3), 3);
+
+    @Test
+    public void decodesLargeBagsLikeTheSequentialDecoder() throws Exception {
+        String json = bag(2500, null);
+        assertThat(json.length()).isGreaterThan(ParallelDecoder.MIN_PARALLEL_LENGTH);
+
+        MessageBag bag = decoder.decode(json, MessageBag.class);
+        assertThat(gson.toJson(bag)).isEqualTo(gson.toJson(jsonizer.from(json, MessageBag.class)));
+    }
+
+    @Test
+    public void keepsItemsInTheirOriginalOrder() throws Exception {
+        MessageBag bag = decoder.decode(bag(3333, null), MessageBag.class);
+
+        assertThat(bag.getItems()).hasSize(3333);
+        for (int i = 0; i < 3333; i++)
+            if (i % 100 != 7) assertThat(bag.getItems().get(i).getId()).isEqualTo("id" + i);
+    }
+
+    @Test
+    public void decodesSmallPayloadsAndOtherTypesDirectly() throws Exception {
+        String json = "{items:[{id:'A'}], node:'n1', time:42, success:true}";
+        assertThat(gson.toJson(decoder.decode(json, MessageBag.class))).isEqualTo(gson.toJson(jsonizer.from(json, MessageBag.class)));
+        assertThat(decoder.decode("{'message':'abc'}", Welcome.class).getMessage()).isEqualTo("abc");
+        assertThat(decoder.decode(null, MessageBag.class)).isNull();
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void reportsMalformedItemsInAnyChunk() throws Exception {
+        decoder.decode(bag(2500, "{id:{}}"), MessageBag.class);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void rejectsTrailingDocumentsLikeTheSequentialDecoder() throws Exception {
+        decoder.decode(bag(2500, null) + " {}", MessageBag.class);
+    }
+
+    private String bag(int count, String broken) {
+        StringBuilder builder = new StringBuilder("{node:'n1', time:42, items:[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(", ");
+            if (i == count - 10 && broken != null)
+                builder.append(broken);
+            else if (i % 100 == 7)
+                builder.append("null");
+            else
+                builder.append("{'id':'id").append(i).append("', 'host':'host").append(i % 10)
+                        .append("', 'message':'ação \\\"[").append(i).append("]\\\" {x}', 'severity':'INFO', ")
+                        .append("'metadata':{'pri':['").append(i % 3).append("'], 'tags':['a', 'b']}}");
+        }
+        return builder.append("], stats:{hours:[], last:[], fields:{}}, success:true, realtime:false, total_items:")
+                .append(count).append(", total_nodes:3}").toString();
+    }
+}
@@ -0,0 +1,99 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import net.intelie.lognit.cli.model.RawDownloadBag;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RawDownloadStreamTest {
+    @Test
+    public void copiesItemsAsReceivedAndReadsCounters() throws Exception {
+        Iterator<RawDownloadBag> bags = stream("{\"items\":[{\"id\":\"A\",\"metadata\":{\"x\":[\"]}\"]}}, {\"id\":\"B\"}],\"current_hit\":2,\"total_hits\":10}\n" +
+                "{\"total_hits\":10, \"items\":[{\"id\":\"C\"}], \"current_hit\":3}");
+
+        RawDownloadBag bag = bags.next();
+        assertThat(text(bag)).isEqualTo("{\"id\":\"A\",\"metadata\":{\"x\":[\"]}\"]}}\n{\"id\":\"B\"}");
+        assertThat(bag.getCount()).isEqualTo(2);
+        assertThat(item(bag, 0)).isEqualTo("{\"id\":\"A\",\"metadata\":{\"x\":[\"]}\"]}}");
+        assertThat(item(bag, 1)).isEqualTo("{\"id\":\"B\"}");
+        assertThat(bag.getCurrentHit()).isEqualTo(2);
+        assertThat(bag.getTotalHits()).isEqualTo(10);
+
+        bag = bags.next();
+        assertThat(text(bag)).isEqualTo("{\"id\":\"C\"}");
+        assertThat(bag.getCurrentHit()).isEqualTo(3);
+        assertThat(bag.getTotalHits()).isEqualTo(10);
+        assertThat(bags.hasNext()).isFalse();
+    }
+
+    @Test
+    public void skipsUnknownKeysAndNulls() throws Exception {
+        RawDownloadBag bag = stream("{other:{\"items\":[1]}, 'items':null, note:'a\\'}', current_hit:null, total_hits:5.0}").next();
+
+        assertThat(bag.getCount()).isEqualTo(0);
+        assertThat(bag.getLength()).isEqualTo(0);
+        assertThat(bag.getAggregated()).isNull();
+        assertThat(bag.getCurrentHit()).isEqualTo(0);
+        assertThat(bag.getTotalHits()).isEqualTo(5);
+    }
+
+    @Test
+    public void decodesAggregatedValues() throws Exception {
+        RawDownloadBag bag = stream("{items:[], aggregated:[{abc:123}], current_hit:1, total_hits:1}").next();
+
+        assertThat(bag.getCount()).isEqualTo(0);
+        assertThat(bag.getAggregated().get(0).get("abc")).isEqualTo(new BigDecimal(123));
+    }
+
+    @Test
+    public void keepsMultiByteCharacters() throws Exception {
+        RawDownloadBag bag = stream("{items:[{message:'ação'}, {message:'日本'}]}").next();
+
+        assertThat(text(bag)).isEqualTo("{message:'ação'}\n{message:'日本'}");
+        assertThat(item(bag, 1)).isEqualTo("{message:'日本'}");
+    }
+
+    @Test
+    public void recordsWhereEachItemIs() throws Exception {
+        StringBuilder json = new StringBuilder("{items:[");
+        for (int i = 0; i < 100; i++)
+            json.append(i > 0 ? "," : "").append("{id:'").append(i).append("'}");
+        RawDownloadBag bag = stream(json.append("]}").toString()).next();
+
+        assertThat(bag.getCount()).isEqualTo(100);
+        assertThat(item(bag, 0)).isEqualTo("{id:'0'}");
+        assertThat(item(bag, 99)).isEqualTo("{id:'99'}");
+        assertThat(bag.getEnd(99)).isEqualTo(bag.getLength());
+    }
+
+    @Test(expected = JsonIOException.class)
+    public void failsOnTruncatedDocument() throws Exception {
+        Iterator<RawDownloadBag> bags = stream("{items:[{id:'A'}], total_hits:1}\n{items:[{id");
+
+        assertThat(bags.next().getTotalHits()).isEqualTo(1);
+        bags.next();
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void failsOnNonObjectDocument() throws Exception {
+        stream("[1, 2]").next();
+    }
+
+    private Iterator<RawDownloadBag> stream(String data) throws Exception {
+        return new Jsonizer().from(new ByteArrayInputStream(data.getBytes("UTF-8")), RawDownloadBag.class);
+    }
+
+    private String text(RawDownloadBag bag) {
+        return new String(bag.getItems(), 0, bag.getLength());
+    }
+
+    private String item(RawDownloadBag bag, int index) {
+        return new String(bag.getItems(), bag.getStart(index), bag.getEnd(index) - bag.getStart(index));
+    }
+}
@@ -0,0 +1,56 @@
+package net.intelie.lognit.cli.json;
+
+import net.intelie.lognit.cli.codec.RecordReader;
+import net.intelie.lognit.cli.codec.RecordWriter;
+import net.intelie.lognit.cli.model.MessageBag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+//not a unit test: run by hand, e.g. java -cp target/classes:target/test-classes:<deps> net.intelie.lognit.cli.json.RecordReaderBenchmark
+public class RecordReaderBenchmark {
+    private static final int ITEMS = 1000, BAGS = 50, ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Jsonizer jsonizer = new Jsonizer();
+        String json = JsonizerBenchmark.bag();
+        byte[] record = record(jsonizer.from(json, MessageBag.class));
+        System.out.printf("%d bags of %d messages, %,d KB as json, %,d KB as records%n",
+                BAGS, ITEMS, json.length() / 1024, record.length / 1024);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            report(round, "records", run(null, null, record));
+            report(round, "json", run(jsonizer, json, null));
+        }
+    }
+
+    private static long[] run(Jsonizer jsonizer, String json, byte[] record) throws IOException {
+        long allocated = allocated(), start = System.nanoTime(), sink = 0;
+        for (int i = 0; i < BAGS; i++) {
+            MessageBag bag = jsonizer != null ? jsonizer.from(json, MessageBag.class) :
+                    (MessageBag) new RecordReader(new ByteArrayInputStream(record)).read();
+            sink += bag.getItems().size();
+        }
+        if (sink != (long) BAGS * ITEMS) throw new IllegalStateException();
+        return new long[]{System.nanoTime() - start, allocated() - allocated};
+    }
+
+    private static void report(int round, String name, long[] result) {
+        if (round == 0 || round == ROUNDS - 1)
+            System.out.printf("%s %-8s %6.1fms %,8d KB allocated%n", round == 0 ? "cold" : "warm", name, result[0] / 1e6, result[1] / 1024);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static byte[] record(MessageBag bag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RecordWriter writer = new RecordWriter(bytes);
+        writer.write(bag);
+        writer.close();
+        return bytes.toByteArray();
+    }
+}
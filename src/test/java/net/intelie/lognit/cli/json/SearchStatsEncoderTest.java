@@ -0,0 +1,46 @@
+package net.intelie.lognit.cli.json;
+
+import com.google.gson.Gson;
+import net.intelie.lognit.cli.model.FreqPoint;
+import net.intelie.lognit.cli.model.SearchStats;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SearchStatsEncoderTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void encodesLikeGson() throws Exception {
+        Map<String, List<FreqPoint<String>>> fields = new LinkedHashMap<String, List<FreqPoint<String>>>();
+        fields.put("host", Arrays.asList(new FreqPoint<String>("a<b", 10), new FreqPoint<String>(null, 2)));
+        fields.put("none", null);
+        fields.put("app", Arrays.<FreqPoint<String>>asList());
+
+        assertSameAsGson(new SearchStats(
+                Arrays.asList(new FreqPoint<Long>(1339300000000L, 5), new FreqPoint<Long>(1339303600000L, 0)),
+                Arrays.asList(new FreqPoint<Long>(-1L, 1)), fields));
+    }
+
+    @Test
+    public void encodesEmptyAndPartialStatsLikeGson() throws Exception {
+        assertSameAsGson(new SearchStats());
+        assertSameAsGson(new SearchStats(null, Arrays.<FreqPoint<Long>>asList(null, new FreqPoint<Long>(3L, 4)), null));
+    }
+
+    @Test
+    public void encodesDecodedStatsLikeGson() throws Exception {
+        assertSameAsGson(gson.fromJson("{hours:[{key:1, freq:2}], last:[], fields:{host:[{key:'a', freq:3}]}}", SearchStats.class));
+    }
+
+    private void assertSameAsGson(SearchStats stats) {
+        JsonBuffer buffer = new JsonBuffer();
+        new SearchStatsEncoder().encode(stats, buffer);
+        assertThat(buffer.toString()).isEqualTo(gson.toJson(stats));
+    }
+}
@@ -0,0 +1,52 @@
+package net.intelie.lognit.cli.json;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StringCacheTest {
+    @Test
+    public void returnsTheFirstInstanceSeen() throws Exception {
+        StringCache cache = new StringCache(16);
+        String first = new String("localhost");
+
+        assertThat(cache.canonical(first)).isSameAs(first);
+        assertThat(cache.canonical(new String("localhost"))).isSameAs(first);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHitRate()).isEqualTo(50.0);
+    }
+
+    @Test
+    public void capacityIsBoundedToAPowerOfTwo() throws Exception {
+        assertThat(new StringCache(1000).getCapacity()).isEqualTo(1024);
+        assertThat(new StringCache(1024).getCapacity()).isEqualTo(1024);
+        assertThat(new StringCache(1).getCapacity()).isEqualTo(1);
+    }
+
+    @Test
+    public void collidingValuesReplaceEachOther() throws Exception {
+        StringCache cache = new StringCache(1);
+        String a = new String("a"), b = new String("b");
+
+        assertThat(cache.canonical(a)).isSameAs(a);
+        assertThat(cache.canonical(b)).isSameAs(b);
+        assertThat(cache.canonical(new String("b"))).isSameAs(b);
+        assertThat(cache.canonical(new String("a"))).isNotSameAs(a);
+        assertThat(cache.getCapacity()).isEqualTo(1);
+    }
+
+    @Test
+    public void doesNotKeepNullsOrLongValues() throws Exception {
+        StringCache cache = new StringCache(16);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i <= StringCache.MAX_LENGTH; i++) builder.append('x');
+        String value = builder.toString();
+
+        assertThat(cache.canonical(null)).isNull();
+        assertThat(cache.canonical(value)).isSameAs(value);
+        assertThat(cache.canonical(new String(value))).isNotSameAs(value);
+        assertThat(cache.getHits() + cache.getMisses()).isEqualTo(0);
+        assertThat(cache.getHitRate()).isEqualTo(0.0);
+    }
+}
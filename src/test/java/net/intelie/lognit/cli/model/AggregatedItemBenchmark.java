@@ -0,0 +1,112 @@
+package net.intelie.lognit.cli.model;
+
+import com.google.gson.Gson;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Random;
+
+//not a unit test: run by hand, e.g. java -cp target/classes:target/test-classes:<deps> net.intelie.lognit.cli.model.AggregatedItemBenchmark
+public class AggregatedItemBenchmark {
+    private static final int ROWS = 50000, ROUNDS = 20;
+    private static final String[] METRICS = {"count", "sum", "avg", "min", "max", "p99"};
+
+    public static void main(String[] args) {
+        String json = aggregated();
+        System.out.printf("%,d rows x %d metrics, %,d KB%n", ROWS, METRICS.length, json.length() / 1024);
+
+        Gson gson = new Gson();
+        if (!gson.fromJson(json, Aggregated.class).equals(gson.fromJson(json, OldAggregated.class)))
+            throw new IllegalStateException("normalizations disagree");
+
+        for (int round = 0; round < ROUNDS; round++) {
+            report(round, "normalize", run(gson, json, Aggregated.class));
+            report(round, "format", run(gson, json, OldAggregated.class));
+        }
+
+        //the same doubles without the gson decoding around them
+        double[] values = values(gson.fromJson(json, RawAggregated.class));
+        System.out.printf("%,d values alone%n", values.length);
+        for (int round = 0; round < ROUNDS; round++) {
+            report(round, "normalize", run(values, false));
+            report(round, "format", run(values, true));
+        }
+    }
+
+    private static long[] run(double[] values, boolean format) {
+        long allocated = allocated(), start = System.nanoTime(), sink = 0;
+        for (double value : values)
+            sink += (format ? OldAggregatedItem.format(value) : AggregatedItem.normalize(value)).scale();
+        if (sink < 0) throw new IllegalStateException();
+        return new long[]{System.nanoTime() - start, allocated() - allocated};
+    }
+
+    private static double[] values(RawAggregated rows) {
+        double[] values = new double[rows.size() * METRICS.length];
+        int i = 0;
+        for (LinkedHashMap<String, Object> row : rows)
+            for (String metric : METRICS)
+                values[i++] = (Double) row.get(metric);
+        return values;
+    }
+
+    private static long[] run(Gson gson, String json, Class<? extends ArrayList<?>> type) {
+        long allocated = allocated(), start = System.nanoTime();
+        if (gson.fromJson(json, type).size() != ROWS) throw new IllegalStateException();
+        return new long[]{System.nanoTime() - start, allocated() - allocated};
+    }
+
+    private static void report(int round, String name, long[] result) {
+        if (round == 0 || round == ROUNDS - 1)
+            System.out.printf("%s %-9s %6.1fms %,8d KB allocated%n", round == 0 ? "cold" : "warm", name, result[0] / 1e6, result[1] / 1024);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    //a group-by host and app, as the server answers it: counts are integral, the other metrics mostly are not
+    private static String aggregated() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < ROWS; i++) {
+            if (i > 0) builder.append(',');
+            builder.append("{\"host\":\"host").append(i / 50).append("\",\"app\":\"app").append(i % 50).append('"');
+            long count = 1 + random.nextInt(100000);
+            double min = random.nextDouble() * 10, max = min + random.nextDouble() * 5000;
+            double sum = count * (min + max) / 2;
+            double[] values = {count, sum, sum / count, min, max, min + (max - min) * 0.99};
+            for (int m = 0; m < METRICS.length; m++)
+                builder.append(",\"").append(METRICS[m]).append("\":").append(values[m]);
+            builder.append('}');
+        }
+        return builder.append(']').toString();
+    }
+
+    private static class OldAggregated extends ArrayList<OldAggregatedItem> {
+    }
+
+    private static class RawAggregated extends ArrayList<LinkedHashMap<String, Object>> {
+    }
+
+    //AggregatedItem before normalize(): a DecimalFormat per value, parsed back into a BigDecimal
+    private static class OldAggregatedItem extends LinkedHashMap<String, Object> {
+        public static final DecimalFormatSymbols SYMBOLS = new DecimalFormatSymbols(Locale.ENGLISH);
+
+        @Override
+        public Object put(String s, Object o) {
+            if (o instanceof Double)
+                o = format((Double) o);
+            return super.put(s, o);
+        }
+
+        static BigDecimal format(double value) {
+            return new BigDecimal(new DecimalFormat("#.######", SYMBOLS).format(value));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.intelie.lognit.cli.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AggregatedItemTest {
+    private final DecimalFormat format = new DecimalFormat("#.######", new DecimalFormatSymbols(Locale.ENGLISH));
+
+    @Test
+    public void normalizesDoublesToSixDecimals() throws Exception {
+        AggregatedItem item = new AggregatedItem();
+        item.put("a", 1.23456789);
+        item.put("b", 1200.0);
+        item.put("c", "text");
+        item.put("d", 42L);
+
+        assertThat(item.get("a")).isEqualTo(new BigDecimal("1.234568"));
+        assertThat(item.get("b")).isEqualTo(new BigDecimal("1200"));
+        assertThat(item.get("c")).isEqualTo("text");
+        assertThat(item.get("d")).isEqualTo(42L);
+    }
+
+    @Test
+    public void matchesDecimalFormatOnEdgeCases() throws Exception {
+        double[] values = {0.0, -0.0, 1.0, -1.0, 0.5, 1e-7, -1e-7, 5e-7, 1.5e-6, 2.5e-6, 0.0078125, -0.0078125,
+                0.1234565, 0.1234575, 1.0000005, 123456.1234565, 1e15, 1e20, 1.7976931348623157e308, 4.9e-324,
+                9007199254740993.0, 0.3, 2.675, 1e-6, 9.9999995e-1, 99.9999995};
+        for (double value : values)
+            assertSameAsDecimalFormat(value);
+    }
+
+    @Test
+    public void matchesDecimalFormatOnRandomValues() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(24) - 10);
+            assertSameAsDecimalFormat(random.nextBoolean() ? value : -value);
+            assertSameAsDecimalFormat(Math.round(value * 1e7) / 1e7);
+        }
+    }
+
+    private void assertSameAsDecimalFormat(double value) {
+        BigDecimal expected = new BigDecimal(format.format(value));
+        BigDecimal actual = AggregatedItem.normalize(value);
+        if (!expected.equals(actual))
+            throw new AssertionError(value + ": expected " + expected + " but was " + actual);
+    }
+}
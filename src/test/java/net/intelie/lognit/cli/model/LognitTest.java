@@ -7,6 +7,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -37,6 +39,14 @@ public class LognitTest {
         verify(client).getServer();
     }
 
+    @Test
+    public void testForServer() throws Exception {
+        RestClient other = mock(RestClient.class);
+        when(client.forServer("abc")).thenReturn(other);
+        when(other.getServer()).thenReturn("abc");
+
+        assertThat(lognit.forServer("abc").getServer()).isEqualTo("abc");
+    }
 
     @Test
     public void testAuthenticate() throws Exception {
@@ -130,6 +140,22 @@ public class LognitTest {
         assertThat(lognit.search("qwe asd", 20, false, true, "what", listener)).isEqualTo(handle);
     }
 
+    @Test
+    public void testSearchMany() throws Exception {
+        RestListenerHandle handle = mock(RestListenerHandle.class);
+        RestListener<MessageBag> listenerA = mock(RestListener.class);
+        RestListener<MessageBag> listenerB = mock(RestListener.class);
+
+        when(client.get("/rest/search?expression=qwe&windowLength=20&realtime=true&stats=false&span=", SearchChannel.class)).thenReturn(new SearchChannel("A"));
+        when(client.get("/rest/search?expression=asd&windowLength=20&realtime=true&stats=false&span=", SearchChannel.class)).thenReturn(new SearchChannel("B"));
+        Map<String, RestListener<MessageBag>> channels = new LinkedHashMap<String, RestListener<MessageBag>>();
+        channels.put("A", listenerA);
+        channels.put("B", listenerB);
+        when(client.listen(channels, MessageBag.class)).thenReturn(handle);
+
+        assertThat(lognit.search(Arrays.asList("qwe", "asd"), 20, true, false, null, Arrays.asList(listenerA, listenerB))).isEqualTo(handle);
+    }
+
     @Test
     public void testSearchWithError() throws Exception {
         exception.expect(IllegalArgumentException.class);
@@ -149,4 +175,11 @@ public class LognitTest {
         when(client.getStream("/rest/search/download?expression=qwe+asd&windowLength=20&span=what", DownloadBag.class)).thenReturn(stream);
         assertThat((Object) lognit.download("qwe asd", 20, "what")).isEqualTo(stream);
     }
+
+    @Test
+    public void testDownloadRaw() throws Exception {
+        RestStream<RawDownloadBag> stream = mock(RestStream.class);
+        when(client.getStream("/rest/search/download?expression=qwe+asd&windowLength=20&span=what", RawDownloadBag.class)).thenReturn(stream);
+        assertThat((Object) lognit.downloadRaw("qwe asd", 20, "what")).isEqualTo(stream);
+    }
 }
@@ -2,9 +2,11 @@ package net.intelie.lognit.cli.model;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.common.collect.Ordering;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +71,18 @@ public class MessageTest {
         assertThat(m4.compareTo(m1)).isPositive();
     }
 
+    @Test
+    public void whenComparingAgreesWithCaseInsensitiveReverseOrder() {
+        String[] ids = {"A", "a", "B", "ab", "aB", "Abc", "", "_", "[", "z", "Z0", "1", "10", "9",
+                "0123456789abcdefgh", "0123456789ABCDEFGH", "0123456789abcdefghi", "0123456789abcdefgh0",
+                "0123456789abcdefgiA", "0123456789abcdefg", "\u00e1", "a\u00e1", "a\u0000", "\u0131", "I", null};
+        Comparator<String> expected = Ordering.from(String.CASE_INSENSITIVE_ORDER).reverse().nullsLast();
+
+        for (String a : ids)
+            for (String b : ids)
+                assertThat(Integer.signum(new Message(a).compareTo(new Message(b)))).isEqualTo(Integer.signum(expected.compare(a, b)));
+    }
+
     @Test
     public void whenAreEqual() {
         Message m1 = new Message("A");
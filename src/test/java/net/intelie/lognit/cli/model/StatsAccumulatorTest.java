@@ -0,0 +1,92 @@
+package net.intelie.lognit.cli.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StatsAccumulatorTest {
+    @Test
+    public void whenEmpty() throws Exception {
+        assertThat(new StatsAccumulator().toStats()).isEqualTo(new SearchStats());
+    }
+
+    @Test
+    public void willAccumulateLikeMerging() throws Exception {
+        SearchStats A = new SearchStats(
+                Arrays.asList(new FreqPoint<Long>(1L, 2)),
+                Arrays.asList(new FreqPoint<Long>(3L, 4)),
+                new HashMap<String, List<FreqPoint<String>>>() {{
+                    put("host", Arrays.asList(new FreqPoint<String>("A", 5)));
+                }});
+
+        SearchStats B = new SearchStats(
+                Arrays.asList(new FreqPoint<Long>(1L, 2)),
+                Arrays.asList(new FreqPoint<Long>(4L, 5)),
+                new HashMap<String, List<FreqPoint<String>>>() {{
+                    put("host", Arrays.asList(new FreqPoint<String>("B", 8), new FreqPoint<String>("A", 2)));
+                    put("what", Arrays.asList(new FreqPoint<String>("C", 2)));
+                }});
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        accumulator.add(A);
+        accumulator.add(null);
+        accumulator.add(B);
+
+        SearchStats merged = new SearchStats();
+        merged.merge(A);
+        merged.merge(B);
+
+        assertThat(accumulator.toStats()).isEqualTo(merged);
+    }
+
+    @Test
+    public void partialStatsAreAvailableBetweenAdds() throws Exception {
+        StatsAccumulator accumulator = new StatsAccumulator();
+        accumulator.add(new SearchStats(Arrays.asList(new FreqPoint<Long>(1L, 2)), Arrays.asList(new FreqPoint<Long>(3L, 4))));
+        assertThat(accumulator.toStats().hours()).containsExactly(new FreqPoint<Long>(1L, 2));
+
+        accumulator.add(new SearchStats(Arrays.asList(new FreqPoint<Long>(1L, 3)), Arrays.asList(new FreqPoint<Long>(3L, 4))));
+        assertThat(accumulator.toStats().hours()).containsExactly(new FreqPoint<Long>(1L, 5));
+        assertThat(accumulator.toStats().last()).containsExactly(new FreqPoint<Long>(3L, 8));
+    }
+
+    @Test
+    public void willKeepOnlyTheFirst24Hours() throws Exception {
+        List<FreqPoint<Long>> hours = new ArrayList<FreqPoint<Long>>();
+        for (long i = 0; i < 30; i++)
+            hours.add(new FreqPoint<Long>(i, 1));
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        accumulator.add(new SearchStats(hours, new ArrayList<FreqPoint<Long>>()));
+
+        assertThat(accumulator.toStats().hours()).isEqualTo(hours.subList(0, 24));
+    }
+
+    @Test
+    public void willKeepExactTotalsBeyondTheTop10() throws Exception {
+        List<FreqPoint<String>> first = new ArrayList<FreqPoint<String>>();
+        for (int i = 0; i < 10; i++)
+            first.add(new FreqPoint<String>("K" + i, 10));
+        first.add(new FreqPoint<String>("X", 5));
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        accumulator.add(fields("host", first));
+        accumulator.add(fields("host", Arrays.asList(new FreqPoint<String>("X", 20))));
+
+        List<FreqPoint<String>> top = accumulator.toStats().fields().get("host");
+        assertThat(top).hasSize(10);
+        assertThat(top.get(0)).isEqualTo(new FreqPoint<String>("X", 25));
+    }
+
+    private SearchStats fields(final String field, final List<FreqPoint<String>> points) {
+        return new SearchStats(new ArrayList<FreqPoint<Long>>(), new ArrayList<FreqPoint<Long>>(),
+                new HashMap<String, List<FreqPoint<String>>>() {{
+                    put(field, points);
+                }});
+    }
+}
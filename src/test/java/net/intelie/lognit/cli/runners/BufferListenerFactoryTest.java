@@ -1,7 +1,10 @@
 package net.intelie.lognit.cli.runners;
 
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.formatters.AsyncFormatter;
 import net.intelie.lognit.cli.formatters.Formatter;
 import net.intelie.lognit.cli.formatters.FormatterSelector;
+import net.intelie.lognit.cli.json.Jsonizer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -13,11 +16,18 @@ public class BufferListenerFactoryTest {
 
     private BufferListenerFactory listenerFactory;
     private FormatterSelector selector;
+    private Jsonizer jsonizer;
 
     @Before
     public void setUp() throws Exception {
         selector = mock(FormatterSelector.class);
-        listenerFactory = new BufferListenerFactory(selector);
+        jsonizer = new Jsonizer();
+        listenerFactory = new BufferListenerFactory(mock(UserConsole.class), selector, jsonizer);
+    }
+
+    @Test
+    public void sharesTheDecodingStringCache() throws Exception {
+        assertThat(listenerFactory.getStrings()).isSameAs(jsonizer.getStrings());
     }
 
     @Test
@@ -25,7 +35,9 @@ public class BufferListenerFactoryTest {
         Formatter formatter = mock(Formatter.class);
         when(selector.select("test")).thenReturn(formatter);
         BufferListener listener = listenerFactory.create("test", false, false);
-        assertThat(listener.getFormatter()).isEqualTo(formatter);
+        assertThat(listener.getFormatter()).isInstanceOf(AsyncFormatter.class);
+        assertThat(((AsyncFormatter) listener.getFormatter()).getDelegate()).isEqualTo(formatter);
+        listener.close();
     }
 
 }
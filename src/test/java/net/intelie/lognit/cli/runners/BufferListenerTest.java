@@ -3,6 +3,7 @@ package net.intelie.lognit.cli.runners;
 import net.intelie.lognit.cli.formatters.ColoredFormatter;
 import net.intelie.lognit.cli.http.RestListener;
 import net.intelie.lognit.cli.model.*;
+import net.intelie.lognit.cli.state.Clock;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -10,6 +11,7 @@ import org.mockito.InOrder;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static net.intelie.lognit.cli.AggregatedItemHelper.map;
 import static org.fest.assertions.Assertions.assertThat;
@@ -258,6 +260,85 @@ public class BufferListenerTest {
         verifyNoMoreInteractions(printer);
     }
 
+    @Test(timeout = 1000)
+    public void keepsTheLatencyOfEachNode() {
+        BufferListener listener = new BufferListener(printer, false, false);
+        listener.receive(ms(false, true, "A", 10L, 2, m("A")));
+        listener.receive(ms(false, true, "B", 20L, 2, m("B")));
+        listener.receive(ms(true, true, "C", 30L, 2, m("C")));
+
+        Map<String, Long> latencies = listener.getLatencies();
+        assertThat(latencies).hasSize(2);
+        assertThat(latencies.get("A")).isEqualTo(10L);
+        assertThat(latencies.get("B")).isEqualTo(20L);
+    }
+
+    @Test(timeout = 1000)
+    public void whenTwoClustersAnswerMergesTheirHistory() {
+        BufferListener listener = new BufferListener(printer, false, false);
+        RestListener<MessageBag> sourceA = listener.newSource("A");
+        RestListener<MessageBag> sourceB = listener.newSource("B");
+        Message mA = m("A"), mB = m("B"), mC = m("C"), mD = m("D");
+        sourceA.receive(ms(false, true, 1, mC, mA));
+        sourceB.receive(ms(false, true, 2, mB));
+        sourceB.receive(ms(false, true, 2, mD));
+
+        assertThat(listener.waitHistoric(10000, 3)).isTrue();
+
+        InOrder orderly = inOrder(printer);
+        orderly.verify(printer).print(mB, false);
+        orderly.verify(printer).print(mC, false);
+        orderly.verify(printer).print(mD, false);
+        verify(printer, never()).print(mA, false);
+    }
+
+    @Test(timeout = 1000)
+    public void whenOneClusterIsMissingPrintsTheOthers() {
+        BufferListener listener = new BufferListener(printer, false, false);
+        RestListener<MessageBag> sourceA = listener.newSource("A");
+        listener.newSource("B");
+        Message mA = m("A"), mB = m("B");
+        sourceA.receive(ms(false, true, 1, mB, mA));
+        verify(printer).printStatus(eq(BufferListener.RESPONSE_RECEIVED), anyVararg());
+
+        assertThat(listener.waitHistoric(50, 3)).isFalse();
+
+        verify(printer).printStatus(BufferListener.MISSING_CLUSTER_RESPONSE, "B");
+        verify(printer).print(mA, false);
+        verify(printer).print(mB, false);
+        verifyNoMoreInteractions(printer);
+    }
+
+    @Test(timeout = 1000)
+    public void whenTheDeadlineHasPassedDoesNotWaitForAnyCluster() {
+        Clock clock = mock(Clock.class);
+        when(clock.currentMillis()).thenReturn(5000L);
+        BufferListener listener = new BufferListener(printer, false, false);
+        RestListener<MessageBag> sourceA = listener.newSource("A");
+        listener.newSource("B");
+        Message mA = m("A");
+        sourceA.receive(ms(false, true, 2, mA));
+
+        assertThat(listener.waitHistoric(clock, 1000L, 3)).isFalse();
+
+        verify(printer).printStatus(BufferListener.MISSING_CLUSTER_RESPONSE, "A");
+        verify(printer).printStatus(BufferListener.MISSING_CLUSTER_RESPONSE, "B");
+        verify(printer).print(mA, false);
+    }
+
+    @Test(timeout = 1000)
+    public void whenNoClusterAnswersPrintsNothing() {
+        BufferListener listener = new BufferListener(printer, false, false);
+        listener.newSource("A");
+        listener.newSource("B");
+
+        assertThat(listener.waitHistoric(50, 3)).isFalse();
+
+        verify(printer).printStatus(BufferListener.MISSING_CLUSTER_RESPONSE, "A");
+        verify(printer).printStatus(BufferListener.MISSING_CLUSTER_RESPONSE, "B");
+        verifyNoMoreInteractions(printer);
+    }
+
     @Test(timeout = 1000)
     public void whenTwoOfTwoMessagesArriveOntimePrintStats() {
         BufferListener listener = new BufferListener(printer, true, false);
@@ -313,6 +394,118 @@ public class BufferListenerTest {
         verifyNoMoreInteractions(printer);
     }
 
+    @Test(timeout = 1000)
+    public void progressiveWillReleaseInTheSameOrderAsBatch() {
+        BufferListener listener = new BufferListener(printer, false, false, true);
+        Message mA = m("A"), mB = m("B"), mC = m("C"), mD = m("D");
+        listener.receive(ms(false, true, 2, mD, mA));
+        listener.receive(ms(false, true, 2, mC, mB));
+
+        assertThat(listener.waitHistoric(10000, 3)).isTrue();
+
+        InOrder orderly = inOrder(printer);
+        orderly.verify(printer).print(mB, false);
+        orderly.verify(printer).print(mC, false);
+        orderly.verify(printer).print(mD, false);
+        verify(printer, never()).print(mA, false);
+    }
+
+    @Test(timeout = 1000)
+    public void progressiveWillReleaseWhatWasFoldedOnTimeout() {
+        BufferListener listener = new BufferListener(printer, false, false, true);
+        Message mA = m("A"), mB = m("B");
+        listener.receive(ms(false, true, 2, mB, mA));
+        verify(printer).printStatus(eq(BufferListener.RESPONSE_RECEIVED), anyVararg());
+
+        assertThat(listener.waitHistoric(50, 3)).isFalse();
+
+        verify(printer).printStatus(BufferListener.MISSING_NODES_RESPONSE);
+        verify(printer).print(mA, false);
+        verify(printer).print(mB, false);
+        verifyNoMoreInteractions(printer);
+    }
+
+    @Test(timeout = 1000)
+    public void progressiveKeepsOnlyTheWindowAndPrintsOnTheLastAnswer() throws Exception {
+        final BufferListener listener = new BufferListener(printer, false, false, true);
+        Thread waiting = new Thread() {
+            @Override
+            public void run() {
+                listener.waitHistoric(10000, 2);
+            }
+        };
+        waiting.start();
+        while (waiting.getState() != Thread.State.TIMED_WAITING) Thread.sleep(1);
+
+        Message mA = m("A"), mB = m("B"), mC = m("C"), mD = m("D"), mE = m("E"), mF = m("F");
+        listener.receive(ms(false, true, 3, mE, mC, mA));
+        listener.receive(ms(false, true, 3, mF, mB));
+        assertThat(listener.retained()).isEqualTo(2);
+        verify(printer, never()).print(any(Message.class), anyBoolean());
+
+        listener.receive(ms(false, true, 3, mD));
+        InOrder orderly = inOrder(printer);
+        orderly.verify(printer).print(mE, false);
+        orderly.verify(printer).print(mF, false);
+        assertThat(listener.retained()).isEqualTo(0);
+
+        waiting.join();
+        verify(printer, times(2)).print(any(Message.class), anyBoolean());
+    }
+
+    @Test(timeout = 1000)
+    public void batchKeepsTheAnswersUntilReleased() {
+        BufferListener listener = new BufferListener(printer, false, false);
+        listener.receive(ms(false, true, 2, m("C"), m("A")));
+        listener.receive(ms(false, true, 2, m("B")));
+        assertThat(listener.retained()).isEqualTo(3);
+
+        assertThat(listener.waitHistoric(10000, 2)).isTrue();
+        assertThat(listener.retained()).isEqualTo(0);
+    }
+
+    @Test(timeout = 1000)
+    public void willWarnAboutSpilledAndDroppedRealtimeResponses() {
+        BufferListener listener = new BufferListener(printer, false, false, false, new RealtimeBuffer(0, 0));
+        listener.receive(ms(true, true, 2, m("A")));
+        listener.receive(ms(true, true, 2, m("B")));
+        listener.releaseAll();
+
+        verify(printer).printStatus(BufferListener.REALTIME_SPILLED, 0L, 2L);
+        verifyNoMoreInteractions(printer);
+    }
+
+    @Test(timeout = 1000)
+    public void willNotPrintRealtimeMessagesAlreadyPrintedByHistory() {
+        BufferListener listener = new BufferListener(printer, false, false);
+        Message mA = m("A"), mB = m("B"), mC = m("C");
+        listener.receive(ms(false, true, 1, mB, mA));
+        listener.receive(ms(true, true, 1, mB, mC));
+
+        assertThat(listener.waitHistoric(10000, 3)).isTrue();
+        listener.releaseAll();
+        listener.receive(ms(true, true, 1, mC));
+
+        InOrder orderly = inOrder(printer);
+        orderly.verify(printer).print(mA, false);
+        orderly.verify(printer).print(mB, false);
+        orderly.verify(printer).print(mC, false);
+        verify(printer, times(1)).print(mB, false);
+        verify(printer, times(1)).print(mC, false);
+    }
+
+    @Test(timeout = 1000)
+    public void partialStatsAreAvailableBeforeAllNodesAnswer() {
+        BufferListener listener = new BufferListener(printer, true, false);
+        SearchStats A = new SearchStats(
+                Arrays.asList(new FreqPoint<Long>(1L, 2)),
+                Arrays.asList(new FreqPoint<Long>(3L, 4)));
+
+        listener.receive(new MessageBag(Arrays.<Message>asList(), A, null, "AAA", 3L, null, true, false, 2, 42L));
+
+        assertThat(listener.partialStats()).isEqualTo(A);
+    }
+
     private MessageBag ms(String message, String node) {
         return new MessageBag(null, null, null, node, null, message, false, false, 0, 0L);
     }
@@ -0,0 +1,150 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.gson.JsonIOException;
+import net.intelie.lognit.cli.http.ReadAheadInputStream;
+import net.intelie.lognit.cli.http.RestStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class DownloadPipelineTest {
+    private final List<Long> detached = Collections.synchronizedList(new ArrayList<Long>());
+
+    @Test(timeout = 5000)
+    public void deliversBagsInOrder() throws Exception {
+        DownloadPipeline<Long> pipeline = new DownloadPipeline<Long>(stream(1L, 2L, 3L, 4L, 5L), new Source(), 2);
+
+        assertThat(drain(pipeline)).isEqualTo(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+        assertThat(detached).isEqualTo(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+        assertThat(pipeline.hasNext()).isFalse();
+    }
+
+    @Test(timeout = 5000)
+    public void decodesAheadOnlyAsMuchAsItBuffers() throws Exception {
+        DownloadPipeline<Long> pipeline = new DownloadPipeline<Long>(stream(1L, 2L, 3L, 4L, 5L, 6L), new Source(), 2);
+
+        assertThat(pipeline.next()).isEqualTo(1L);
+        while (detached.size() < 4) Thread.sleep(5);
+        Thread.sleep(50);
+        //the bag taken with the first, the ones queued and the one waiting for room; never the whole stream
+        assertThat(detached.size()).isLessThanOrEqualTo(5);
+
+        assertThat(drain(pipeline)).isEqualTo(Arrays.asList(2L, 3L, 4L, 5L, 6L));
+    }
+
+    @Test(timeout = 5000)
+    public void reportsFailuresAfterTheBagsBeforeThem() throws Exception {
+        final Iterator<Long> values = Arrays.asList(1L, 2L).iterator();
+        Iterator<Long> failing = new Iterator<Long>() {
+            @Override
+            public boolean hasNext() {
+                if (!values.hasNext()) throw new JsonIOException(new IOException("connection reset"));
+                return true;
+            }
+
+            @Override
+            public Long next() {
+                return values.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        DownloadPipeline<Long> pipeline = new DownloadPipeline<Long>(new RestStream<Long>(failing, null), new Source(), 8);
+
+        assertThat(pipeline.next()).isEqualTo(1L);
+        assertThat(pipeline.next()).isEqualTo(2L);
+        try {
+            pipeline.hasNext();
+            fail("should have failed");
+        } catch (JsonIOException e) {
+            assertThat(e.getCause().getMessage()).isEqualTo("connection reset");
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void closingClosesTheSource() throws Exception {
+        final boolean[] closed = new boolean[1];
+        RestStream<Long> source = new RestStream<Long>(Arrays.asList(1L, 2L, 3L).iterator(), null) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        DownloadPipeline<Long> pipeline = new DownloadPipeline<Long>(source, new Source(), 1);
+
+        assertThat(pipeline.next()).isEqualTo(1L);
+        pipeline.close();
+
+        assertThat(closed[0]).isTrue();
+    }
+
+    @Test(timeout = 5000)
+    public void reportsEachStage() throws Exception {
+        ReadAheadInputStream body = new ReadAheadInputStream(new ByteArrayInputStream(new byte[10]));
+        DownloadPipeline<Long> pipeline = new DownloadPipeline<Long>(new RestStream<Long>(Arrays.asList(1L).iterator(), body), new Source(), 1);
+        drain(pipeline);
+        pipeline.close();
+
+        List<String> names = new ArrayList<String>();
+        for (DownloadPipeline.Stage stage : pipeline.getStages()) {
+            names.add(stage.getName());
+            assertThat(stage.getBusyMillis()).isGreaterThanOrEqualTo(0);
+            assertThat(stage.getIdleMillis()).isGreaterThanOrEqualTo(0);
+        }
+        assertThat(names).isEqualTo(Arrays.asList("read", "decode", "format"));
+    }
+
+    @Test
+    public void stageBusyPercent() throws Exception {
+        assertThat(new DownloadPipeline.Stage("a", 3000000, 1000000).getBusyPercent()).isEqualTo(75.0);
+        assertThat(new DownloadPipeline.Stage("a", 0, 0).getBusyPercent()).isEqualTo(0.0);
+        assertThat(new DownloadPipeline.Stage("a", -5, 2000000).getBusyMillis()).isEqualTo(0);
+        assertThat(new DownloadPipeline.Stage("a", -5, 2000000).getIdleMillis()).isEqualTo(2);
+    }
+
+    private RestStream<Long> stream(Long... values) {
+        return new RestStream<Long>(Arrays.asList(values).iterator(), null);
+    }
+
+    private List<Long> drain(Iterator<Long> iterator) {
+        List<Long> values = new ArrayList<Long>();
+        while (iterator.hasNext())
+            values.add(iterator.next());
+        return values;
+    }
+
+    private class Source implements SlicedDownload.Source<Long> {
+        @Override
+        public RestStream<Long> open(String span) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Long detach(Long bag) {
+            detached.add(bag);
+            return bag;
+        }
+
+        @Override
+        public long currentHit(Long bag) {
+            return bag;
+        }
+
+        @Override
+        public long totalHits(Long bag) {
+            return 10;
+        }
+    }
+}
@@ -1,25 +1,45 @@
 package net.intelie.lognit.cli.runners;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.gson.JsonIOException;
 import net.intelie.lognit.cli.BlockingIterator;
 import net.intelie.lognit.cli.SupportTimer;
 import net.intelie.lognit.cli.UserConsole;
 import net.intelie.lognit.cli.UserOptions;
 import net.intelie.lognit.cli.formatters.Formatter;
 import net.intelie.lognit.cli.formatters.FormatterSelector;
+import net.intelie.lognit.cli.http.DecodingInputStream;
 import net.intelie.lognit.cli.http.RestStream;
+import net.intelie.lognit.cli.json.Jsonizer;
+import net.intelie.lognit.cli.model.Aggregated;
 import net.intelie.lognit.cli.model.DownloadBag;
 import net.intelie.lognit.cli.model.Lognit;
 import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.RawDownloadBag;
+import net.intelie.lognit.cli.state.DownloadCheckpoint;
+import net.intelie.lognit.cli.state.DownloadCheckpointStorage;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static junit.framework.Assert.fail;
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 public class DownloadRunnerTest {
@@ -30,6 +50,8 @@ public class DownloadRunnerTest {
     private UserConsole console;
     private DownloadRunner runner;
     private InOrder orderly;
+    private DownloadCheckpointStorage checkpoints;
+    private File directory;
 
     @Before
     public void setUp() throws Exception {
@@ -38,7 +60,16 @@ public class DownloadRunnerTest {
         lognit = mock(Lognit.class);
         console = mock(UserConsole.class);
         orderly = inOrder(formatters, lognit, console);
-        runner = new DownloadRunner(console, lognit, formatters, timer);
+        directory = Files.createTempDir();
+        checkpoints = new DownloadCheckpointStorage(new File(directory, "download"));
+        runner = new DownloadRunner(console, lognit, formatters, timer, checkpoints);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File file : directory.listFiles())
+            file.delete();
+        directory.delete();
     }
 
     @Test(timeout = 1000)
@@ -59,15 +90,16 @@ public class DownloadRunnerTest {
         timer.runNextAt(0);
         orderly.verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 0L, 0L, 0.0/0, 0L, 0.0);
 
+        //bags are printed on this thread while the pipeline decodes the next ones on its own
         iterator.releaseAndWaitNext();
-        verify(formatter).print(msg("A"), false);
-        verify(formatter).print(msg("B"), false);
+        verify(formatter, timeout(1000)).print(msg("A"), false);
+        verify(formatter, timeout(1000)).print(msg("B"), false);
         timer.runNextAt(1000L);
         orderly.verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 0L, 10L, 0.0, 0L, 0.0);
 
         iterator.releaseAndWaitNext();
-        verify(formatter).print(msg("C"), false);
-        verify(formatter).print(msg("D"), false);
+        verify(formatter, timeout(1000)).print(msg("C"), false);
+        verify(formatter, timeout(1000)).print(msg("D"), false);
         timer.runNextAt(2000L);
         orderly.verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 4L, 10L, 40.0, 4L, 1.5);
 
@@ -80,6 +112,280 @@ public class DownloadRunnerTest {
         orderly.verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 10L, 10L, 100.0, 6L, 0.0);
     }
 
+    @Test(timeout = 1000)
+    public void whenTheConnectionFailsMidwayReportsAndCloses() throws Exception {
+        Iterator<DownloadBag> iterator = mock(Iterator.class);
+        when(iterator.hasNext()).thenReturn(true).thenThrow(new JsonIOException(new IOException("connection reset")));
+        when(iterator.next()).thenReturn(bag(4, 10, "A", "B"));
+        RestStream<DownloadBag> stream = stream(iterator);
+        Formatter formatter = formatters.select("someformat");
+        when(lognit.download("abc", 42, null)).thenReturn(stream);
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat"))).isEqualTo(1);
+
+        verify(formatter).print(msg("A"), false);
+        verify(formatter).print(msg("B"), false);
+        verify(stream).close();
+        timer.assertNoMoreTasks();
+        orderly.verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 4L, 10L, 40.0, 4L, 1.5);
+        orderly.verify(console).println(DownloadRunner.DOWNLOAD_FAILED, 2L, "connection reset");
+        orderly.verify(console).println(DownloadRunner.RESUME_HINT, 2L);
+    }
+
+    @Test(timeout = 1000)
+    public void whenTheStreamIsCutMidItemReportsAndHintsResume() throws Exception {
+        byte[] body = ("{\"items\":[{\"id\":\"A\"},{\"id\":\"B\"}],\"current_hit\":2,\"total_hits\":4}\n" +
+                "{\"items\":[{\"id\":\"C\"},{\"id\":\"D").getBytes(Charsets.UTF_8);
+        Iterator<DownloadBag> iterator = new Jsonizer().from(new ByteArrayInputStream(body), DownloadBag.class);
+        Formatter formatter = formatters.select("someformat");
+        when(lognit.download("abc", 42, null)).thenReturn(stream(iterator));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat"))).isEqualTo(1);
+
+        verify(formatter, times(2)).print(any(Message.class), eq(false));
+        orderly.verify(console).println(DownloadRunner.DOWNLOAD_FAILED, 2L, "truncated JSON document");
+        orderly.verify(console).println(DownloadRunner.RESUME_HINT, 2L);
+    }
+
+    @Test(timeout = 1000)
+    public void whenTheConnectionFailsLeavesACheckpoint() throws Exception {
+        Iterator<DownloadBag> iterator = mock(Iterator.class);
+        when(iterator.hasNext()).thenReturn(true).thenThrow(new JsonIOException(new IOException("connection reset")));
+        when(iterator.next()).thenReturn(bag(4, 10, msg("A"), new Message("B", null, "20120610", "191553", null, null, null, null, null)));
+        when(lognit.download("abc", 42, "last day")).thenReturn(stream(iterator));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat", "--span", "last day"))).isEqualTo(1);
+
+        assertThat(stored("abc", "last day", "someformat").load()).isEqualTo(new DownloadCheckpoint("abc", "last day", "someformat", 42, 2, 4, 10, "B", "20120610", "191553"));
+    }
+
+    @Test(timeout = 1000)
+    public void whenFinishingRemovesTheCheckpoint() throws Exception {
+        stored("abc", null, "someformat").store(new DownloadCheckpoint("abc", null, "someformat", 42, 1, 1, 2, "A-id", null, null));
+        when(lognit.download("abc", 42, null)).thenReturn(stream(bag(2, 2, "A", "B")));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat"))).isEqualTo(0);
+
+        assertThat(stored("abc", null, "someformat").load()).isNull();
+    }
+
+    @Test(timeout = 1000)
+    public void whenResumingSkipsMessagesAlreadyWritten() throws Exception {
+        stored("abc", null, "someformat").store(new DownloadCheckpoint("abc", null, "someformat", 42, 3, 4, 5, "C", "20120610", "191553"));
+        RestStream<DownloadBag> stream = stream(bag(2, 5, "A", "B"), bag(4, 5, "C", "D"), bag(5, 5, "E"));
+        Formatter formatter = formatters.select("someformat");
+        when(lognit.download("abc", 42, null)).thenReturn(stream);
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat", "-d", "--resume"))).isEqualTo(0);
+
+        orderly.verify(console).println(DownloadRunner.RESUMING, 3L);
+        verify(formatter, never()).print(msg("A"), false);
+        verify(formatter, never()).print(msg("B"), false);
+        verify(formatter, never()).print(msg("C"), false);
+        verify(formatter).print(msg("D"), false);
+        verify(formatter).print(msg("E"), false);
+        verify(console, never()).println(eq(DownloadRunner.RESUME_MISMATCH), anyVararg());
+        verify(stream).close();
+        assertThat(stored("abc", null, "someformat").load()).isNull();
+    }
+
+    @Test(timeout = 1000)
+    public void whenResumingWarnsIfResultsChanged() throws Exception {
+        stored("abc", null, "someformat").store(new DownloadCheckpoint("abc", null, "someformat", 42, 1, 1, 2, "X", null, null));
+        Formatter formatter = formatters.select("someformat");
+        when(lognit.download("abc", 42, null)).thenReturn(stream(bag(2, 2, "A", "B")));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat", "-d", "--resume"))).isEqualTo(0);
+
+        verify(console).println(DownloadRunner.RESUME_MISMATCH, 1L, "X");
+        verify(formatter, never()).print(msg("A"), false);
+        verify(formatter).print(msg("B"), false);
+    }
+
+    @Test(timeout = 1000)
+    public void whenResumingAnotherDownloadStartsFromTheBeginning() throws Exception {
+        stored("other", null, "someformat").store(new DownloadCheckpoint("other", null, "someformat", 42, 1, 1, 2, "A", null, null));
+        Formatter formatter = formatters.select("someformat");
+        when(lognit.download("abc", 42, null)).thenReturn(stream(bag(2, 2, "A", "B")));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat", "-d", "--resume"))).isEqualTo(0);
+
+        verify(console).println(DownloadRunner.NOTHING_TO_RESUME);
+        verify(formatter).print(msg("A"), false);
+        verify(formatter).print(msg("B"), false);
+        assertThat(stored("other", null, "someformat").load()).isNotNull();
+    }
+
+    @Test(timeout = 1000)
+    public void checkpointsAreKeptPerServer() throws Exception {
+        checkpoints.forDownload("other", "abc", null, "someformat", 42).store(new DownloadCheckpoint("abc", null, "someformat", 42, 1, 1, 2, "A", null, null));
+        when(lognit.download("abc", 42, null)).thenReturn(stream(bag(2, 2, "A", "B")));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat", "-d", "--resume"))).isEqualTo(0);
+
+        verify(console).println(DownloadRunner.NOTHING_TO_RESUME);
+        assertThat(checkpoints.forDownload("other", "abc", null, "someformat", 42).load()).isNotNull();
+    }
+
+    @Test(timeout = 1000)
+    public void whenFailingBeforeWritingAnythingReportsNothingWritten() throws Exception {
+        Iterator<DownloadBag> iterator = mock(Iterator.class);
+        when(iterator.hasNext()).thenThrow(new JsonIOException(new IOException("connection reset")));
+        when(lognit.download("abc", 42, null)).thenReturn(stream(iterator));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "someformat"))).isEqualTo(1);
+
+        verify(console).println(DownloadRunner.DOWNLOAD_FAILED, 0L, "connection reset");
+        verify(console, never()).println(eq(DownloadRunner.RESUME_HINT), anyVararg());
+    }
+
+    @Test(timeout = 1000)
+    public void whenResumingAsJsonSkipsLinesAlreadyWritten() throws Exception {
+        stored("abc", null, "json").store(new DownloadCheckpoint("abc", null, "json", 42, 1, 1, 3, null, null, null));
+        char[] items = "{\"id\":\"A\"}\n{\"id\":\"B\"}\n{\"id\":\"C\"}".toCharArray();
+        when(lognit.downloadRaw("abc", 42, null)).thenReturn(
+                new RestStream<RawDownloadBag>(Arrays.asList(raw(items, items.length, 3, null, 3, 3)).iterator(), null));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "json", "-d", "--resume"))).isEqualTo(0);
+
+        verify(console).printOut(items, 11, 21);
+    }
+
+    @Test(timeout = 1000)
+    public void whenDownloadingAsJsonCopiesItemsAsReceived() throws Exception {
+        char[] items = "{\"id\":\"A\"}\n{\"id\":\"B\"}".toCharArray();
+        Aggregated aggregated = new Aggregated();
+        RawDownloadBag bag1 = raw(items, items.length, 2, null, 2, 3);
+        RawDownloadBag bag2 = raw(items, 0, 0, aggregated, 3, 3);
+        RestStream<RawDownloadBag> stream = spy(new RestStream<RawDownloadBag>(Arrays.asList(bag1, bag2).iterator(), null));
+        Formatter formatter = formatters.select("json");
+        when(lognit.downloadRaw("abc", 42, null)).thenReturn(stream);
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "json"))).isEqualTo(0);
+
+        verify(console).printOut(items, 0, items.length);
+        verify(console, never()).printOut(items, 0, 0);
+        verify(formatter).print(aggregated);
+        verify(formatter, never()).print(any(Message.class), anyBoolean());
+        verify(lognit, never()).download(anyString(), anyInt(), anyString());
+        verify(stream).close();
+        verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 3L, 3L, 100.0, 3L, 0.0);
+    }
+
+    @Test(timeout = 5000)
+    public void whenTheResponseWasCompressedShowsBothSizes() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(new byte[200 * 1024]);
+        gzip.close();
+        DecodingInputStream body = new DecodingInputStream(new ByteArrayInputStream(compressed.toByteArray()), "gzip");
+        ByteStreams.toByteArray(body);
+
+        char[] items = "{\"id\":\"A\"}".toCharArray();
+        when(lognit.downloadRaw("abc", 42, null)).thenReturn(new RestStream<RawDownloadBag>(
+                Arrays.asList(raw(items, items.length, 1, null, 1, 1)).iterator(), body, body));
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "json"))).isEqualTo(0);
+
+        verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS + DownloadRunner.TRANSFER_STATUS,
+                1L, 1L, 100.0, 1L, 0.0, compressed.size() / 1024L, 200L);
+    }
+
+    @Test(timeout = 5000)
+    public void whenDownloadingToAGzipFileWritesThroughIt() throws Exception {
+        File file = File.createTempFile("download", ".gz");
+        try {
+            char[] items = "{\"id\":\"A\"}\n{\"id\":\"B\"}".toCharArray();
+            when(lognit.downloadRaw("abc", 42, null)).thenReturn(
+                    new RestStream<RawDownloadBag>(Arrays.asList(raw(items, items.length, 2, null, 2, 2)).iterator(), null));
+
+            assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "json", "-d", "-O", file.getPath()))).isEqualTo(0);
+
+            InputStream in = new GZIPInputStream(new FileInputStream(file));
+            assertThat(new String(ByteStreams.toByteArray(in), Charsets.UTF_8)).isEqualTo("{\"id\":\"A\"}\n{\"id\":\"B\"}\n");
+            in.close();
+            verify(console, never()).printOut(any(char[].class), anyInt(), anyInt());
+            verify(console).printStill(eq(DownloadRunner.FILE_STATUS), anyVararg());
+            assertThat(new File(file.getPath() + ".checkpoint").exists()).isFalse();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void whenResumingAFileKeepsWhatTheCheckpointCovers() throws Exception {
+        File file = File.createTempFile("download", ".txt");
+        try {
+            Files.write("{\"id\":\"A\"}\n{\"id\":\"B\"", file, Charsets.UTF_8);
+            checkpoints.nextTo(file).store(new DownloadCheckpoint("abc", null, "json", 42, 1, 1, 3, null, null, null, 11));
+            char[] items = "{\"id\":\"A\"}\n{\"id\":\"B\"}\n{\"id\":\"C\"}".toCharArray();
+            when(lognit.downloadRaw("abc", 42, null)).thenReturn(
+                    new RestStream<RawDownloadBag>(Arrays.asList(raw(items, items.length, 3, null, 3, 3)).iterator(), null));
+
+            assertThat(runner.run(new UserOptions("abc", "-n", "42", "-o", "json", "-d", "--resume", "-O", file.getPath()))).isEqualTo(0);
+
+            assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("{\"id\":\"A\"}\n{\"id\":\"B\"}\n{\"id\":\"C\"}\n");
+            verify(console).println(DownloadRunner.RESUMING, 1L);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void whenSlicingTheSpanMergesSlicesInOrder() throws Exception {
+        Lognit slices = mock(Lognit.class);
+        when(lognit.getServer()).thenReturn("srv");
+        when(lognit.forServer("srv")).thenReturn(slices);
+        when(slices.download("abc", 0, "2012-06-01 00:00:00 to 2012-06-01 23:59:59")).thenReturn(stream(bag(2, 2, "A", "B")));
+        when(slices.download("abc", 0, "2012-06-02 00:00:00 to 2012-06-03 00:00:00")).thenReturn(stream(bag(1, 3, "C"), bag(3, 3, "D", "E")));
+        Formatter formatter = formatters.select("someformat");
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "0", "-o", "someformat", "--span", "2012-06-01 to 2012-06-03", "--slices", "2"))).isEqualTo(0);
+
+        InOrder printed = inOrder(formatter);
+        for (String id : Arrays.asList("A", "B", "C", "D", "E"))
+            printed.verify(formatter).print(msg(id), false);
+        verify(lognit, never()).download(anyString(), anyInt(), anyString());
+        verify(console).printStill(DownloadRunner.DOWNLOAD_STATUS, 5L, 5L, 100.0, 5L, 0.0);
+    }
+
+    @Test(timeout = 5000)
+    public void whenSlicingASpanWithinTheLineLimitSlicesIt() throws Exception {
+        Lognit slices = mock(Lognit.class);
+        when(lognit.getServer()).thenReturn("srv");
+        when(lognit.forServer("srv")).thenReturn(slices);
+        RestStream<DownloadBag> probe = stream(bag(1, 3, "C"));
+        when(lognit.download("abc", 1, "2012-06-01 to 2012-06-03")).thenReturn(probe);
+        when(slices.download("abc", 5, "2012-06-01 00:00:00 to 2012-06-01 23:59:59")).thenReturn(stream(bag(1, 1, "A")));
+        when(slices.download("abc", 5, "2012-06-02 00:00:00 to 2012-06-03 00:00:00")).thenReturn(stream(bag(2, 2, "B", "C")));
+        Formatter formatter = formatters.select("someformat");
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "5", "-o", "someformat", "--span", "2012-06-01 to 2012-06-03", "--slices", "2"))).isEqualTo(0);
+
+        InOrder printed = inOrder(formatter);
+        for (String id : Arrays.asList("A", "B", "C"))
+            printed.verify(formatter).print(msg(id), false);
+        verify(probe).close();
+        verify(lognit, never()).download("abc", 5, "2012-06-01 to 2012-06-03");
+        verify(console, never()).println(eq(DownloadRunner.SLICES_OVER_LIMIT), anyVararg());
+    }
+
+    @Test(timeout = 5000)
+    public void whenSlicingASpanOverTheLineLimitDownloadsItWhole() throws Exception {
+        RestStream<DownloadBag> probe = stream(bag(1, 7, "E"));
+        when(lognit.download("abc", 1, "2012-06-01 to 2012-06-03")).thenReturn(probe);
+        when(lognit.download("abc", 3, "2012-06-01 to 2012-06-03")).thenReturn(stream(bag(3, 3, "C", "D", "E")));
+        Formatter formatter = formatters.select("someformat");
+
+        assertThat(runner.run(new UserOptions("abc", "-n", "3", "-o", "someformat", "--span", "2012-06-01 to 2012-06-03", "--slices", "2"))).isEqualTo(0);
+
+        verify(console).println(DownloadRunner.SLICES_OVER_LIMIT, 7L, 3);
+        verify(probe).close();
+        verify(formatter).print(msg("C"), false);
+        verify(formatter).print(msg("E"), false);
+        verify(lognit, never()).forServer(anyString());
+    }
+
     private Thread runInAnotherThread(final UserOptions options) throws Exception {
         Thread thread = new Thread() {
             @Override
@@ -103,6 +409,10 @@ public class DownloadRunnerTest {
         return spy(new RestStream<DownloadBag>(iterator, null));
     }
 
+    private RestStream<DownloadBag> stream(DownloadBag... bags) {
+        return stream(Arrays.asList(bags).iterator());
+    }
+
     private DownloadBag bag(long current, long total, String... ids) {
         List<Message> messages = new ArrayList<Message>();
         for (String id : ids)
@@ -113,4 +423,24 @@ public class DownloadRunnerTest {
     private Message msg(String id) {
         return new Message(id);
     }
+
+    private DownloadBag bag(long current, long total, Message... messages) {
+        return new DownloadBag(Arrays.asList(messages), null, current, total);
+    }
+
+    private RawDownloadBag raw(char[] items, int length, int count, Aggregated aggregated, long currentHit, long totalHits) {
+        int[] offsets = new int[2 * count];
+        for (int i = 0, start = 0; i < count; i++) {
+            int end = start;
+            while (end < length && items[end] != '\n') end++;
+            offsets[2 * i] = start;
+            offsets[2 * i + 1] = end;
+            start = end + 1;
+        }
+        return new RawDownloadBag(items, length, offsets, count, aggregated, currentHit, totalHits);
+    }
+
+    private DownloadCheckpointStorage stored(String query, String span, String format) {
+        return checkpoints.forDownload(null, query, span, format, 42);
+    }
 }
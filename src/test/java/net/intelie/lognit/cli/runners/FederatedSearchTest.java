@@ -0,0 +1,196 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.UserOptions;
+import net.intelie.lognit.cli.http.RestListener;
+import net.intelie.lognit.cli.http.RestListenerHandle;
+import net.intelie.lognit.cli.http.UnauthorizedException;
+import net.intelie.lognit.cli.model.Lognit;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.state.Clock;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class FederatedSearchTest {
+    private UserConsole console;
+    private FederatedSearch federated;
+    private UserOptions options;
+    private RestListener<MessageBag> listener;
+
+    @Before
+    public void setUp() throws Exception {
+        console = mock(UserConsole.class);
+        federated = new FederatedSearch(console, new Clock());
+        options = new UserOptions("abc", "-n", "42");
+        listener = mock(RestListener.class);
+    }
+
+    @Test(timeout = 5000)
+    public void whenAllServersAnswer() throws Exception {
+        Lognit lognitA = lognit(), lognitB = lognit();
+        RestListenerHandle handleA = mock(RestListenerHandle.class);
+        RestListenerHandle handleB = mock(RestListenerHandle.class);
+        when(lognitA.search("abc", 42, false, false, null, listener)).thenReturn(handleA);
+        when(lognitB.search("abc", 42, false, false, null, listener)).thenReturn(handleB);
+
+        federated.start(lognitA, "A", options, listeners());
+        federated.start(lognitB, "B", options, listeners());
+        assertThat(federated.await(1000)).isEqualTo(2);
+
+        federated.waitDisconnected();
+        verify(handleA).waitDisconnected();
+        verify(handleB).waitDisconnected();
+        verify(console).println(FederatedSearch.CLUSTER_DISCONNECTED, "A");
+        verify(console).println(FederatedSearch.CLUSTER_DISCONNECTED, "B");
+
+        federated.close();
+        federated.close();
+        verify(handleA).close();
+        verify(handleB).close();
+        verifyNoMoreInteractions(console);
+    }
+
+    @Test(timeout = 5000)
+    public void reportsEachServerThatDisconnects() throws Exception {
+        Lognit lognitA = lognit(), lognitB = lognit();
+        RestListenerHandle handleA = mock(RestListenerHandle.class);
+        RestListenerHandle handleB = mock(RestListenerHandle.class);
+        final CountDownLatch dropB = new CountDownLatch(1);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                dropB.await();
+                return null;
+            }
+        }).when(handleB).waitDisconnected();
+        when(lognitA.search("abc", 42, false, false, null, listener)).thenReturn(handleA);
+        when(lognitB.search("abc", 42, false, false, null, listener)).thenReturn(handleB);
+        federated.start(lognitA, "A", options, listeners());
+        federated.start(lognitB, "B", options, listeners());
+        federated.await(1000);
+
+        Thread waiting = new Thread() {
+            @Override
+            public void run() {
+                federated.waitDisconnected();
+            }
+        };
+        waiting.start();
+
+        verify(console, timeout(1000)).println(FederatedSearch.CLUSTER_DISCONNECTED, "A");
+        assertThat(waiting.isAlive()).isTrue();
+        verify(console, never()).println(FederatedSearch.CLUSTER_DISCONNECTED, "B");
+
+        dropB.countDown();
+        waiting.join();
+        verify(console).println(FederatedSearch.CLUSTER_DISCONNECTED, "B");
+    }
+
+    @Test(timeout = 5000)
+    public void whenSearchingManyQueriesOnEachServer() throws Exception {
+        Lognit lognitA = lognit();
+        List<RestListener<MessageBag>> listeners = Arrays.asList(listener, listener);
+        UserOptions options = new UserOptions("abc", "-q", "def", "-n", "42");
+
+        federated.start(lognitA, "A", options, listeners);
+        assertThat(federated.await(1000)).isEqualTo(1);
+
+        verify(lognitA).search(Arrays.asList("abc", "def"), 42, false, false, null, listeners);
+    }
+
+    @Test(timeout = 5000)
+    public void whenOneServerFailsTheOthersGoOn() throws Exception {
+        Lognit lognitA = lognit(), lognitB = lognit();
+        RestListenerHandle handleA = mock(RestListenerHandle.class);
+        when(lognitA.search("abc", 42, false, false, null, listener)).thenReturn(handleA);
+        when(lognitB.search("abc", 42, false, false, null, listener)).thenThrow(new IOException("down"));
+
+        federated.start(lognitA, "A", options, listeners());
+        federated.start(lognitB, "B", options, listeners());
+        assertThat(federated.await(1000)).isEqualTo(1);
+        verify(console).println(FederatedSearch.CLUSTER_FAILED, "B", "down");
+
+        federated.waitDisconnected();
+        federated.close();
+        verify(handleA).waitDisconnected();
+        verify(handleA).close();
+    }
+
+    @Test(timeout = 5000)
+    public void whenAllServersFailThrowsTheLastCause() throws Exception {
+        Lognit lognitA = lognit(), lognitB = lognit();
+        UnauthorizedException unauthorized = mock(UnauthorizedException.class);
+        when(lognitA.search("abc", 42, false, false, null, listener)).thenThrow(new IOException("down"));
+        when(lognitB.search("abc", 42, false, false, null, listener)).thenThrow(unauthorized);
+
+        federated.start(lognitA, "A", options, listeners());
+        federated.start(lognitB, "B", options, listeners());
+        try {
+            federated.await(1000);
+            fail("must throw");
+        } catch (UnauthorizedException e) {
+            assertThat(e).isSameAs(unauthorized);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void whenOneServerIsSlowTheOthersGoOnAndItIsClosedWhenItArrives() throws Exception {
+        Lognit lognitA = lognit(), lognitB = lognit();
+        RestListenerHandle handleA = mock(RestListenerHandle.class);
+        final RestListenerHandle handleB = mock(RestListenerHandle.class);
+        final CountDownLatch slow = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        when(lognitA.search("abc", 42, false, false, null, listener)).thenReturn(handleA);
+        when(lognitB.search("abc", 42, false, false, null, listener)).thenAnswer(new Answer<RestListenerHandle>() {
+            @Override
+            public RestListenerHandle answer(InvocationOnMock invocation) throws Throwable {
+                while (true) {
+                    try {
+                        slow.await();
+                        return handleB;
+                    } catch (InterruptedException e) {
+                    }
+                }
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                closed.countDown();
+                return null;
+            }
+        }).when(handleB).close();
+
+        federated.start(lognitA, "A", options, listeners());
+        federated.start(lognitB, "B", options, listeners());
+        assertThat(federated.await(50)).isEqualTo(1);
+        verify(console).println(FederatedSearch.CLUSTER_LATE, "B");
+
+        federated.close();
+        verify(handleA).close();
+
+        slow.countDown();
+        assertThat(closed.await(1000, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    private List<RestListener<MessageBag>> listeners() {
+        return Collections.singletonList(listener);
+    }
+
+    private Lognit lognit() {
+        return mock(Lognit.class);
+    }
+}
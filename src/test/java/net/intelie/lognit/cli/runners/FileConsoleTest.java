@@ -0,0 +1,145 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import net.intelie.lognit.cli.state.DownloadCheckpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FileConsoleTest {
+    private File file;
+    private File gz;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("test", ".txt");
+        gz = File.createTempFile("test", ".gz");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+        gz.delete();
+    }
+
+    @Test(timeout = 5000)
+    public void writesEachPrintAsALine() throws Exception {
+        FileConsole console = new FileConsole(null, file, 0);
+        console.printOut("%s-%d", "a", 1);
+        console.printOut("[xyz]".toCharArray(), 1, 3);
+        console.close();
+
+        assertThat(console.isGzip()).isFalse();
+        assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("a-1\nxyz\n");
+        assertThat(console.getUncompressedBytes()).isEqualTo(8);
+        assertThat(console.getCompressedBytes()).isEqualTo(8);
+    }
+
+    @Test(timeout = 5000)
+    public void gzipsWhenTheFileEndsInGz() throws Exception {
+        FileConsole console = new FileConsole(null, gz, 0);
+        console.printOut("%s", "ação");
+        console.printOut("%s", "b");
+        console.close();
+
+        assertThat(console.isGzip()).isTrue();
+        assertThat(gunzip(gz)).isEqualTo("ação\nb\n");
+        assertThat(console.getUncompressedBytes()).isEqualTo(9);
+        assertThat(console.getCompressedBytes()).isEqualTo(gz.length());
+    }
+
+    @Test(timeout = 5000)
+    public void linesLongerThanAChunkAreKeptWhole() throws Exception {
+        String line = Strings.repeat("x", FileConsole.CHUNK_CHARS + 10);
+        FileConsole console = new FileConsole(null, file, 0);
+        console.printOut("%s", "a");
+        console.printOut("%s", line);
+        console.printOut("%s", "b");
+        console.close();
+
+        assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("a\n" + line + "\nb\n");
+    }
+
+    @Test(timeout = 5000)
+    public void theLastCheckpointIsDurableOnceClosed() throws Exception {
+        FileConsole console = new FileConsole(null, gz, 0);
+        console.printOut("%s", "a");
+        console.mark(checkpoint(1));
+        console.printOut("%s", "b");
+        console.mark(checkpoint(2));
+        assertThat(console.getDurable()).isNull();
+        console.close();
+
+        assertThat(console.getDurable()).isEqualTo(checkpoint(2).withOutputLength(gz.length()));
+    }
+
+    @Test(timeout = 5000)
+    public void aCheckpointDoesNotCoverWhatWasPrintedAfterIt() throws Exception {
+        FileConsole console = new FileConsole(null, file, 0);
+        console.printOut("%s", "a");
+        console.mark(checkpoint(1));
+        console.printOut("%s", "b");
+        console.close();
+
+        assertThat(console.getDurable()).isNull();
+        assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("a\nb\n");
+    }
+
+    @Test(timeout = 5000)
+    public void whenResumingTruncatesAtTheOffsetAndAppends() throws Exception {
+        Files.write("a\nb\npartial", file, Charsets.UTF_8);
+
+        FileConsole console = new FileConsole(null, file, 4);
+        console.printOut("%s", "c");
+        console.mark(checkpoint(3));
+        console.close();
+
+        assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("a\nb\nc\n");
+        assertThat(console.getDurable().getOutputLength()).isEqualTo(6);
+    }
+
+    @Test(timeout = 5000)
+    public void whenResumingAGzipFileAppendsAnotherMember() throws Exception {
+        FileConsole first = new FileConsole(null, gz, 0);
+        first.printOut("%s", "a");
+        first.mark(checkpoint(1));
+        first.close();
+        long length = first.getDurable().getOutputLength();
+
+        FileOutputStream garbage = new FileOutputStream(gz, true);
+        garbage.write(new byte[]{31, -117, 8, 0, 1, 2});
+        garbage.close();
+
+        FileConsole second = new FileConsole(null, gz, length);
+        second.printOut("%s", "b");
+        second.mark(checkpoint(2));
+        second.close();
+
+        assertThat(gunzip(gz)).isEqualTo("a\nb\n");
+        assertThat(second.getDurable().getOutputLength()).isEqualTo(gz.length());
+    }
+
+    private DownloadCheckpoint checkpoint(long written) {
+        return new DownloadCheckpoint("abc", null, "json", 20, written, written, 10, null, null, null);
+    }
+
+    private String gunzip(File file) throws Exception {
+        InputStream in = new GZIPInputStream(new FileInputStream(file));
+        try {
+            return new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+}
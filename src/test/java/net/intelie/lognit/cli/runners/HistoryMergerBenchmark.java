@@ -0,0 +1,66 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.model.Message;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//not a unit test: run by hand, e.g. java -cp target/classes:target/test-classes:<deps> net.intelie.lognit.cli.runners.HistoryMergerBenchmark
+public class HistoryMergerBenchmark {
+    private static final int NODES = 30, PER_NODE = 20000, RELEASE_MAX = 50000;
+    private static final int WARMUP = 5, ROUNDS = 20;
+
+    public static void main(String[] args) {
+        List<List<Message>> sources = new ArrayList<List<Message>>();
+        for (int node = 0; node < NODES; node++) {
+            List<Message> items = new ArrayList<Message>();
+            for (int i = PER_NODE - 1; i >= 0; i--)
+                items.add(new Message(Long.toString(1000000000L + i * NODES + node)));
+            sources.add(items);
+        }
+        System.out.printf("%d nodes x %,d items, releasing %,d%n", NODES, PER_NODE, RELEASE_MAX);
+
+        HistoryMerger merger = new HistoryMerger();
+        if (!merger.merge(sources, RELEASE_MAX).equals(priorityQueue(sources, RELEASE_MAX)))
+            throw new IllegalStateException("merges disagree");
+
+        for (int i = 0; i < WARMUP; i++) {
+            run(merger, sources);
+            run(null, sources);
+        }
+        report("merger", run(merger, sources));
+        report("queue", run(null, sources));
+    }
+
+    private static long[] run(HistoryMerger merger, List<List<Message>> sources) {
+        long allocated = allocated(), start = System.nanoTime(), sink = 0;
+        for (int i = 0; i < ROUNDS; i++)
+            sink += (merger != null ? merger.merge(sources, RELEASE_MAX) : priorityQueue(sources, RELEASE_MAX)).size();
+        if (sink != (long) ROUNDS * RELEASE_MAX) throw new IllegalStateException();
+        return new long[]{System.nanoTime() - start, allocated() - allocated};
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("%-6s %8.2fms %,8d KB allocated per merge%n", name, result[0] / 1e6 / ROUNDS, result[1] / 1024 / ROUNDS);
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    //BufferListener.pickValidHistory before HistoryMerger: queue every item, then poll the newest into a list
+    private static List<Message> priorityQueue(List<List<Message>> sources, int releaseMax) {
+        PriorityQueue<Message> queue = new PriorityQueue<Message>();
+        for (List<Message> source : sources)
+            queue.addAll(source);
+
+        LinkedList<Message> list = new LinkedList<Message>();
+        while (!queue.isEmpty() && list.size() < releaseMax)
+            list.addFirst(queue.poll());
+
+        return list;
+    }
+}
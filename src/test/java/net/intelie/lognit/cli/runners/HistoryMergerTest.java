@@ -0,0 +1,156 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.model.Message;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class HistoryMergerTest {
+    private HistoryMerger merger;
+
+    @Before
+    public void setUp() throws Exception {
+        merger = new HistoryMerger();
+    }
+
+    @Test
+    public void willKeepOnlyTheNewestInAscendingOrder() {
+        List<Message> result = merger.merge(Arrays.asList(
+                ms("F", "D", "A"),
+                ms("E", "C"),
+                ms("B")), 4);
+
+        assertThat(result).containsExactly(m("C"), m("D"), m("E"), m("F"));
+    }
+
+    @Test
+    public void willReturnEverythingWhenThereIsLessThanReleaseMax() {
+        List<Message> result = merger.merge(Arrays.asList(ms("C", "A"), ms("B")), 10);
+
+        assertThat(result).containsExactly(m("A"), m("B"), m("C"));
+    }
+
+    @Test
+    public void willIgnoreNullAndEmptySources() {
+        List<Message> result = merger.merge(Arrays.asList(null, ms(), ms("B", "A")), 10);
+
+        assertThat(result).containsExactly(m("A"), m("B"));
+    }
+
+    @Test
+    public void willReturnNothingWhenReleaseMaxIsZero() {
+        List<Message> result = merger.merge(Arrays.asList(ms("B", "A")), 0);
+
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    public void willCompareIdsCaseInsensitively() {
+        List<Message> result = merger.merge(Arrays.asList(ms("c", "A"), ms("B")), 2);
+
+        assertThat(result).containsExactly(m("B"), m("c"));
+    }
+
+    @Test
+    public void willTrustEachNodeToAnswerNewestFirst() {
+        //misordered past what is released goes unseen: only the head of each node is read
+        List<Message> result = merger.merge(Arrays.asList(ms("F", "D", "Z"), ms("E")), 2);
+
+        assertThat(result).containsExactly(m("E"), m("F"));
+    }
+
+    @Test
+    public void willSortANodeThatAnswersOldestFirst() {
+        List<Message> result = merger.merge(Arrays.asList(
+                ms("A", "C", "E"),
+                ms("F", "D", "B")), 4);
+
+        assertThat(result).containsExactly(m("C"), m("D"), m("E"), m("F"));
+    }
+
+    @Test
+    public void willKeepOnlyTheNewestOfTwoListsInDescendingOrder() {
+        List<Message> result = merger.newest(ms("F", "D", "A"), ms("E", "C", "B"), 4);
+
+        assertThat(result).containsExactly(m("F"), m("E"), m("D"), m("C"));
+    }
+
+    @Test
+    public void willMergeTwoListsWhenEitherIsNullOrEmpty() {
+        assertThat(merger.newest(null, ms("B", "A"), 10)).containsExactly(m("B"), m("A"));
+        assertThat(merger.newest(ms("B", "A"), ms(), 10)).containsExactly(m("B"), m("A"));
+        assertThat(merger.newest(ms("B", "A"), ms("C"), 0)).isEmpty();
+    }
+
+    @Test
+    public void willSortOneOfTwoListsThatIsOldestFirst() {
+        assertThat(merger.newest(ms("A", "C", "E"), ms("D", "B"), 3)).containsExactly(m("E"), m("D"), m("C"));
+        assertThat(merger.newest(ms("D", "B"), ms("A", "C", "E"), 3)).containsExactly(m("E"), m("D"), m("C"));
+    }
+
+    @Test
+    public void willMergeManyNodesTouchingOnlyWhatIsReleased() {
+        int nodes = 30, perNode = 2000, releaseMax = 1000;
+        List<CountingList> sources = new ArrayList<CountingList>();
+        for (int node = 0; node < nodes; node++) {
+            List<Message> items = new ArrayList<Message>();
+            for (int i = perNode - 1; i >= 0; i--)
+                items.add(m(id(i * nodes + node)));
+            sources.add(new CountingList(items));
+        }
+
+        List<Message> result = merger.merge(sources, releaseMax);
+
+        List<Message> expected = new ArrayList<Message>();
+        for (int i = nodes * perNode - releaseMax; i < nodes * perNode; i++)
+            expected.add(m(id(i)));
+        assertThat(result).isEqualTo(expected);
+
+        //the merge may look an item or so ahead on each node, but never walks a node's whole list
+        int pulled = 0;
+        for (CountingList source : sources)
+            pulled += source.pulled;
+        assertThat(pulled).isLessThanOrEqualTo(releaseMax + 2 * nodes);
+    }
+
+    private String id(int n) {
+        return Integer.toString(100000000 + n);
+    }
+
+    private static class CountingList extends AbstractList<Message> {
+        private final List<Message> items;
+        private int pulled;
+
+        private CountingList(List<Message> items) {
+            this.items = items;
+        }
+
+        @Override
+        public Message get(int index) {
+            pulled++;
+            return items.get(index);
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+    }
+
+    private List<Message> ms(String... ids) {
+        List<Message> list = new ArrayList<Message>();
+        for (String id : ids)
+            list.add(m(id));
+        return list;
+    }
+
+    private Message m(String id) {
+        return new Message(id);
+    }
+}
@@ -0,0 +1,84 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.model.Message;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class HistoryWindowTest {
+    @Test
+    public void willKeepOnlyTheNewestAcrossAdds() {
+        HistoryWindow window = new HistoryWindow(new HistoryMerger(), 3);
+        window.add(ms("E", "B"));
+        window.add(ms("D", "A"));
+        window.add(ms("F", "C"));
+
+        assertThat(window.release()).containsExactly(m("D"), m("E"), m("F"));
+    }
+
+    @Test
+    public void willReleaseInTheSameOrderAsTheBatchMerge() {
+        List<List<Message>> nodes = Arrays.asList(ms("I", "F", "C"), ms("H", "E", "B"), ms("G", "D", "A"));
+        HistoryWindow window = new HistoryWindow(new HistoryMerger(), 5);
+        for (List<Message> node : nodes)
+            window.add(node);
+
+        assertThat(window.release()).isEqualTo(new HistoryMerger().merge(nodes, 5));
+    }
+
+    @Test
+    public void watermarkIsTheOldestRetained() {
+        HistoryWindow window = new HistoryWindow(new HistoryMerger(), 2);
+        assertThat(window.watermark()).isNull();
+        window.add(ms("C", "A"));
+        assertThat(window.isFull()).isTrue();
+        assertThat(window.watermark()).isEqualTo(m("A"));
+        window.add(ms("B"));
+        assertThat(window.watermark()).isEqualTo(m("B"));
+    }
+
+    @Test
+    public void willIgnoreNodesOlderThanTheWatermarkWhenFull() {
+        HistoryWindow window = new HistoryWindow(new HistoryMerger(), 2);
+        window.add(ms("D", "C"));
+        window.add(ms("B", "A"));
+        window.add(null);
+
+        assertThat(window.release()).containsExactly(m("C"), m("D"));
+    }
+
+    @Test
+    public void resizingWillTrimTheOldest() {
+        HistoryWindow window = new HistoryWindow(new HistoryMerger(), Integer.MAX_VALUE);
+        window.add(ms("C", "B", "A"));
+        window.resize(2);
+        window.add(ms("A"));
+
+        assertThat(window.release()).containsExactly(m("B"), m("C"));
+    }
+
+    @Test
+    public void releasingWillEmptyTheWindow() {
+        HistoryWindow window = new HistoryWindow(new HistoryMerger(), 2);
+        window.add(ms("B", "A"));
+        window.release();
+
+        assertThat(window.release()).isEmpty();
+        assertThat(window.watermark()).isNull();
+    }
+
+    private List<Message> ms(String... ids) {
+        List<Message> list = new ArrayList<Message>();
+        for (String id : ids)
+            list.add(m(id));
+        return list;
+    }
+
+    private Message m(String id) {
+        return new Message(id);
+    }
+}
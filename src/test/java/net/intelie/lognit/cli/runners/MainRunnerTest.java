@@ -6,6 +6,7 @@ import org.junit.Test;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class MainRunnerTest {
 
@@ -18,6 +19,7 @@ public class MainRunnerTest {
     private PurgeRunner purge;
     private PauseRunner pause;
     private DownloadRunner download;
+    private NodesReportRunner nodesReport;
 
     @Before
     public void setUp() throws Exception {
@@ -29,7 +31,8 @@ public class MainRunnerTest {
         purge = mock(PurgeRunner.class);
         pause = mock(PauseRunner.class);
         download = mock(DownloadRunner.class);
-        main = new MainRunner(search, info, completion, usage, welcome, purge, pause, download);
+        nodesReport = mock(NodesReportRunner.class);
+        main = new MainRunner(search, info, completion, usage, welcome, purge, pause, download, nodesReport);
     }
 
     @Test
@@ -46,6 +49,13 @@ public class MainRunnerTest {
         verify(info).run(opts);
     }
 
+    @Test
+    public void nodesReportComesRightAfterInfo() throws Exception {
+        UserOptions opts = new UserOptions("--pause", "--purge", "--nodes-report", "-c", "abc");
+        main.run(opts);
+        verify(nodesReport).run(opts);
+    }
+
     @Test
     public void completeWillBe3InPriority() throws Exception {
         UserOptions opts = new UserOptions("--pause", "--purge", "-c", "abc");
@@ -97,6 +107,14 @@ public class MainRunnerTest {
         verify(download).run(opts);
     }
 
+    @Test
+    public void resumingADownloadIsNotResumingIndexing() throws Exception {
+        UserOptions opts = new UserOptions("abc", "--download", "--resume");
+        main.run(opts);
+        verify(download).run(opts);
+        verifyZeroInteractions(pause);
+    }
+
     @Test
     public void searchWillBeAlmostLastInPriority() throws Exception {
         UserOptions opts = new UserOptions("abc");
@@ -0,0 +1,79 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.UserConsole;
+import net.intelie.lognit.cli.UserOptions;
+import net.intelie.lognit.cli.state.LatencyHistory;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class NodesReportRunnerTest {
+    private UserConsole console;
+    private LatencyHistory history;
+    private NodesReportRunner runner;
+
+    @Before
+    public void setUp() throws Exception {
+        console = mock(UserConsole.class);
+        history = mock(LatencyHistory.class);
+        runner = new NodesReportRunner(console, history);
+    }
+
+    @Test
+    public void whenThereIsNoHistory() throws Exception {
+        when(history.load()).thenReturn(new LinkedHashMap<String, List<Long>>());
+
+        assertThat(runner.run(new UserOptions("--nodes-report"))).isEqualTo(0);
+
+        verify(console).println(NodesReportRunner.NO_HISTORY);
+        verifyNoMoreInteractions(console);
+    }
+
+    @Test
+    public void printsSlowestNodesFirstAndFlagsStragglers() throws Exception {
+        Map<String, List<Long>> samples = new LinkedHashMap<String, List<Long>>();
+        samples.put("fast", Arrays.asList(10L, 20L, 30L, 40L, 50L));
+        samples.put("medium", Arrays.asList(20L, 30L, 40L, 50L, 60L));
+        samples.put("slow", Arrays.asList(500L, 100L, 200L, 300L, 2500L));
+        when(history.load()).thenReturn(samples);
+
+        assertThat(runner.run(new UserOptions("--nodes-report"))).isEqualTo(0);
+
+        InOrder orderly = inOrder(console);
+        orderly.verify(console).printOut(NodesReportRunner.HEADER, "node", "samples", "p50", "p99");
+        orderly.verify(console).printOut(NodesReportRunner.NODE_LINE, "slow", 5, 300L, 2500L, NodesReportRunner.STRAGGLER);
+        orderly.verify(console).printOut(NodesReportRunner.NODE_LINE, "medium", 5, 40L, 60L, "");
+        orderly.verify(console).printOut(NodesReportRunner.NODE_LINE, "fast", 5, 30L, 50L, "");
+        orderly.verify(console).printOut(NodesReportRunner.SUGGESTED_TIMEOUT, 3L);
+        orderly.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void wontFlagNodesWithFewSamples() throws Exception {
+        Map<String, List<Long>> samples = new LinkedHashMap<String, List<Long>>();
+        samples.put("fast", Arrays.asList(10L));
+        samples.put("slow", Arrays.asList(900L));
+        when(history.load()).thenReturn(samples);
+
+        runner.run(new UserOptions("--nodes-report"));
+
+        verify(console).printOut(NodesReportRunner.NODE_LINE, "slow", 1, 900L, 900L, "");
+        verify(console).printOut(NodesReportRunner.SUGGESTED_TIMEOUT, 1L);
+    }
+
+    @Test
+    public void percentileUsesNearestRank() throws Exception {
+        List<Long> values = Arrays.asList(5L, 1L, 4L, 2L, 3L);
+        assertThat(NodesReportRunner.percentile(values, 50)).isEqualTo(3L);
+        assertThat(NodesReportRunner.percentile(values, 99)).isEqualTo(5L);
+        assertThat(NodesReportRunner.percentile(values, 0)).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,114 @@
+package net.intelie.lognit.cli.runners;
+
+import net.intelie.lognit.cli.model.Aggregated;
+import net.intelie.lognit.cli.model.AggregatedItem;
+import net.intelie.lognit.cli.model.Message;
+import net.intelie.lognit.cli.model.MessageBag;
+import net.intelie.lognit.cli.model.SearchStats;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RealtimeBufferTest {
+    @Test
+    public void willKeepInMemoryWhileUnderBudget() {
+        RealtimeBuffer buffer = new RealtimeBuffer();
+        MessageBag bagA = bag("A"), bagB = bag("B");
+        buffer.add(bagA);
+        buffer.add(bagB);
+
+        assertThat(buffer.poll()).isSameAs(bagA);
+        assertThat(buffer.poll()).isSameAs(bagB);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.getSpilled()).isEqualTo(0);
+        assertThat(buffer.getDropped()).isEqualTo(0);
+    }
+
+    @Test
+    public void willSpillToDiskAndReplayInOrder() {
+        RealtimeBuffer buffer = new RealtimeBuffer(RealtimeBuffer.estimate(bag("A")), Long.MAX_VALUE);
+        buffer.add(bag("A"));
+        buffer.add(bag("B"));
+        buffer.add(bag("C"));
+
+        assertThat(ids(buffer)).containsExactly("A", "B", "C");
+        assertThat(buffer.getSpilled()).isEqualTo(2);
+        assertThat(buffer.getDropped()).isEqualTo(0);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void onceSpillingEverythingElseGoesToDiskToKeepOrder() {
+        RealtimeBuffer buffer = new RealtimeBuffer(RealtimeBuffer.estimate(bag("AAAA")), Long.MAX_VALUE);
+        buffer.add(bag("AAAAAAAA"));
+        buffer.add(bag("B"));
+
+        assertThat(ids(buffer)).containsExactly("AAAAAAAA", "B");
+        assertThat(buffer.getSpilled()).isEqualTo(2);
+    }
+
+    @Test
+    public void willDropWhenSpillBudgetIsExhausted() {
+        RealtimeBuffer buffer = new RealtimeBuffer(0, 1);
+        buffer.add(bag("A"));
+        buffer.add(bag("B"));
+        buffer.add(bag("C"));
+
+        assertThat(ids(buffer)).containsExactly("A");
+        assertThat(buffer.getSpilled()).isEqualTo(1);
+        assertThat(buffer.getDropped()).isEqualTo(2);
+    }
+
+    @Test
+    public void willPreserveRealtimeFlagWhenReplaying() {
+        RealtimeBuffer buffer = new RealtimeBuffer(0, Long.MAX_VALUE);
+        buffer.add(bag("A"));
+
+        MessageBag replayed = buffer.poll();
+        assertThat(replayed.isRealtime()).isTrue();
+        assertThat(replayed.isSuccess()).isTrue();
+        assertThat(replayed.getItems()).isEqualTo(Arrays.asList(new Message("A")));
+    }
+
+    @Test
+    public void willReplaySpilledBagsWithStatsAndAggregations() {
+        RealtimeBuffer buffer = new RealtimeBuffer(0, Long.MAX_VALUE);
+        AggregatedItem item = new AggregatedItem();
+        item.put("count", 2.0);
+        MessageBag bag = new MessageBag(null, new SearchStats(), new Aggregated(item), "node", 1L, null, true, true, 2, 3L);
+        buffer.add(bag);
+
+        MessageBag replayed = buffer.poll();
+        assertThat(replayed.getAggregated()).isEqualTo(bag.getAggregated());
+        assertThat(replayed.getStats()).isEqualTo(bag.getStats());
+        assertThat(replayed.getNode()).isEqualTo("node");
+        assertThat(replayed.getTotalNodes()).isEqualTo(2);
+        assertThat(replayed.getTotalItems()).isEqualTo(3L);
+        assertThat(buffer.getSpilled()).isEqualTo(1);
+    }
+
+    @Test
+    public void estimatesLongerMessagesAsLarger() {
+        MessageBag small = bag("A");
+        MessageBag large = new MessageBag(Arrays.asList(new Message("A", "host", "date", "time", "facility", "severity", "app", "a long message body", null)),
+                null, null, null, null, null, true, true, 0, 0L);
+
+        assertThat(RealtimeBuffer.estimate(small)).isGreaterThan(0);
+        assertThat(RealtimeBuffer.estimate(large) - RealtimeBuffer.estimate(small)).isGreaterThanOrEqualTo(2L * "a long message body".length());
+    }
+
+    private List<String> ids(RealtimeBuffer buffer) {
+        List<String> ids = new ArrayList<String>();
+        for (MessageBag bag = buffer.poll(); bag != null; bag = buffer.poll())
+            ids.add(bag.getItems().get(0).getId());
+        return ids;
+    }
+
+    private MessageBag bag(String id) {
+        return new MessageBag(Arrays.asList(new Message(id)), null, null, "node", 1L, null, true, true, 1, 1L);
+    }
+}
@@ -0,0 +1,36 @@
+package net.intelie.lognit.cli.runners;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RecentIdsTest {
+    @Test
+    public void willTellWhenIdWasAlreadySeen() {
+        RecentIds ids = new RecentIds();
+        assertThat(ids.add("A")).isTrue();
+        assertThat(ids.add("B")).isTrue();
+        assertThat(ids.add("A")).isFalse();
+    }
+
+    @Test
+    public void nullIdsAreNeverDuplicates() {
+        RecentIds ids = new RecentIds();
+        assertThat(ids.add(null)).isTrue();
+        assertThat(ids.add(null)).isTrue();
+        assertThat(ids.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void willForgetTheLeastRecentlySeen() {
+        RecentIds ids = new RecentIds(2);
+        ids.add("A");
+        ids.add("B");
+        ids.add("A");
+        ids.add("C");
+
+        assertThat(ids.size()).isEqualTo(2);
+        assertThat(ids.add("A")).isFalse();
+        assertThat(ids.add("B")).isTrue();
+    }
+}
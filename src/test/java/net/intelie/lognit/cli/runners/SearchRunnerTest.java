@@ -1,14 +1,22 @@
 package net.intelie.lognit.cli.runners;
 
+import net.intelie.lognit.cli.TaggedConsole;
 import net.intelie.lognit.cli.UserConsole;
 import net.intelie.lognit.cli.UserOptions;
 import net.intelie.lognit.cli.http.RestListener;
+import net.intelie.lognit.cli.http.RestListenerHandle;
 import net.intelie.lognit.cli.model.Lognit;
+import net.intelie.lognit.cli.model.MessageBag;
 import net.intelie.lognit.cli.state.Clock;
+import net.intelie.lognit.cli.state.LatencyHistory;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
@@ -20,6 +28,7 @@ public class SearchRunnerTest {
     private BufferListenerFactory factory;
     private Clock clock;
     private Runtime runtime;
+    private LatencyHistory latencies;
 
     @Before
     public void setUp() throws Exception {
@@ -28,22 +37,25 @@ public class SearchRunnerTest {
         factory = mock(BufferListenerFactory.class, RETURNS_DEEP_STUBS);
         clock = mock(Clock.class);
         runtime = mock(Runtime.class);
-        runner = new SearchRunner(console, lognit, factory, clock, runtime);
+        latencies = mock(LatencyHistory.class);
+        runner = new SearchRunner(console, lognit, factory, clock, runtime, latencies);
     }
 
     @Test
     public void whenHasQueryExecutesUsingCorrectFormatter() throws Exception {
         runner.run(new UserOptions("blablabla", "-n", "42", "-o", "plain"));
-        BufferListener listener = factory.create("plain", false, false);
+        BufferListener listener = factory.create("plain", false, false, false);
         verify(lognit).search("blablabla", 42, false, false, null, listener);
         verify(lognit.search("blablabla", 42, false, false, null, listener)).close();
+        verify(listener).close();
+        verify(latencies).store(Collections.singletonList(listener.getLatencies()));
     }
 
 
     @Test
     public void whenHasQueryExecutesSearchAndClose() throws Exception {
         runner.run(new UserOptions("blablabla", "-n", "42"));
-        BufferListener listener = factory.create("colored", false, false);
+        BufferListener listener = factory.create("colored", false, false, false);
         verify(lognit).search("blablabla", 42, false, false, null, listener);
         verify(lognit.search("blablabla", 42, false, false, null, listener)).close();
     }
@@ -51,7 +63,7 @@ public class SearchRunnerTest {
     @Test
     public void whenHasQueryExecutesSearchAndCloseWithMeta() throws Exception {
         runner.run(new UserOptions("blablabla", "-n", "42", "--meta"));
-        BufferListener listener = factory.create("colored", false, true);
+        BufferListener listener = factory.create("colored", false, true, false);
         verify(lognit).search("blablabla", 42, false, false, null, listener);
         verify(lognit.search("blablabla", 42, false, false, null, listener)).close();
     }
@@ -60,7 +72,7 @@ public class SearchRunnerTest {
     public void whenQueryingBars() throws Exception {
         when(clock.currentMillis()).thenReturn(123L);
         runner.run(new UserOptions("blablabla", "-b"));
-        BufferListener listener = factory.create("colored", true, false);
+        BufferListener listener = factory.create("colored", true, false, false);
         verify(lognit).search("blablabla", 20, false, true, null, listener);
         verify(lognit.search("blablabla", 20, false, true, null, listener)).close();
     }
@@ -83,7 +95,7 @@ public class SearchRunnerTest {
             fail("must throw");
         } catch (RetryConnectionException e) {
             assertThat(e.options()).isEqualTo(new UserOptions("blablabla", "-n", "0", "-f"));
-            BufferListener listener = factory.create("colored", false, false);
+            BufferListener listener = factory.create("colored", false, false, false);
             verify(lognit).search("blablabla", 42, true, false, null, listener);
             verify(listener).releaseAll();
             verify(lognit.search("blablabla", 42, true, false, null, listener)).waitDisconnected();
@@ -98,7 +110,7 @@ public class SearchRunnerTest {
             fail("must throw");
         } catch (RetryConnectionException e) {
             assertThat(e.options()).isEqualTo(new UserOptions("blablabla", "-n", "0", "-f"));
-            BufferListener listener = factory.create("colored", false, false);
+            BufferListener listener = factory.create("colored", false, false, false);
             verify(lognit).search("blablabla", 42, true, false, null, listener);
             verify(listener).releaseAll();
 
@@ -119,7 +131,7 @@ public class SearchRunnerTest {
             fail("must throw");
         } catch (RetryConnectionException e) {
             assertThat(e.options()).isEqualTo(new UserOptions("blablabla", "-n", "0", "-f", "-v"));
-            BufferListener listener = factory.create("colored", false, false);
+            BufferListener listener = factory.create("colored", false, false, false);
             verify(lognit).search("blablabla", 42, true, false, null, listener);
             verify(console).println(SearchRunner.HANDSHAKE, 32L);
             verify(listener).releaseAll();
@@ -133,12 +145,137 @@ public class SearchRunnerTest {
         when(clock.currentMillis()).thenReturn(10L, 42L);
         runner.run(new UserOptions("blablabla", "-n", "42", "--span", "what", "-v"));
 
-        BufferListener listener = factory.create("colored", false, false);
+        BufferListener listener = factory.create("colored", false, false, false);
         verify(lognit).search("blablabla", 42, false, false, "what", listener);
         verify(console).println(SearchRunner.HANDSHAKE, 32L);
+        verify(console).println(SearchRunner.STRING_CACHE, 0L, 0L, 0.0);
         verify(listener).releaseAll();
         verify(listener).waitForError(1);
         verify(lognit.search("blablabla", 42, false, false, "what", listener)).close();
 
     }
+
+    @Test
+    public void whenHasOneQueryTheHistoricAnswerKeepsTheWholeTimeout() throws Exception {
+        when(clock.currentMillis()).thenReturn(10L, 20000L);
+        runner.run(new UserOptions("blablabla", "-n", "42", "-t", "30", "-v"));
+
+        BufferListener listener = factory.create("colored", false, false, false);
+        verify(listener).waitHistoric(30000, 42);
+        verify(listener, never()).waitHistoric(any(Clock.class), anyLong(), anyInt());
+    }
+
+    @Test
+    public void whenHasManyQueriesHandshakeAndAnswersShareOneTimeout() throws Exception {
+        BufferListener listener = mock(BufferListener.class);
+        when(factory.create(anyString(), any(UserConsole.class), anyBoolean(), anyBoolean(), anyBoolean())).thenReturn(listener);
+        when(clock.currentMillis()).thenReturn(100L, 5000L);
+
+        runner.run(new UserOptions("abc", "-q", "def", "-n", "42", "-t", "30"));
+
+        verify(listener, times(2)).waitHistoric(clock, 30100L, 42);
+    }
+
+    @Test
+    public void whenHasManyQueriesSharesOneSearch() throws Exception {
+        runner.run(new UserOptions("abc", "-q", "def", "-n", "42"));
+
+        verify(factory, times(2)).create(eq("colored"), any(TaggedConsole.class), eq(false), eq(false), eq(false));
+        verify(console).println(SearchRunner.QUERY_TAG, 1, "abc");
+        verify(console).println(SearchRunner.QUERY_TAG, 2, "def");
+        verify(lognit).search(eq(Arrays.asList("abc", "def")), eq(42), eq(false), eq(false), eq((String) null), anyList());
+        verify(lognit, never()).search(anyString(), anyInt(), anyBoolean(), anyBoolean(), anyString(), any(RestListener.class));
+    }
+
+    @Test
+    public void whenHasManyQueriesStoresTheirLatenciesOnce() throws Exception {
+        runner.run(new UserOptions("abc", "-q", "def", "-n", "42"));
+
+        verify(latencies).store(anyList());
+        verify(latencies, never()).store(anyMap());
+    }
+
+    @Test
+    public void whenHasManyQueriesAsJsonDoesNotTagTheOutput() throws Exception {
+        runner.run(new UserOptions("abc", "-q", "def", "-n", "42", "-o", "json"));
+
+        verify(factory, times(2)).create("json", console, false, false, false);
+    }
+
+    @Test
+    public void whenHasManyQueriesAsPlainTagsWithoutColor() throws Exception {
+        when(console.isTTY()).thenReturn(true);
+        ArgumentCaptor<UserConsole> tagged = ArgumentCaptor.forClass(UserConsole.class);
+
+        runner.run(new UserOptions("abc", "-q", "def", "-n", "42", "-o", "plain"));
+
+        verify(factory, times(2)).create(eq("plain"), tagged.capture(), eq(false), eq(false), eq(false));
+        tagged.getValue().printOut("xyz");
+        verify(console).printOut("%s %s", "[2]", "xyz");
+    }
+
+    @Test
+    public void whenHasManyServersSearchesAllOfThem() throws Exception {
+        BufferListener listener = factory.create("colored", false, false, false);
+        RestListener<MessageBag> sourceA = mock(RestListener.class);
+        RestListener<MessageBag> sourceB = mock(RestListener.class);
+        when(listener.newSource("A")).thenReturn(sourceA);
+        when(listener.newSource("B")).thenReturn(sourceB);
+        Lognit other = mock(Lognit.class);
+        when(lognit.forServer("B")).thenReturn(other);
+        RestListenerHandle handleA = mock(RestListenerHandle.class);
+        RestListenerHandle handleB = mock(RestListenerHandle.class);
+        when(lognit.search("abc", 42, false, false, null, sourceA)).thenReturn(handleA);
+        when(other.search("abc", 42, false, false, null, sourceB)).thenReturn(handleB);
+
+        runner.run(new UserOptions("-s", "A", "-s", "B", "abc", "-n", "42"));
+
+        verify(listener).waitHistoric(clock, 30000L, 42);
+        verify(handleA).close();
+        verify(handleB).close();
+        verify(listener).close();
+        verify(other, never()).authenticate(anyString(), anyString());
+    }
+
+    @Test
+    public void whenThePasswordIsOnTheCommandLineEachServerLogsInWithIt() throws Exception {
+        BufferListener listener = factory.create("colored", false, false, false);
+        Lognit other = mock(Lognit.class);
+        when(lognit.forServer("B")).thenReturn(other);
+
+        runner.run(new UserOptions("-s", "A", "-s", "B", "-u", "me", "-p", "secret", "abc", "-n", "42"));
+
+        verify(other).authenticate("me", "secret");
+        verify(lognit, never()).authenticate(anyString(), anyString());
+    }
+
+    @Test
+    public void whenOneOfManyServersFailsGoesOnWithTheOthers() throws Exception {
+        BufferListener listener = factory.create("colored", false, false, false);
+        RestListener<MessageBag> sourceA = mock(RestListener.class);
+        RestListener<MessageBag> sourceB = mock(RestListener.class);
+        when(listener.newSource("A")).thenReturn(sourceA);
+        when(listener.newSource("B")).thenReturn(sourceB);
+        Lognit other = mock(Lognit.class);
+        when(lognit.forServer("B")).thenReturn(other);
+        RestListenerHandle handleA = mock(RestListenerHandle.class);
+        when(lognit.search("abc", 42, false, false, null, sourceA)).thenReturn(handleA);
+        when(other.search("abc", 42, false, false, null, sourceB)).thenThrow(new IOException("down"));
+
+        runner.run(new UserOptions("-s", "A", "-s", "B", "abc", "-n", "42"));
+
+        verify(console).println(FederatedSearch.CLUSTER_FAILED, "B", "down");
+        verify(listener).waitHistoric(clock, 30000L, 42);
+        verify(handleA).close();
+    }
+
+    @Test
+    public void whenHasManyServersHandshakesAndAnswersShareOneTimeout() throws Exception {
+        when(clock.currentMillis()).thenReturn(100L, 5000L, 20000L);
+        BufferListener listener = factory.create("colored", false, false, false);
+
+        runner.run(new UserOptions("-s", "A", "-s", "B", "abc", "-n", "42", "-t", "30"));
+
+        verify(listener).waitHistoric(clock, 30100L, 42);
+    }
 }
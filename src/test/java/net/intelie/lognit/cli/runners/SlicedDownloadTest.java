@@ -0,0 +1,140 @@
+package net.intelie.lognit.cli.runners;
+
+import com.google.gson.JsonIOException;
+import net.intelie.lognit.cli.http.RestStream;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class SlicedDownloadTest {
+    private final Map<String, List<Long>> slices = new HashMap<String, List<Long>>();
+    private final Map<String, CountDownLatch> gates = new HashMap<String, CountDownLatch>();
+    private final List<String> detached = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test(timeout = 5000)
+    public void mergesSlicesInOrderWhileLaterOnesDownloadAhead() throws Exception {
+        slices.put("a", Arrays.asList(1L, 2L));
+        slices.put("b", Arrays.asList(3L, 4L, 5L));
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.put("a", gate);
+
+        SlicedDownload<Long> download = new SlicedDownload<Long>(Arrays.asList("a", "b"), new Source(), 8);
+        while (download.getCurrentHit() < 3) Thread.sleep(5);
+        assertThat(detached).isEqualTo(Arrays.asList("b3", "b4", "b5"));
+
+        gate.countDown();
+        assertThat(drain(download)).isEqualTo(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+        assertThat(download.getCurrentHit()).isEqualTo(5);
+        assertThat(download.getTotalHits()).isEqualTo(70);
+    }
+
+    @Test(timeout = 5000)
+    public void boundsWhatEachSliceBuffersAhead() throws Exception {
+        slices.put("a", Arrays.asList(1L));
+        slices.put("b", Arrays.asList(2L, 3L, 4L, 5L, 6L));
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.put("a", gate);
+
+        SlicedDownload<Long> download = new SlicedDownload<Long>(Arrays.asList("a", "b"), new Source(), 2);
+        while (detached.size() < 3) Thread.sleep(5);
+        Thread.sleep(50);
+        assertThat(detached).hasSize(3);
+
+        gate.countDown();
+        assertThat(drain(download)).isEqualTo(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L));
+    }
+
+    @Test(timeout = 5000)
+    public void opensAtMostMaxConnectionsAtOnce() throws Exception {
+        List<String> spans = new ArrayList<String>();
+        List<Long> expected = new ArrayList<Long>();
+        for (long i = 0; i < 3 * SlicedDownload.MAX_CONNECTIONS; i++) {
+            spans.add("s" + i);
+            slices.put("s" + i, Arrays.asList(i));
+            expected.add(i);
+        }
+        CountDownLatch gate = new CountDownLatch(1);
+        gates.put("s0", gate);
+
+        SlicedDownload<Long> download = new SlicedDownload<Long>(spans, new Source(), 1);
+        while (detached.size() < SlicedDownload.MAX_CONNECTIONS - 1) Thread.sleep(5);
+        Thread.sleep(50);
+        assertThat(detached).hasSize(SlicedDownload.MAX_CONNECTIONS - 1);
+
+        gate.countDown();
+        assertThat(drain(download)).isEqualTo(expected);
+    }
+
+    @Test(timeout = 5000)
+    public void reportsFailuresWhenTheirSliceIsReached() throws Exception {
+        slices.put("a", Arrays.asList(1L));
+
+        SlicedDownload<Long> download = new SlicedDownload<Long>(Arrays.asList("a", "broken"), new Source(), 8);
+        assertThat(download.next()).isEqualTo(1L);
+        try {
+            download.hasNext();
+            fail("should have failed");
+        } catch (JsonIOException e) {
+            assertThat(e.getCause().getMessage()).isEqualTo("no such slice: broken");
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void closingAbandonsSlicesStillDownloading() throws Exception {
+        slices.put("a", Arrays.asList(1L, 2L, 3L));
+        slices.put("b", Arrays.asList(4L, 5L, 6L));
+
+        SlicedDownload<Long> download = new SlicedDownload<Long>(Arrays.asList("a", "b"), new Source(), 1);
+        assertThat(download.next()).isEqualTo(1L);
+        download.close();
+    }
+
+    private List<Long> drain(Iterator<Long> iterator) {
+        List<Long> values = new ArrayList<Long>();
+        while (iterator.hasNext())
+            values.add(iterator.next());
+        return values;
+    }
+
+    private class Source implements SlicedDownload.Source<Long> {
+        @Override
+        public RestStream<Long> open(String span) throws IOException {
+            if (!slices.containsKey(span)) throw new IOException("no such slice: " + span);
+            CountDownLatch gate = gates.get(span);
+            try {
+                if (gate != null) gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException(e.getMessage());
+            }
+            return new RestStream<Long>(slices.get(span).iterator(), null);
+        }
+
+        @Override
+        public Long detach(Long bag) {
+            detached.add((bag < 3 ? "a" : "b") + bag);
+            return bag;
+        }
+
+        @Override
+        public long currentHit(Long bag) {
+            return bag < 3 ? bag : bag - 2;
+        }
+
+        @Override
+        public long totalHits(Long bag) {
+            return 35;
+        }
+    }
+}
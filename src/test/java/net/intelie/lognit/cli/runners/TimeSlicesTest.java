@@ -0,0 +1,47 @@
+package net.intelie.lognit.cli.runners;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TimeSlicesTest {
+    @Test
+    public void splitsExplicitRangesEvenly() throws Exception {
+        assertThat(TimeSlices.slice("2012-06-01 to 2012-06-04", 3)).isEqualTo(Arrays.asList(
+                "2012-06-01 00:00:00 to 2012-06-01 23:59:59",
+                "2012-06-02 00:00:00 to 2012-06-02 23:59:59",
+                "2012-06-03 00:00:00 to 2012-06-04 00:00:00"));
+    }
+
+    @Test
+    public void keepsTheFromPrefixAndAcceptsTimes() throws Exception {
+        assertThat(TimeSlices.slice("from 2012-06-01 10:00 to 2012-06-01 10:30:30", 2)).isEqualTo(Arrays.asList(
+                "from 2012-06-01 10:00:00 to 2012-06-01 10:15:14",
+                "from 2012-06-01 10:15:15 to 2012-06-01 10:30:30"));
+    }
+
+    @Test
+    public void boundariesFallOnWholeSeconds() throws Exception {
+        assertThat(TimeSlices.slice("2012-06-01 10:00:00 to 2012-06-01 10:03:01", 3)).isEqualTo(Arrays.asList(
+                "2012-06-01 10:00:00 to 2012-06-01 10:00:59",
+                "2012-06-01 10:01:00 to 2012-06-01 10:01:59",
+                "2012-06-01 10:02:00 to 2012-06-01 10:03:01"));
+    }
+
+    @Test
+    public void neverSlicesBelowOneMinute() throws Exception {
+        assertThat(TimeSlices.slice("2012-06-01 10:00 to 2012-06-01 10:02", 10)).hasSize(2);
+        assertThat(TimeSlices.slice("2012-06-01 10:00:00 to 2012-06-01 10:00:30", 10))
+                .isEqualTo(Collections.singletonList("2012-06-01 10:00:00 to 2012-06-01 10:00:30"));
+    }
+
+    @Test
+    public void keepsAnythingElseWhole() throws Exception {
+        for (String span : Arrays.asList(null, "last 7 days", "yesterday to today", "2012-06-03 to 2012-06-01", "2012-13-01 to 2012-14-01", "2012-06-01 to 2012-06-02 extra"))
+            assertThat(TimeSlices.slice(span, 4)).isEqualTo(Collections.singletonList(span));
+        assertThat(TimeSlices.slice("2012-06-01 to 2012-06-04", 1)).isEqualTo(Collections.singletonList("2012-06-01 to 2012-06-04"));
+    }
+}
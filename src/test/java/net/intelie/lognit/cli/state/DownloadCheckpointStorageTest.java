@@ -0,0 +1,116 @@
+package net.intelie.lognit.cli.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DownloadCheckpointStorageTest {
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("test", "tmp");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void whenFileDoesNotExist() throws Exception {
+        assertThat(new DownloadCheckpointStorage(file).load()).isNull();
+    }
+
+    @Test
+    public void canStoreAndLoadAcrossInstances() throws Exception {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint("a:b = c\nd", "last day", "json", 42, 10, 12, 100, "id", "20120610", "191553");
+        new DownloadCheckpointStorage(file).store(checkpoint);
+
+        assertThat(new DownloadCheckpointStorage(file).load()).isEqualTo(checkpoint);
+        assertThat(new File(file.getPath() + ".tmp").exists()).isFalse();
+    }
+
+    @Test
+    public void canStoreWithoutOptionalFields() throws Exception {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint("abc", null, null, 20, 0, 0, 0, null, null, null);
+        new DownloadCheckpointStorage(file).store(checkpoint);
+
+        assertThat(new DownloadCheckpointStorage(file).load()).isEqualTo(checkpoint);
+    }
+
+    @Test
+    public void storingAgainReplacesThePreviousCheckpoint() throws Exception {
+        DownloadCheckpointStorage storage = new DownloadCheckpointStorage(file);
+        storage.store(new DownloadCheckpoint("abc", null, null, 20, 1, 1, 2, "A", null, null));
+        storage.store(new DownloadCheckpoint("abc", null, null, 20, 2, 2, 2, "B", null, null));
+
+        assertThat(storage.load().getWritten()).isEqualTo(2);
+        assertThat(storage.load().getLastId()).isEqualTo("B");
+    }
+
+    @Test
+    public void keepsTheOutputLength() throws Exception {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint("abc", null, "json", 20, 1, 1, 2, "A", null, null).withOutputLength(123);
+        new DownloadCheckpointStorage(file).store(checkpoint);
+
+        assertThat(new DownloadCheckpointStorage(file).load().getOutputLength()).isEqualTo(123);
+    }
+
+    @Test
+    public void fileDownloadsKeepTheirCheckpointBesideThem() throws Exception {
+        DownloadCheckpointStorage storage = new DownloadCheckpointStorage(file).nextTo(new File("/some/dir/out.gz"));
+
+        assertThat(storage.getFile()).isEqualTo(new File("/some/dir/out.gz.checkpoint"));
+    }
+
+    @Test
+    public void consoleDownloadsGetOneCheckpointEach() throws Exception {
+        DownloadCheckpointStorage storage = new DownloadCheckpointStorage(file);
+        DownloadCheckpointStorage abc = storage.forDownload("srv", "abc", null, "json", 20);
+        DownloadCheckpointStorage other = storage.forDownload("srv2", "abc", null, "json", 20);
+        abc.store(new DownloadCheckpoint("abc", null, "json", 20, 1, 1, 2, "A", null, null));
+        other.store(new DownloadCheckpoint("abc", null, "json", 20, 3, 3, 4, "C", null, null));
+        abc.clear();
+
+        assertThat(storage.forDownload("srv", "abc", null, "json", 20).load()).isNull();
+        assertThat(storage.forDownload("srv2", "abc", null, "json", 20).load().getWritten()).isEqualTo(3);
+        assertThat(abc.getFile().getParentFile()).isEqualTo(file.getParentFile());
+        other.clear();
+    }
+
+    @Test
+    public void whenFileIsCorrupted() throws Exception {
+        Files.write("query=abc\nwritten=x\n", file, Charsets.UTF_8);
+
+        assertThat(new DownloadCheckpointStorage(file).load()).isNull();
+    }
+
+    @Test
+    public void canClear() throws Exception {
+        DownloadCheckpointStorage storage = new DownloadCheckpointStorage(file);
+        storage.store(new DownloadCheckpoint("abc", null, null, 20, 1, 1, 2, "A", null, null));
+        storage.clear();
+
+        assertThat(file.exists()).isFalse();
+        assertThat(storage.load()).isNull();
+    }
+
+    @Test
+    public void onlyResumesTheSameDownload() throws Exception {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint("abc", "last day", "json", 20, 1, 1, 2, "A", null, null);
+
+        assertThat(checkpoint.isFor("abc", "last day", "json", 20)).isTrue();
+        assertThat(checkpoint.isFor("abd", "last day", "json", 20)).isFalse();
+        assertThat(checkpoint.isFor("abc", null, "json", 20)).isFalse();
+        assertThat(checkpoint.isFor("abc", "last day", "plain", 20)).isFalse();
+        assertThat(checkpoint.isFor("abc", "last day", "json", 21)).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+package net.intelie.lognit.cli.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LatencyHistoryTest {
+    @Test
+    public void whenFileDoesNotExist() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        file.delete();
+
+        assertThat(new LatencyHistory(file).load()).isEmpty();
+    }
+
+    @Test
+    public void canStoreAndLoadAcrossInstances() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        try {
+            new LatencyHistory(file).store(ImmutableMap.of("A", 10L, "B", 20L));
+            new LatencyHistory(file).store(ImmutableMap.of("A", 30L));
+
+            assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("A\t10\nA\t30\nB\t20\n");
+
+            Map<String, List<Long>> samples = new LatencyHistory(file).load();
+            assertThat(new ArrayList<String>(samples.keySet())).containsExactly("A", "B");
+            assertThat(samples.get("A")).containsExactly(10L, 30L);
+            assertThat(samples.get("B")).containsExactly(20L);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void storesSamplesOfManySearchesInOneGo() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        try {
+            new LatencyHistory(file).store(Arrays.<Map<String, Long>>asList(ImmutableMap.of("A", 10L), ImmutableMap.of("A", 20L, "B", 30L)));
+
+            assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("A\t10\nA\t20\nB\t30\n");
+            assertThat(new File(file.getPath() + ".tmp").exists()).isFalse();
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheLatestSamples() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        try {
+            LatencyHistory history = new LatencyHistory(file);
+            for (long i = 0; i < LatencyHistory.MAX_SAMPLES + 10; i++)
+                history.store(ImmutableMap.of("A", i));
+
+            List<Long> samples = history.load().get("A");
+            assertThat(samples).hasSize(LatencyHistory.MAX_SAMPLES);
+            assertThat(samples.get(0)).isEqualTo(10L);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void ignoresBrokenLines() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        try {
+            Files.write("A\t10\ngarbage\nB\tnot a number\n", file, Charsets.UTF_8);
+
+            assertThat(new LatencyHistory(file).load().get("A")).containsExactly(10L);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void aBrokenLineKeepsTheOnesAfterIt() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        try {
+            Files.write("A\t10\nB\tnot a number\nB\t20\nA\t30\n", file, Charsets.UTF_8);
+
+            new LatencyHistory(file).store(ImmutableMap.of("B", 40L));
+
+            assertThat(Files.toString(file, Charsets.UTF_8)).isEqualTo("A\t10\nA\t30\nB\t20\nB\t40\n");
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void storingNothingLeavesTheFileAlone() throws Exception {
+        File file = File.createTempFile("test", "tmp");
+        file.delete();
+
+        new LatencyHistory(file).store(Collections.<String, Long>emptyMap());
+
+        assertThat(file.exists()).isFalse();
+    }
+}